@@ -0,0 +1,38 @@
+package com.legeyda.play.tree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FindMinHeightBenchmark {
+
+	@Param({"balanced", "degenerate"})
+	public String shape;
+
+	@Param({"1000", "100000", "10000000"})
+	public int size;
+
+	private final FindMinHeight<Integer> findMinHeight = new FindMinHeight<>();
+	private TreeNode<Integer> root;
+
+	@Setup
+	public void setup() {
+		root = SampleTrees.of(shape, size);
+	}
+
+	@Benchmark
+	public int findMinHeight() {
+		return findMinHeight.findMinHeight(root);
+	}
+
+}
@@ -0,0 +1,53 @@
+package com.legeyda.play.tree;
+
+/** деревья для бенчмарков, строятся без рекурсии, чтобы не упираться в размер стека */
+public final class SampleTrees {
+
+	private SampleTrees() {
+	}
+
+	/** идеально сбалансированное дерево поиска из значений 0..size-1 */
+	public static TreeNode<Integer> balanced(int size) {
+		if(size==0) {
+			return null;
+		}
+		// ноды в порядке возрастания образуют кучу в массиве: потомки i - это 2i+1 и 2i+2
+		final TreeNode<Integer>[] nodes = new TreeNode[size];
+		for(int i=size-1; i>=0; i--) {
+			nodes[i] = new TreeNode<>(null, 2*i+1<size ? nodes[2*i+1] : null, 2*i+2<size ? nodes[2*i+2] : null);
+		}
+		final int[] counter = {0};
+		numberInorder(nodes[0], counter);
+		return nodes[0];
+	}
+
+	/** вырожденное дерево: цепочка правых потомков, как после вставки упорядоченных значений в несбалансированное дерево */
+	public static TreeNode<Integer> degenerate(int size) {
+		TreeNode<Integer> root = null;
+		for(int i=size-1; i>=0; i--) {
+			root = new TreeNode<>(i, null, root);
+		}
+		return root;
+	}
+
+	public static TreeNode<Integer> of(String shape, int size) {
+		switch(shape) {
+			case "balanced":
+				return balanced(size);
+			case "degenerate":
+				return degenerate(size);
+			default:
+				throw new IllegalArgumentException("unknown tree shape " + shape);
+		}
+	}
+
+	private static void numberInorder(TreeNode<Integer> node, int[] counter) {
+		// высота сбалансированного дерева логарифмическая, рекурсия здесь безопасна
+		if(node!=null) {
+			numberInorder(node.left, counter);
+			node.value = counter[0]++;
+			numberInorder(node.right, counter);
+		}
+	}
+
+}
@@ -0,0 +1,112 @@
+package com.legeyda.play.tree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * add, contains и обход AvlTreeSet в сравнении с TreeSet и ConcurrentSkipListSet;
+ * AvlTreeSet.ofIntegers сравнивает элементы без вызова compareTo, AvlTreeSet.finger ищет от пальца
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SetBenchmark {
+
+	private static final int PROBES = 1000;
+
+	@Param({"AvlTreeSet", "AvlTreeSet.ofIntegers", "AvlTreeSet.finger", "TreeSet", "ConcurrentSkipListSet"})
+	public String implementation;
+
+	@Param({"1000", "100000", "10000000"})
+	public int size;
+
+	private Integer[] values;
+	private Integer[] probes;
+	private Set<Integer> filled;
+
+	@Setup
+	public void setup() {
+		final Random random = new Random(42);
+		values = new Integer[size];
+		for(int i=0; i<size; i++) {
+			values[i] = random.nextInt();
+		}
+		probes = new Integer[PROBES];
+		for(int i=0; i<PROBES; i++) {
+			// половина проб попадает в множество, половина - мимо
+			probes[i] = i%2==0 ? values[random.nextInt(size)] : random.nextInt();
+		}
+		filled = create();
+		for(Integer value : values) {
+			filled.add(value);
+		}
+	}
+
+	private Set<Integer> create() {
+		switch(implementation) {
+			case "AvlTreeSet":
+				return new AvlTreeSet<>();
+			case "AvlTreeSet.ofIntegers":
+				return AvlTreeSet.ofIntegers();
+			case "AvlTreeSet.finger":
+				final AvlTreeSet<Integer> result = AvlTreeSet.ofIntegers();
+				result.enableFingerSearch();
+				return result;
+			case "TreeSet":
+				return new TreeSet<>();
+			case "ConcurrentSkipListSet":
+				return new ConcurrentSkipListSet<>();
+			default:
+				throw new IllegalArgumentException("unknown implementation " + implementation);
+		}
+	}
+
+	/** заполнение пустого множества size случайными значениями */
+	@Benchmark
+	public Set<Integer> add() {
+		final Set<Integer> set = create();
+		for(Integer value : values) {
+			set.add(value);
+		}
+		return set;
+	}
+
+	/** заполнение пустого множества возрастающими значениями, как при записи временного ряда */
+	@Benchmark
+	public Set<Integer> append() {
+		final Set<Integer> set = create();
+		for(int i=0; i<size; i++) {
+			set.add(i);
+		}
+		return set;
+	}
+
+	/** PROBES поисков в заполненном множестве */
+	@Benchmark
+	public void contains(Blackhole blackhole) {
+		for(Integer probe : probes) {
+			blackhole.consume(filled.contains(probe));
+		}
+	}
+
+	@Benchmark
+	public void iterate(Blackhole blackhole) {
+		for(Integer value : filled) {
+			blackhole.consume(value);
+		}
+	}
+
+}
@@ -0,0 +1,64 @@
+package com.legeyda.play.tree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** запись и загрузка снимка AvlTreeSet через канал в памяти, без диска */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SnapshotBenchmark {
+
+	@Param({"LONG", "LONG_DELTA"})
+	public String codec;
+
+	@Param({"1000000"})
+	public int size;
+
+	private ElementCodec<Long> elementCodec;
+	private AvlTreeSet<Long> set;
+	private byte[] snapshot;
+	private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+	@Setup
+	public void setup() throws IOException {
+		elementCodec = "LONG".equals(codec) ? ElementCodec.LONG : ElementCodec.LONG_DELTA;
+		final Random random = new Random(42);
+		set = AvlTreeSet.ofLongs();
+		while(set.size()<size) {
+			// ключи с шагом порядка сотни, как у последовательных идентификаторов с пропусками
+			set.add((long) random.nextInt(size * 100));
+		}
+		output.reset();
+		set.writeTo(Channels.newChannel(output), elementCodec);
+		snapshot = output.toByteArray();
+	}
+
+	@Benchmark
+	public int write() throws IOException {
+		output.reset();
+		set.writeTo(Channels.newChannel(output), elementCodec);
+		return output.size();
+	}
+
+	@Benchmark
+	public AvlTreeSet<Long> read() throws IOException {
+		final AvlTreeSet<Long> result = AvlTreeSet.ofLongs();
+		result.readFrom(Channels.newChannel(new ByteArrayInputStream(snapshot)), elementCodec);
+		return result;
+	}
+
+}
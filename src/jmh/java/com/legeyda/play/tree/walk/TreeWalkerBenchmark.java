@@ -0,0 +1,73 @@
+package com.legeyda.play.tree.walk;
+
+import com.legeyda.play.tree.SampleTrees;
+import com.legeyda.play.tree.TreeNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full walk of a tree by every TreeWalker implementation.
+ *
+ * Recursive walkers fail with StackOverflowError on a large degenerate tree,
+ * JMH marks such parameter combinations as failed and goes on with the next ones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TreeWalkerBenchmark {
+
+	@Param({
+			"BreadFirstNonRecursive",
+			"BreadFirstRingBuffer",
+			"ForkJoinWalker",
+			"InorderArrayStack",
+			"InorderIterative",
+			"InorderIterative2",
+			"LevelWalker",
+			"MorrisInorder",
+			"MorrisPreorder",
+			"PostorderArrayStack",
+			"PostorderIterative",
+			"PostorderRecursive",
+			"PreorderArrayStack",
+			"PreorderNonRecursive",
+			"PreorderRecursive"})
+	public String walker;
+
+	@Param({"balanced", "degenerate"})
+	public String shape;
+
+	@Param({"1000", "100000", "10000000"})
+	public int size;
+
+	private TreeWalker<Integer> testee;
+	private TreeNode<Integer> root;
+
+	/**
+	 * walker instance is created once per trial, so walkers with reusable buffers are measured warm;
+	 * ForkJoinWalker is measured in unordered mode, the only one where a plain walk runs in parallel
+	 */
+	@Setup
+	public void setup() throws ReflectiveOperationException {
+		testee = "ForkJoinWalker".equals(walker)
+				? new ForkJoinWalker<>(ForkJoinWalker.Order.UNORDERED)
+				: (TreeWalker<Integer>) Class.forName(TreeWalker.class.getPackage().getName() + "." + walker)
+						.getDeclaredConstructor().newInstance();
+		root = SampleTrees.of(shape, size);
+	}
+
+	@Benchmark
+	public void walk(Blackhole blackhole) {
+		testee.walk(root, blackhole::consume);
+	}
+
+}
@@ -0,0 +1,92 @@
+package com.legeyda.play.tree;
+
+/**
+ * нода АВЛ-дерева без данных: потомки, высота и размер поддерева;
+ * балансировка общая для деревьев {@link AvlTreeSet} и {@link AvlTreeMap}, данные хранятся в наследниках
+ */
+abstract class AvlNode<N extends AvlNode<N>> {
+
+	/**
+	 * высота АВЛ-дерева не превосходит 1.44*log2(n+2), то есть для n<2^31 меньше 45,
+	 * поэтому путь от корня всегда помещается в массив фиксированного размера
+	 */
+	static final int MAX_HEIGHT = 48;
+
+	public N left;
+	public N right;
+	public int height = 1;
+	/** количество элементов в поддереве с корнем в этой ноде */
+	public int size = 1;
+
+	AvlNode(N left, N right) {
+		this.left = left;
+		this.right = right;
+	}
+
+	static int height(AvlNode<?> node) {
+		return node!=null ? node.height : 0;
+	}
+
+	static int size(AvlNode<?> node) {
+		return node!=null ? node.size : 0;
+	}
+
+	static int balanceFactor(AvlNode<?> node) {
+		return node==null ? 0 : height(node.right) - height(node.left);
+	}
+
+	/** пересчитывает высоту и размер ноды по её потомкам */
+	static void recalculate(AvlNode<?> node) {
+		node.height = (1 + Math.max(height(node.left), height(node.right)));
+		node.size = 1 + size(node.left) + size(node.right);
+	}
+
+	/** пересчитывает ноду и восстанавливает баланс поворотами; @return новый корень поддерева */
+	static <N extends AvlNode<N>> N rebalance(N node) {
+		recalculate(node);
+
+		if(balanceFactor(node)==2) {
+			if(balanceFactor(node.right) < 0) {
+				node.right = rotateRight(node.right);
+			}
+			return rotateLeft(node);
+		}
+		if(balanceFactor(node)==-2) {
+			if(balanceFactor(node.left) > 0) {
+				node.left = rotateLeft(node.left);
+			}
+			return rotateRight(node);
+		}
+		return node;
+	}
+
+	/** сколько поворотов сделает rebalance для уже пересчитанной ноды: 0, 1 или 2 */
+	static int rotations(AvlNode<?> node) {
+		final int balance = balanceFactor(node);
+		if(balance==2) {
+			return balanceFactor(node.right) < 0 ? 2 : 1;
+		}
+		if(balance==-2) {
+			return balanceFactor(node.left) > 0 ? 2 : 1;
+		}
+		return 0;
+	}
+
+	static <N extends AvlNode<N>> N rotateRight(N p) {
+		N q = p.left;
+		p.left = q.right;
+		q.right = p;
+		recalculate(p);
+		recalculate(q);
+		return q;
+	}
+
+	static <N extends AvlNode<N>> N rotateLeft(N q) {
+		N p = q.right;
+		q.right = p.left;
+		p.left = q;
+		recalculate(q);
+		recalculate(p);
+		return p;
+	}
+}
@@ -0,0 +1,129 @@
+package com.legeyda.play.tree;
+
+import java.util.ArrayDeque;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * итератор по диапазону АВЛ-дерева, общий для {@link AvlTreeSet} и {@link AvlTreeMap};
+ * в стеке хранятся предки текущей ноды, которые ещё предстоит обойти,
+ * поэтому создание итератора стоит O(log(n)) и не копирует элементы.
+ * Наследники - внутренние классы дерева, их абстрактные методы вызываются уже из конструктора
+ */
+abstract class AvlNodeIterator<N extends AvlNode<N>, K, E> implements Iterator<E> {
+	private final AvlRange<K> range;
+	private final boolean descending;
+	private final Deque<N> stack = new ArrayDeque<>();
+	private N next;
+	private N lastReturned = null;
+	private int expectedModCount;
+
+	/** @param descending направление обхода, range.descending не учитывается */
+	AvlNodeIterator(AvlRange<K> range, boolean descending) {
+		this.range = range;
+		this.descending = descending;
+		this.expectedModCount = modCount();
+		if(descending) {
+			seekDescending(range.toEnd ? null : range.hi, range.toEnd || range.hiInclusive);
+		} else {
+			seekAscending(range.fromStart ? null : range.lo, range.fromStart || range.loInclusive);
+		}
+		advance();
+	}
+
+	abstract N root();
+
+	abstract int modCount();
+
+	abstract K key(N node);
+
+	abstract E element(N node);
+
+	/** удаляет ноду из дерева, меняя modCount */
+	abstract void delete(N node);
+
+	/** кладёт в стек путь до наименьшего ключа, который больше from (null - без ограничения) */
+	private void seekAscending(final K from, final boolean inclusive) {
+		stack.clear();
+		N node = root();
+		while(node!=null) {
+			final int comparisonResult = from==null ? 1 : range.order.compare(key(node), from);
+			if(comparisonResult>0 || (comparisonResult==0 && inclusive)) {
+				stack.push(node);
+				node = node.left;
+			} else {
+				node = node.right;
+			}
+		}
+	}
+
+	/** кладёт в стек путь до наибольшего ключа, который меньше from (null - без ограничения) */
+	private void seekDescending(final K from, final boolean inclusive) {
+		stack.clear();
+		N node = root();
+		while(node!=null) {
+			final int comparisonResult = from==null ? -1 : range.order.compare(key(node), from);
+			if(comparisonResult<0 || (comparisonResult==0 && inclusive)) {
+				stack.push(node);
+				node = node.right;
+			} else {
+				node = node.left;
+			}
+		}
+	}
+
+	private void advance() {
+		if(stack.isEmpty()) {
+			this.next = null;
+			return;
+		}
+		final N result = stack.pop();
+		for(N node = descending ? result.left : result.right; node!=null; node = descending ? node.right : node.left) {
+			stack.push(node);
+		}
+		final boolean outOfRange = descending ? range.tooLow(key(result)) : range.tooHigh(key(result));
+		this.next = outOfRange ? null : result;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return this.next!=null;
+	}
+
+	@Override
+	public E next() {
+		if(this.next==null) {
+			throw new NoSuchElementException();
+		}
+		if(this.expectedModCount!=modCount()) {
+			throw new ConcurrentModificationException();
+		}
+		this.lastReturned = this.next;
+		advance();
+		return element(this.lastReturned);
+	}
+
+	@Override
+	public void remove() {
+		if(this.lastReturned==null) {
+			throw new IllegalStateException();
+		}
+		if(this.expectedModCount!=modCount()) {
+			throw new ConcurrentModificationException();
+		}
+		delete(this.lastReturned);
+		this.lastReturned = null;
+		this.expectedModCount = modCount();
+		// после поворотов стек устарел, ищем следующий ключ заново
+		if(this.next!=null) {
+			if(descending) {
+				seekDescending(key(this.next), true);
+			} else {
+				seekAscending(key(this.next), true);
+			}
+			advance();
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package com.legeyda.play.tree;
+
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * диапазон ключей представления {@link AvlTreeSet} или {@link AvlTreeMap}: границы lo/hi заданы
+ * в порядке возрастания независимо от descending, fromStart/toEnd - границы нет;
+ * order - порядок самого дерева, а не представления
+ */
+final class AvlRange<K> {
+	final Comparator<? super K> order;
+	final boolean fromStart, loInclusive, toEnd, hiInclusive, descending;
+	final K lo, hi;
+
+	/** всё дерево */
+	AvlRange(Comparator<? super K> order) {
+		this(order, true, null, false, true, null, false, false);
+	}
+
+	private AvlRange(Comparator<? super K> order, boolean fromStart, K lo, boolean loInclusive, boolean toEnd, K hi, boolean hiInclusive, boolean descending) {
+		this.order = order;
+		this.fromStart = fromStart;
+		this.lo = lo;
+		this.loInclusive = loInclusive;
+		this.toEnd = toEnd;
+		this.hi = hi;
+		this.hiInclusive = hiInclusive;
+		this.descending = descending;
+	}
+
+	boolean tooLow(final K key) {
+		if(!fromStart) {
+			final int comparisonResult = order.compare(key, lo);
+			return comparisonResult<0 || (comparisonResult==0 && !loInclusive);
+		}
+		return false;
+	}
+
+	boolean tooHigh(final K key) {
+		if(!toEnd) {
+			final int comparisonResult = order.compare(key, hi);
+			return comparisonResult>0 || (comparisonResult==0 && !hiInclusive);
+		}
+		return false;
+	}
+
+	boolean inRange(final K key) {
+		return !tooLow(key) && !tooHigh(key);
+	}
+
+	/** проверка границы вложенного диапазона: исключённую границу можно повторить */
+	private boolean inRange(final K key, final boolean inclusive) {
+		return inclusive
+				? inRange(key)
+				: (fromStart || order.compare(key, lo)>=0) && (toEnd || order.compare(key, hi)<=0);
+	}
+
+	/** те же ключи в обратном порядке */
+	AvlRange<K> reversed() {
+		return new AvlRange<>(order, fromStart, lo, loInclusive, toEnd, hi, hiInclusive, !descending);
+	}
+
+	/** границы в порядке представления, как у subSet/subMap */
+	AvlRange<K> subRange(final K from, final boolean fromInclusive, final K to, final boolean toInclusive) {
+		return descending
+				? narrow(false, to, toInclusive, false, from, fromInclusive)
+				: narrow(false, from, fromInclusive, false, to, toInclusive);
+	}
+
+	AvlRange<K> headRange(final K to, final boolean inclusive) {
+		return descending
+				? narrow(false, to, inclusive, true, null, false)
+				: narrow(true, null, false, false, to, inclusive);
+	}
+
+	AvlRange<K> tailRange(final K from, final boolean inclusive) {
+		return descending
+				? narrow(true, null, false, false, from, inclusive)
+				: narrow(false, from, inclusive, true, null, false);
+	}
+
+	/** вложенный диапазон, границы в порядке возрастания; отсутствующая граница наследуется */
+	private AvlRange<K> narrow(boolean fromStart, K lo, boolean loInclusive, boolean toEnd, K hi, boolean hiInclusive) {
+		if(!fromStart) {
+			Objects.requireNonNull(lo);
+		}
+		if(!toEnd) {
+			Objects.requireNonNull(hi);
+		}
+		if(!fromStart && !toEnd && order.compare(lo, hi)>0) {
+			throw new IllegalArgumentException("fromKey > toKey");
+		}
+		if(!fromStart && !inRange(lo, loInclusive)) {
+			throw new IllegalArgumentException("fromKey out of range");
+		}
+		if(!toEnd && !inRange(hi, hiInclusive)) {
+			throw new IllegalArgumentException("toKey out of range");
+		}
+		return fromStart
+				? toEnd
+						? new AvlRange<>(order, this.fromStart, this.lo, this.loInclusive, this.toEnd, this.hi, this.hiInclusive, descending)
+						: new AvlRange<>(order, this.fromStart, this.lo, this.loInclusive, false, hi, hiInclusive, descending)
+				: toEnd
+						? new AvlRange<>(order, false, lo, loInclusive, this.toEnd, this.hi, this.hiInclusive, descending)
+						: new AvlRange<>(order, false, lo, loInclusive, false, hi, hiInclusive, descending);
+	}
+}
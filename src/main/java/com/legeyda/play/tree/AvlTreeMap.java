@@ -0,0 +1,1104 @@
+package com.legeyda.play.tree;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * отсортированный словарь на АВЛ-дереве с той же балансировкой, что у {@link AvlTreeSet}: ключ и значение
+ * хранятся прямо в ноде; compute/merge/putIfAbsent и прочие изменяющие операции спускаются к ключу один раз,
+ * запоминают путь и по нему меняют значение, вставляют или удаляют ноду
+ */
+public class AvlTreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K, V> {
+
+	private class TreeNode extends AvlNode<TreeNode> implements Map.Entry<K, V> {
+		public final K key;
+		public V value;
+
+		public TreeNode(K key, V value) {
+			super(null, null);
+			this.key = key;
+			this.value = value;
+		}
+
+		@Override
+		public K getKey() {
+			return key;
+		}
+
+		@Override
+		public V getValue() {
+			return value;
+		}
+
+		@Override
+		public V setValue(V value) {
+			final V result = this.value;
+			this.value = value;
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if(!(object instanceof Map.Entry)) {
+				return false;
+			}
+			final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) object;
+			return key.equals(entry.getKey()) && Objects.equals(value, entry.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return key.hashCode() ^ Objects.hashCode(value);
+		}
+
+		@Override
+		public String toString() {
+			return key + "=" + value;
+		}
+	}
+
+
+	/** итератор по диапазону дерева, общий с AvlTreeSet; extractor достаёт из ноды ключ, значение или саму ноду как запись словаря */
+	private class NodeIterator<E> extends AvlNodeIterator<TreeNode, K, E> {
+		final Function<TreeNode, E> extractor;
+
+		NodeIterator(AvlRange<K> range, boolean descending, Function<TreeNode, E> extractor) {
+			super(range, descending);
+			this.extractor = extractor;
+		}
+
+		@Override
+		TreeNode root() {
+			return AvlTreeMap.this.root;
+		}
+
+		@Override
+		int modCount() {
+			return AvlTreeMap.this.modCount;
+		}
+
+		@Override
+		K key(TreeNode node) {
+			return node.key;
+		}
+
+		@Override
+		E element(TreeNode node) {
+			return extractor.apply(node);
+		}
+
+		@Override
+		void delete(TreeNode node) {
+			AvlTreeMap.this.remove(node.key);
+		}
+	}
+
+
+	/** записи словаря или его диапазона (view==null - весь словарь); записи живые, setValue пишет в дерево */
+	private class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+		final SubMap view;
+
+		EntrySet(SubMap view) {
+			this.view = view;
+		}
+
+		@Override
+		public Iterator<Map.Entry<K, V>> iterator() {
+			final AvlRange<K> range = rangeOf(view);
+			return new NodeIterator<>(range, range.descending, node -> node);
+		}
+
+		@Override
+		public int size() {
+			return view!=null ? view.size() : AvlTreeMap.this.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return view!=null ? view.isEmpty() : AvlTreeMap.this.isEmpty();
+		}
+
+		@Override
+		public boolean contains(Object object) {
+			return findEntry(object)!=null;
+		}
+
+		@Override
+		public boolean remove(Object object) {
+			final TreeNode node = findEntry(object);
+			if(node==null) {
+				return false;
+			}
+			AvlTreeMap.this.remove(node.key);
+			return true;
+		}
+
+		@Override
+		public void clear() {
+			if(view==null) {
+				AvlTreeMap.this.clear();
+			} else {
+				super.clear();
+			}
+		}
+
+		private TreeNode findEntry(Object object) {
+			if(!(object instanceof Map.Entry)) {
+				return null;
+			}
+			final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) object;
+			final K key = (K) entry.getKey();
+			if(view!=null && !view.range.inRange(key)) {
+				return null;
+			}
+			final TreeNode node = findNode(key);
+			return node!=null && Objects.equals(node.value, entry.getValue()) ? node : null;
+		}
+	}
+
+
+	/** ключи словаря или его диапазона; навигация делегируется словарю */
+	private class KeySet extends AbstractSet<K> implements NavigableSet<K> {
+		final SubMap view;
+		final NavigableMap<K, V> map;
+
+		KeySet(SubMap view) {
+			this.view = view;
+			this.map = view!=null ? view : AvlTreeMap.this;
+		}
+
+		@Override
+		public Comparator<? super K> comparator() {
+			return map.comparator();
+		}
+
+		@Override
+		public K lower(K key) {
+			return map.lowerKey(key);
+		}
+
+		@Override
+		public K floor(K key) {
+			return map.floorKey(key);
+		}
+
+		@Override
+		public K ceiling(K key) {
+			return map.ceilingKey(key);
+		}
+
+		@Override
+		public K higher(K key) {
+			return map.higherKey(key);
+		}
+
+		@Override
+		public K first() {
+			return map.firstKey();
+		}
+
+		@Override
+		public K last() {
+			return map.lastKey();
+		}
+
+		@Override
+		public K pollFirst() {
+			return keyOf(map.pollFirstEntry());
+		}
+
+		@Override
+		public K pollLast() {
+			return keyOf(map.pollLastEntry());
+		}
+
+		@Override
+		public int size() {
+			return map.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return map.isEmpty();
+		}
+
+		@Override
+		public boolean contains(Object key) {
+			return map.containsKey(key);
+		}
+
+		@Override
+		public boolean remove(Object key) {
+			if(!map.containsKey(key)) {
+				return false;
+			}
+			map.remove(key);
+			return true;
+		}
+
+		@Override
+		public void clear() {
+			map.clear();
+		}
+
+		@Override
+		public Iterator<K> iterator() {
+			final AvlRange<K> range = rangeOf(view);
+			return new NodeIterator<>(range, range.descending, node -> node.key);
+		}
+
+		@Override
+		public Iterator<K> descendingIterator() {
+			final AvlRange<K> range = rangeOf(view);
+			return new NodeIterator<>(range, !range.descending, node -> node.key);
+		}
+
+		@Override
+		public NavigableSet<K> descendingSet() {
+			return map.descendingMap().navigableKeySet();
+		}
+
+		@Override
+		public NavigableSet<K> subSet(K fromElement, boolean fromInclusive, K toElement, boolean toInclusive) {
+			return map.subMap(fromElement, fromInclusive, toElement, toInclusive).navigableKeySet();
+		}
+
+		@Override
+		public NavigableSet<K> headSet(K toElement, boolean inclusive) {
+			return map.headMap(toElement, inclusive).navigableKeySet();
+		}
+
+		@Override
+		public NavigableSet<K> tailSet(K fromElement, boolean inclusive) {
+			return map.tailMap(fromElement, inclusive).navigableKeySet();
+		}
+
+		@Override
+		public SortedSet<K> subSet(K fromElement, K toElement) {
+			return subSet(fromElement, true, toElement, false);
+		}
+
+		@Override
+		public SortedSet<K> headSet(K toElement) {
+			return headSet(toElement, false);
+		}
+
+		@Override
+		public SortedSet<K> tailSet(K fromElement) {
+			return tailSet(fromElement, true);
+		}
+	}
+
+
+	/** значения словаря или его диапазона в порядке ключей */
+	private class Values extends AbstractCollection<V> {
+		final SubMap view;
+
+		Values(SubMap view) {
+			this.view = view;
+		}
+
+		@Override
+		public Iterator<V> iterator() {
+			final AvlRange<K> range = rangeOf(view);
+			return new NodeIterator<>(range, range.descending, node -> node.value);
+		}
+
+		@Override
+		public int size() {
+			return view!=null ? view.size() : AvlTreeMap.this.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return view!=null ? view.isEmpty() : AvlTreeMap.this.isEmpty();
+		}
+	}
+
+
+	/**
+	 * представление диапазона словаря: ничего не копирует,
+	 * все операции спускаются по исходному дереву за O(log(n))
+	 */
+	private class SubMap extends AbstractMap<K, V> implements NavigableMap<K, V> {
+		final AvlRange<K> range;
+
+		SubMap(AvlRange<K> range) {
+			this.range = range;
+		}
+
+		TreeNode lowestNode() {
+			final TreeNode node = range.fromStart ? firstNode() : ceilingNode(range.lo, range.loInclusive);
+			return node==null || range.tooHigh(node.key) ? null : node;
+		}
+
+		TreeNode highestNode() {
+			final TreeNode node = range.toEnd ? lastNode() : floorNode(range.hi, range.hiInclusive);
+			return node==null || range.tooLow(node.key) ? null : node;
+		}
+
+		TreeNode ceilingNodeInRange(final K key, final boolean inclusive) {
+			if(range.tooLow(key)) {
+				return lowestNode();
+			}
+			final TreeNode node = ceilingNode(key, inclusive);
+			return node==null || range.tooHigh(node.key) ? null : node;
+		}
+
+		TreeNode floorNodeInRange(final K key, final boolean inclusive) {
+			if(range.tooHigh(key)) {
+				return highestNode();
+			}
+			final TreeNode node = floorNode(key, inclusive);
+			return node==null || range.tooLow(node.key) ? null : node;
+		}
+
+		@Override
+		public Comparator<? super K> comparator() {
+			return range.descending ? Collections.reverseOrder(AvlTreeMap.this.comparator) : AvlTreeMap.this.comparator;
+		}
+
+		@Override
+		public Map.Entry<K, V> lowerEntry(K key) {
+			return exportEntry(range.descending ? ceilingNodeInRange(key, false) : floorNodeInRange(key, false));
+		}
+
+		@Override
+		public K lowerKey(K key) {
+			return keyOf(range.descending ? ceilingNodeInRange(key, false) : floorNodeInRange(key, false));
+		}
+
+		@Override
+		public Map.Entry<K, V> floorEntry(K key) {
+			return exportEntry(range.descending ? ceilingNodeInRange(key, true) : floorNodeInRange(key, true));
+		}
+
+		@Override
+		public K floorKey(K key) {
+			return keyOf(range.descending ? ceilingNodeInRange(key, true) : floorNodeInRange(key, true));
+		}
+
+		@Override
+		public Map.Entry<K, V> ceilingEntry(K key) {
+			return exportEntry(range.descending ? floorNodeInRange(key, true) : ceilingNodeInRange(key, true));
+		}
+
+		@Override
+		public K ceilingKey(K key) {
+			return keyOf(range.descending ? floorNodeInRange(key, true) : ceilingNodeInRange(key, true));
+		}
+
+		@Override
+		public Map.Entry<K, V> higherEntry(K key) {
+			return exportEntry(range.descending ? floorNodeInRange(key, false) : ceilingNodeInRange(key, false));
+		}
+
+		@Override
+		public K higherKey(K key) {
+			return keyOf(range.descending ? floorNodeInRange(key, false) : ceilingNodeInRange(key, false));
+		}
+
+		@Override
+		public K firstKey() {
+			return existingKeyOf(range.descending ? highestNode() : lowestNode());
+		}
+
+		@Override
+		public K lastKey() {
+			return existingKeyOf(range.descending ? lowestNode() : highestNode());
+		}
+
+		@Override
+		public Map.Entry<K, V> firstEntry() {
+			return exportEntry(range.descending ? highestNode() : lowestNode());
+		}
+
+		@Override
+		public Map.Entry<K, V> lastEntry() {
+			return exportEntry(range.descending ? lowestNode() : highestNode());
+		}
+
+		@Override
+		public Map.Entry<K, V> pollFirstEntry() {
+			return removeNode(range.descending ? highestNode() : lowestNode());
+		}
+
+		@Override
+		public Map.Entry<K, V> pollLastEntry() {
+			return removeNode(range.descending ? lowestNode() : highestNode());
+		}
+
+		@Override
+		public int size() {
+			final int below = range.fromStart ? 0 : countLess(range.lo, !range.loInclusive);
+			final int upToHi = range.toEnd ? AvlTreeMap.this.size() : countLess(range.hi, range.hiInclusive);
+			return Math.max(0, upToHi - below);
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return lowestNode()==null;
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return range.inRange((K) key) && AvlTreeMap.this.containsKey(key);
+		}
+
+		@Override
+		public V get(Object key) {
+			return range.inRange((K) key) ? AvlTreeMap.this.get(key) : null;
+		}
+
+		@Override
+		public V put(K key, V value) {
+			if(!range.inRange(key)) {
+				throw new IllegalArgumentException("key out of range");
+			}
+			return AvlTreeMap.this.put(key, value);
+		}
+
+		@Override
+		public V remove(Object key) {
+			return range.inRange((K) key) ? AvlTreeMap.this.remove(key) : null;
+		}
+
+		@Override
+		public Set<Map.Entry<K, V>> entrySet() {
+			return new EntrySet(this);
+		}
+
+		@Override
+		public NavigableSet<K> keySet() {
+			return new KeySet(this);
+		}
+
+		@Override
+		public NavigableSet<K> navigableKeySet() {
+			return new KeySet(this);
+		}
+
+		@Override
+		public NavigableSet<K> descendingKeySet() {
+			return descendingMap().navigableKeySet();
+		}
+
+		@Override
+		public Collection<V> values() {
+			return new Values(this);
+		}
+
+		@Override
+		public NavigableMap<K, V> descendingMap() {
+			return new SubMap(range.reversed());
+		}
+
+		@Override
+		public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+			return new SubMap(range.subRange(fromKey, fromInclusive, toKey, toInclusive));
+		}
+
+		@Override
+		public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+			return new SubMap(range.headRange(toKey, inclusive));
+		}
+
+		@Override
+		public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+			return new SubMap(range.tailRange(fromKey, inclusive));
+		}
+
+		@Override
+		public SortedMap<K, V> subMap(K fromKey, K toKey) {
+			return subMap(fromKey, true, toKey, false);
+		}
+
+		@Override
+		public SortedMap<K, V> headMap(K toKey) {
+			return headMap(toKey, false);
+		}
+
+		@Override
+		public SortedMap<K, V> tailMap(K fromKey) {
+			return tailMap(fromKey, true);
+		}
+	}
+
+
+	TreeNode root = null;
+
+	/** счётчик структурных изменений, чтобы итераторы могли обнаружить параллельную модификацию */
+	private int modCount = 0;
+
+	/** путь от корня до изменяемой ноды, переиспользуется всеми изменяющими операциями */
+	private final TreeNode[] path = (TreeNode[]) new AvlTreeMap.TreeNode[AvlNode.MAX_HEIGHT];
+
+	/** длина пути в path и результат последнего сравнения на нём после descend */
+	private int depth = 0;
+	private int lastComparison = 0;
+
+	/** то, что возвращает comparator(): null для естественного порядка */
+	private final Comparator<? super K> comparator;
+
+	/** весь словарь как диапазон для итераторов и представлений */
+	private final AvlRange<K> whole = new AvlRange<>(this::compare);
+
+	/** счётчик спусков: функция, переданная в compute или merge, может сама обратиться к словарю и затереть path */
+	private int descents = 0;
+
+
+	/** словарь в естественном порядке ключей */
+	public AvlTreeMap() {
+		this(null);
+	}
+
+	/** @param comparator порядок ключей, null - естественный порядок */
+	public AvlTreeMap(Comparator<? super K> comparator) {
+		this.comparator = comparator;
+	}
+
+	private int compare(final K first, final K second) {
+		return comparator!=null ? comparator.compare(first, second) : ((Comparable<? super K>) first).compareTo(second);
+	}
+
+	/** диапазон представления, null - весь словарь */
+	private AvlRange<K> rangeOf(final SubMap view) {
+		return view!=null ? view.range : whole;
+	}
+
+
+	/**
+	 * спускается к ключу, запоминая в path его предков;
+	 * @return нода с ключом, либо null - тогда место для него у path[depth-1] слева или справа по знаку lastComparison
+	 */
+	private TreeNode descend(final K key) {
+		Objects.requireNonNull(key);
+		this.descents++;
+		int depth = 0;
+		int comparisonResult = 0;
+		TreeNode node = this.root;
+		while(node!=null) {
+			comparisonResult = compare(key, node.key);
+			if(comparisonResult==0) {
+				break;
+			}
+			path[depth++] = node;
+			node = comparisonResult<0 ? node.left : node.right;
+		}
+		this.depth = depth;
+		this.lastComparison = comparisonResult;
+		return node;
+	}
+
+	/** после вызова функции пользователя: путь заново, если она сама спускалась по дереву */
+	private TreeNode redescend(final K key, final TreeNode node, final int descents, final int modCount) {
+		if(this.modCount!=modCount) {
+			releasePath();
+			throw new ConcurrentModificationException();
+		}
+		return this.descents==descents ? node : descend(key);
+	}
+
+	/** забывает путь, если дерево не меняется */
+	private void releasePath() {
+		Arrays.fill(path, 0, depth, null);
+		this.depth = 0;
+	}
+
+	/** вставляет ноду на место, найденное descend */
+	private void insert(final K key, final V value) {
+		final TreeNode node = new TreeNode(key, value);
+		if(depth==0) {
+			this.root = node;
+		} else if(lastComparison<0) {
+			path[depth-1].left = node;
+		} else {
+			path[depth-1].right = node;
+		}
+		rebalancePath(depth);
+		this.depth = 0;
+		this.modCount++;
+	}
+
+	/** удаляет ноду, найденную descend */
+	private void delete(final TreeNode node) {
+		int depth = this.depth;
+		final TreeNode parent = depth==0 ? null : path[depth-1];
+		if(node.left==null) {
+			replaceChild(parent, node, node.right);
+		} else if(node.right==null) {
+			replaceChild(parent, node, node.left);
+		} else {
+			// на место удаляемой ноды ставим минимальную ноду правого поддерева
+			final int nodeDepth = depth++;
+			TreeNode minParent = node;
+			TreeNode min = node.right;
+			while(min.left!=null) {
+				path[depth++] = min;
+				minParent = min;
+				min = min.left;
+			}
+			if(minParent==node) {
+				node.right = min.right;
+			} else {
+				minParent.left = min.right;
+			}
+			min.left = node.left;
+			min.right = node.right;
+			path[nodeDepth] = min;
+			replaceChild(parent, node, min);
+		}
+		node.left = node.right = null;
+		rebalancePath(depth);
+		this.depth = 0;
+		this.modCount++;
+	}
+
+	/** балансирует ноды из path[0..depth) снизу вверх, подвешивая результат к родителю */
+	private void rebalancePath(int depth) {
+		while(depth>0) {
+			final TreeNode node = path[--depth];
+			path[depth] = null;
+			final TreeNode balanced = AvlNode.rebalance(node);
+			replaceChild(depth==0 ? null : path[depth-1], node, balanced);
+		}
+	}
+
+	/** заменяет потомка parent (или корень, если parent==null) */
+	private void replaceChild(final TreeNode parent, final TreeNode child, final TreeNode replacement) {
+		if(parent==null) {
+			this.root = replacement;
+		} else if(parent.left==child) {
+			parent.left = replacement;
+		} else {
+			parent.right = replacement;
+		}
+	}
+
+
+
+	@Override
+	public V get(Object key) {
+		final TreeNode node = findNode((K) key);
+		return node!=null ? node.value : null;
+	}
+
+	@Override
+	public V getOrDefault(Object key, V defaultValue) {
+		final TreeNode node = findNode((K) key);
+		return node!=null ? node.value : defaultValue;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return findNode((K) key)!=null;
+	}
+
+	@Override
+	public V put(K key, V value) {
+		final TreeNode node = descend(key);
+		if(node!=null) {
+			releasePath();
+			return node.setValue(value);
+		}
+		insert(key, value);
+		return null;
+	}
+
+	@Override
+	public V putIfAbsent(K key, V value) {
+		final TreeNode node = descend(key);
+		if(node==null) {
+			insert(key, value);
+			return null;
+		}
+		releasePath();
+		return node.value!=null ? node.value : node.setValue(value);
+	}
+
+	@Override
+	public V remove(Object key) {
+		final TreeNode node = descend((K) key);
+		if(node==null) {
+			releasePath();
+			return null;
+		}
+		delete(node);
+		return node.value;
+	}
+
+	@Override
+	public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+		Objects.requireNonNull(mappingFunction);
+		TreeNode node = descend(key);
+		if(node!=null && node.value!=null) {
+			releasePath();
+			return node.value;
+		}
+		final int descents = this.descents;
+		final int modCount = this.modCount;
+		final V value = mappingFunction.apply(key);
+		node = redescend(key, node, descents, modCount);
+		if(value==null) {
+			releasePath();
+		} else if(node!=null) {
+			releasePath();
+			node.value = value;
+		} else {
+			insert(key, value);
+		}
+		return value;
+	}
+
+	@Override
+	public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		Objects.requireNonNull(remappingFunction);
+		TreeNode node = descend(key);
+		if(node==null || node.value==null) {
+			releasePath();
+			return null;
+		}
+		final int descents = this.descents;
+		final int modCount = this.modCount;
+		final V value = remappingFunction.apply(key, node.value);
+		node = redescend(key, node, descents, modCount);
+		if(value==null) {
+			delete(node);
+		} else {
+			releasePath();
+			node.value = value;
+		}
+		return value;
+	}
+
+	@Override
+	public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		Objects.requireNonNull(remappingFunction);
+		TreeNode node = descend(key);
+		final int descents = this.descents;
+		final int modCount = this.modCount;
+		final V value = remappingFunction.apply(key, node!=null ? node.value : null);
+		node = redescend(key, node, descents, modCount);
+		if(value==null) {
+			if(node!=null) {
+				delete(node);
+			} else {
+				releasePath();
+			}
+		} else if(node!=null) {
+			releasePath();
+			node.value = value;
+		} else {
+			insert(key, value);
+		}
+		return value;
+	}
+
+	@Override
+	public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+		Objects.requireNonNull(value);
+		Objects.requireNonNull(remappingFunction);
+		TreeNode node = descend(key);
+		if(node==null) {
+			insert(key, value);
+			return value;
+		}
+		if(node.value==null) {
+			releasePath();
+			node.value = value;
+			return value;
+		}
+		final int descents = this.descents;
+		final int modCount = this.modCount;
+		final V result = remappingFunction.apply(node.value, value);
+		node = redescend(key, node, descents, modCount);
+		if(result==null) {
+			delete(node);
+		} else {
+			releasePath();
+			node.value = result;
+		}
+		return result;
+	}
+
+	@Override
+	public void clear() {
+		this.root = null;
+		this.modCount++;
+	}
+
+	@Override
+	public int size() {
+		return AvlNode.size(this.root);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.root==null;
+	}
+
+
+
+	private TreeNode findNode(final K key) {
+		TreeNode node = this.root;
+		while(node!=null) {
+			final int comparisonResult = compare(key, node.key);
+			if(comparisonResult<0) {
+				node = node.left;
+			} else if(comparisonResult>0) {
+				node = node.right;
+			} else {
+				return node;
+			}
+		}
+		return null;
+	}
+
+	private TreeNode firstNode() {
+		TreeNode node = this.root;
+		if(node!=null) {
+			while(node.left!=null) {
+				node = node.left;
+			}
+		}
+		return node;
+	}
+
+	private TreeNode lastNode() {
+		TreeNode node = this.root;
+		if(node!=null) {
+			while(node.right!=null) {
+				node = node.right;
+			}
+		}
+		return node;
+	}
+
+	/** @return нода с наименьшим ключом, большим key (или равным, если inclusive) */
+	private TreeNode ceilingNode(final K key, final boolean inclusive) {
+		TreeNode result = null;
+		TreeNode node = this.root;
+		while(node!=null) {
+			final int comparisonResult = compare(node.key, key);
+			if(comparisonResult>0 || (comparisonResult==0 && inclusive)) {
+				result = node;
+				node = node.left;
+			} else {
+				node = node.right;
+			}
+		}
+		return result;
+	}
+
+	/** @return нода с наибольшим ключом, меньшим key (или равным, если inclusive) */
+	private TreeNode floorNode(final K key, final boolean inclusive) {
+		TreeNode result = null;
+		TreeNode node = this.root;
+		while(node!=null) {
+			final int comparisonResult = compare(node.key, key);
+			if(comparisonResult<0 || (comparisonResult==0 && inclusive)) {
+				result = node;
+				node = node.right;
+			} else {
+				node = node.left;
+			}
+		}
+		return result;
+	}
+
+	/** количество ключей, меньших key (или равных, если inclusive) */
+	private int countLess(final K key, final boolean inclusive) {
+		int result = 0;
+		TreeNode node = this.root;
+		while(node!=null) {
+			final int comparisonResult = compare(key, node.key);
+			if(comparisonResult<0) {
+				node = node.left;
+			} else if(comparisonResult>0) {
+				result += AvlNode.size(node.left) + 1;
+				node = node.right;
+			} else {
+				return result + AvlNode.size(node.left) + (inclusive ? 1 : 0);
+			}
+		}
+		return result;
+	}
+
+	/** навигационные методы отдают неизменяемый снимок записи, как TreeMap */
+	private Map.Entry<K, V> exportEntry(final TreeNode node) {
+		return node!=null ? new AbstractMap.SimpleImmutableEntry<>(node.key, node.value) : null;
+	}
+
+	private static <K> K keyOf(final Map.Entry<K, ?> entry) {
+		return entry!=null ? entry.getKey() : null;
+	}
+
+	private K existingKeyOf(final TreeNode node) {
+		if(node==null) {
+			throw new NoSuchElementException();
+		}
+		return node.key;
+	}
+
+	private Map.Entry<K, V> removeNode(final TreeNode node) {
+		if(node==null) {
+			return null;
+		}
+		final Map.Entry<K, V> result = exportEntry(node);
+		remove(node.key);
+		return result;
+	}
+
+	@Override
+	public Comparator<? super K> comparator() {
+		return this.comparator;
+	}
+
+	@Override
+	public Map.Entry<K, V> lowerEntry(K key) {
+		return exportEntry(floorNode(key, false));
+	}
+
+	@Override
+	public K lowerKey(K key) {
+		return keyOf(floorNode(key, false));
+	}
+
+	@Override
+	public Map.Entry<K, V> floorEntry(K key) {
+		return exportEntry(floorNode(key, true));
+	}
+
+	@Override
+	public K floorKey(K key) {
+		return keyOf(floorNode(key, true));
+	}
+
+	@Override
+	public Map.Entry<K, V> ceilingEntry(K key) {
+		return exportEntry(ceilingNode(key, true));
+	}
+
+	@Override
+	public K ceilingKey(K key) {
+		return keyOf(ceilingNode(key, true));
+	}
+
+	@Override
+	public Map.Entry<K, V> higherEntry(K key) {
+		return exportEntry(ceilingNode(key, false));
+	}
+
+	@Override
+	public K higherKey(K key) {
+		return keyOf(ceilingNode(key, false));
+	}
+
+	@Override
+	public K firstKey() {
+		return existingKeyOf(firstNode());
+	}
+
+	@Override
+	public K lastKey() {
+		return existingKeyOf(lastNode());
+	}
+
+	@Override
+	public Map.Entry<K, V> firstEntry() {
+		return exportEntry(firstNode());
+	}
+
+	@Override
+	public Map.Entry<K, V> lastEntry() {
+		return exportEntry(lastNode());
+	}
+
+	@Override
+	public Map.Entry<K, V> pollFirstEntry() {
+		return removeNode(firstNode());
+	}
+
+	@Override
+	public Map.Entry<K, V> pollLastEntry() {
+		return removeNode(lastNode());
+	}
+
+	@Override
+	public Set<Map.Entry<K, V>> entrySet() {
+		return new EntrySet(null);
+	}
+
+	@Override
+	public NavigableSet<K> keySet() {
+		return new KeySet(null);
+	}
+
+	@Override
+	public NavigableSet<K> navigableKeySet() {
+		return new KeySet(null);
+	}
+
+	@Override
+	public NavigableSet<K> descendingKeySet() {
+		return descendingMap().navigableKeySet();
+	}
+
+	@Override
+	public Collection<V> values() {
+		return new Values(null);
+	}
+
+	@Override
+	public NavigableMap<K, V> descendingMap() {
+		return new SubMap(whole.reversed());
+	}
+
+	@Override
+	public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+		return new SubMap(whole.subRange(fromKey, fromInclusive, toKey, toInclusive));
+	}
+
+	@Override
+	public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+		return new SubMap(whole.headRange(toKey, inclusive));
+	}
+
+	@Override
+	public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+		return new SubMap(whole.tailRange(fromKey, inclusive));
+	}
+
+	@Override
+	public SortedMap<K, V> subMap(K fromKey, K toKey) {
+		return subMap(fromKey, true, toKey, false);
+	}
+
+	@Override
+	public SortedMap<K, V> headMap(K toKey) {
+		return headMap(toKey, false);
+	}
+
+	@Override
+	public SortedMap<K, V> tailMap(K fromKey) {
+		return tailMap(fromKey, true);
+	}
+
+}
@@ -1,27 +1,42 @@
 package com.legeyda.play.tree;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.Optional;
-import java.util.Queue;
-import java.util.Stack;
-import java.util.function.BiFunction;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.SortedSet;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.function.Consumer;
 
-public class AvlTreeSet<T extends Comparable<T>> extends AbstractSet<T> {
+/**
+ * множество на АВЛ-дереве, упорядоченное естественным порядком элементов или компаратором;
+ * для строк, чисел и массивов байт есть фабрики с прямым сравнением без виртуального вызова compareTo
+ */
+public class AvlTreeSet<T> extends AbstractSet<T> implements NavigableSet<T> {
 
-	private class TreeNode {
+	private class TreeNode extends AvlNode<TreeNode> {
 		public T value;
-		public TreeNode left;
-		public TreeNode right;
-		public int height = 0;
 
 		public TreeNode(T value, TreeNode left, TreeNode right) {
+			super(left, right);
 			this.value = value;
-			this.left = left;
-			this.right = right;
 		}
 
 		@Override
@@ -31,430 +46,1655 @@ public class AvlTreeSet<T extends Comparable<T>> extends AbstractSet<T> {
 	}
 
 
-	/**
-	 * абстрактный элемент для печати дерева:
-	 * может быть либо нодой исходного дерева, либо пробельными промежутками между ними
-	 */
-	private abstract static class PrintNode implements BiFunction<Consumer<String>, Consumer<PrintNode>, Boolean> {
-		/** печатает в printer текущую строку и заполняет очередь следующего уровня
-		 *  (как обход дерева в ширину)
-		 *  @return true если это нода и у неё есть потомки, false - если просто промежуток пробелов
-		 */
+	/** итератор по диапазону дерева, обход и удаление общие с AvlTreeMap */
+	private class NodeIterator extends AvlNodeIterator<TreeNode, T, T> {
+
+		NodeIterator(AvlRange<T> range, boolean descending) {
+			super(range, descending);
+			if(counters!=null) {
+				counters.iterators.increment();
+			}
+		}
+
 		@Override
-		abstract public Boolean apply(Consumer<String> printer, Consumer<PrintNode> outputQueue);
-	}
+		TreeNode root() {
+			return AvlTreeSet.this.root;
+		}
 
-	/** печать промежутка между деревьями */
-	private static class Whitespace extends PrintNode {
-		private final int width;
+		@Override
+		int modCount() {
+			return AvlTreeSet.this.modCount;
+		}
 
-		public Whitespace(int length) {
-			this.width = length;
+		@Override
+		T key(TreeNode node) {
+			return node.value;
 		}
 
 		@Override
-		public Boolean apply(Consumer<String> printer, Consumer<PrintNode> outputQueue) {
-			Collections.nCopies(this.width, " ").forEach(printer);
-			outputQueue.accept(this);
-			return false;
+		T element(TreeNode node) {
+			return node.value;
+		}
+
+		@Override
+		void delete(TreeNode node) {
+			AvlTreeSet.this.remove(node.value);
 		}
 	}
 
-	/** печать горизонтальной линии, под которой промежуток */
-	private static class Line extends PrintNode {
-		private final int width;
 
-		public Line(int length) {
-			this.width = length;
+	/**
+	 * сплитератор по элементам с порядковыми номерами [index, fence):
+	 * благодаря размерам поддеревьев делится пополам по номеру за O(1) и знает точный размер,
+	 * а спуск к первому элементу за O(log(n)) откладывается до начала обхода
+	 */
+	private class NodeSpliterator implements Spliterator<T> {
+		private int index;
+		private final int fence;
+		private final int expectedModCount;
+		/** стек как у NodeIterator, null - пока обход не начат */
+		private Deque<TreeNode> stack = null;
+
+		NodeSpliterator(int index, int fence, int expectedModCount) {
+			this.index = index;
+			this.fence = fence;
+			this.expectedModCount = expectedModCount;
+		}
+
+		private void seek() {
+			stack = new ArrayDeque<>();
+			TreeNode node = AvlTreeSet.this.root;
+			int k = index;
+			while(node!=null) {
+				final int leftSize = AvlNode.size(node.left);
+				if(k<leftSize) {
+					stack.push(node);
+					node = node.left;
+				} else if(k>leftSize) {
+					k -= leftSize + 1;
+					node = node.right;
+				} else {
+					stack.push(node);
+					break;
+				}
+			}
 		}
 
 		@Override
-		public Boolean apply(Consumer<String> printer, Consumer<PrintNode> outputQueue) {
-			Collections.nCopies(this.width, "-").forEach(printer);
-			outputQueue.accept(new Whitespace(this.width));
+		public boolean tryAdvance(Consumer<? super T> action) {
+			if(AvlTreeSet.this.modCount!=expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if(index>=fence) {
+				return false;
+			}
+			if(stack==null) {
+				seek();
+			}
+			final TreeNode result = stack.pop();
+			for(TreeNode node = result.right; node!=null; node = node.left) {
+				stack.push(node);
+			}
+			index++;
+			action.accept(result.value);
 			return true;
 		}
-	}
 
+		@Override
+		public void forEachRemaining(Consumer<? super T> action) {
+			while(tryAdvance(action)) {
+				// все элементы отдаются в tryAdvance
+			}
+		}
+
+		@Override
+		public Spliterator<T> trySplit() {
+			final int middle = (index + fence) >>> 1;
+			if(middle<=index) {
+				return null;
+			}
+			final Spliterator<T> prefix = new NodeSpliterator(index, middle, expectedModCount);
+			index = middle;
+			stack = null;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return fence - index;
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.SORTED | Spliterator.DISTINCT
+					| Spliterator.ORDERED | Spliterator.NONNULL;
+		}
 
+		@Override
+		public Comparator<? super T> getComparator() {
+			return AvlTreeSet.this.comparator;
+		}
+	}
 
-	private abstract class AbstractPrintTree extends PrintNode {
 
-		final TreeNode node;
-		final PrintTreeEvalResult eval;
+	/**
+	 * представление диапазона множества: ничего не копирует,
+	 * все операции спускаются по исходному дереву за O(log(n))
+	 */
+	private class SubSet extends AbstractSet<T> implements NavigableSet<T> {
+		final AvlRange<T> range;
 
-		public AbstractPrintTree(TreeNode node) {
-			this.node = node;
-			this.eval = this.doEval();
+		SubSet(AvlRange<T> range) {
+			this.range = range;
 		}
 
-		public AbstractPrintTree(TreeNode node, PrintTreeEvalResult eval) {
-			this.node = node;
-			this.eval = eval;
+		TreeNode lowestNode() {
+			final TreeNode node = range.fromStart ? firstNode() : ceilingNode(range.lo, range.loInclusive);
+			return node==null || range.tooHigh(node.value) ? null : node;
 		}
 
-		private PrintTreeEvalResult doEval() {
-			// Здесь мы рекурсивно находим ширину каждого поддерева. Нужно ли её кэшировать?
-			// Сравним сложность вычисления ширины каждого поддерева:
-			// без кэширования: время O(n*log(n)) место O(1),
-			// с кэшированием:  время O(n)        место O(n).
-			// Учитывая общую сложность обхода дерева в ширину - время O(n) место O(log^2(n))) -
-			// преимущества кэширования неочевидны, поэтому не будем.
+		TreeNode highestNode() {
+			final TreeNode node = range.toEnd ? lastNode() : floorNode(range.hi, range.hiInclusive);
+			return node==null || range.tooLow(node.value) ? null : node;
+		}
 
-			final PrintTreeEvalResult result = new PrintTreeEvalResult();
-			if(null==node) {
-				return result;
+		TreeNode ceilingNodeInRange(final T value, final boolean inclusive) {
+			if(range.tooLow(value)) {
+				return lowestNode();
 			}
+			final TreeNode node = ceilingNode(value, inclusive);
+			return node==null || range.tooHigh(node.value) ? null : node;
+		}
 
-			result.label = node.value.toString();
-			result.labelWidth = result.label.length() ;
-			if (result.labelWidth == 0) {
-				throw new AssertionError("something wrong: empty string");
+		TreeNode floorNodeInRange(final T value, final boolean inclusive) {
+			if(range.tooHigh(value)) {
+				return highestNode();
 			}
+			final TreeNode node = floorNode(value, inclusive);
+			return node==null || range.tooLow(node.value) ? null : node;
+		}
 
-			// для симметрии, если в надписи чётное число символов, между поддеревьями делаем 2 пробела, иначе 1
-			result.subtreeInterval = (0 == result.labelWidth % 2 ? 2 : 1);
+		@Override
+		public Comparator<? super T> comparator() {
+			return range.descending ? Collections.reverseOrder(AvlTreeSet.this.comparator) : AvlTreeSet.this.comparator;
+		}
 
+		@Override
+		public T lower(T value) {
+			return valueOf(range.descending ? ceilingNodeInRange(value, false) : floorNodeInRange(value, false));
+		}
 
-			if(this.node.left==null && this.node.right==null) {
-				result.leftSubtreeWidth = result.rightSubtreeWidth = (result.labelWidth - result.subtreeInterval) / 2;
-				result.leftSubtree = result.rightSubtree = new Whitespace(result.leftSubtreeWidth);
-			} else {
-				if (node.left != null) {
-					final AbstractPrintTree subtree = new PrintLeftSubtree(node.left);
-					result.leftSubtree = subtree;
-					result.leftSubtreeWidth = subtree.eval.totalWidth;
-					result.toBeContinued = true;
-				} else {
-					result.leftSubtreeWidth = (result.labelWidth - result.subtreeInterval) / 2;
-					result.leftSubtree = new Line(result.leftSubtreeWidth);
-				}
+		@Override
+		public T floor(T value) {
+			return valueOf(range.descending ? ceilingNodeInRange(value, true) : floorNodeInRange(value, true));
+		}
 
-				if (node.right != null) {
-					final AbstractPrintTree subtree = new PrintRightSubtree(node.right);
-					result.rightSubtree = subtree;
-					result.rightSubtreeWidth = subtree.eval.totalWidth;
-					result.toBeContinued = true;
-				} else {
-					result.rightSubtreeWidth = (result.labelWidth - result.subtreeInterval) / 2;
-					result.rightSubtree = new Line(result.rightSubtreeWidth);
-				}
-			}
+		@Override
+		public T ceiling(T value) {
+			return valueOf(range.descending ? floorNodeInRange(value, true) : ceilingNodeInRange(value, true));
+		}
 
-			result.totalWidth = result.leftSubtreeWidth + result.subtreeInterval + result.rightSubtreeWidth;
+		@Override
+		public T higher(T value) {
+			return valueOf(range.descending ? floorNodeInRange(value, false) : ceilingNodeInRange(value, false));
+		}
 
-			return result;
+		@Override
+		public T first() {
+			return existingValueOf(range.descending ? highestNode() : lowestNode());
 		}
-	}
 
-	/** деревао печатает свои левое и правое поддеревья */
-	private class PrintTree extends AbstractPrintTree {
+		@Override
+		public T last() {
+			return existingValueOf(range.descending ? lowestNode() : highestNode());
+		}
 
-		public PrintTree(TreeNode node) {
-			super(node);
+		@Override
+		public T pollFirst() {
+			return removeNode(range.descending ? highestNode() : lowestNode());
 		}
 
-		public PrintTree(TreeNode node, PrintTreeEvalResult eval) {
-			super(node, eval);
+		@Override
+		public T pollLast() {
+			return removeNode(range.descending ? lowestNode() : highestNode());
 		}
 
 		@Override
-		public Boolean apply(Consumer<String> printer, Consumer<PrintNode> outputQueue) {
+		public int size() {
+			final int below = range.fromStart ? 0 : countLess(range.lo, !range.loInclusive);
+			final int upToHi = range.toEnd ? AvlTreeSet.this.size() : countLess(range.hi, range.hiInclusive);
+			return Math.max(0, upToHi - below);
+		}
 
-			// есть место равное ширине дерева, примерно поседерине печатаем надпись
-			int charsWritten = 0;
-			for(; charsWritten<eval.leftSubtreeWidth-(eval.labelWidth-1)/2; charsWritten++) {
-				printer.accept(" ");
-			}
-			printer.accept(eval.label);
-			charsWritten+=eval.labelWidth;
-			while (charsWritten < eval.totalWidth) {
-				charsWritten++;
-				printer.accept(" ");
+		@Override
+		public boolean isEmpty() {
+			return lowestNode()==null;
+		}
+
+		@Override
+		public boolean contains(Object value) {
+			return range.inRange((T)value) && AvlTreeSet.this.contains(value);
+		}
+
+		@Override
+		public boolean add(T value) {
+			if(!range.inRange(value)) {
+				throw new IllegalArgumentException("value out of range");
 			}
+			return AvlTreeSet.this.add(value);
+		}
+
+		@Override
+		public boolean remove(Object value) {
+			return range.inRange((T)value) && AvlTreeSet.this.remove(value);
+		}
 
-			outputQueue.accept(eval.leftSubtree);
-			outputQueue.accept(node.left!=null || node.right!=null ? new Line(eval.subtreeInterval) : new Whitespace(eval.subtreeInterval));
-			outputQueue.accept(eval.rightSubtree);
+		@Override
+		public Iterator<T> iterator() {
+			return new NodeIterator(range, range.descending);
+		}
 
-			return eval.toBeContinued;
+		@Override
+		public Iterator<T> descendingIterator() {
+			return new NodeIterator(range, !range.descending);
 		}
-	}
 
-	/** левое поддерево печатает линию направо до конца, и ниже допечатывает себя */
-	private class PrintLeftSubtree extends AbstractPrintTree {
-		public PrintLeftSubtree(TreeNode node) {
-			super(node);
+		@Override
+		public NavigableSet<T> descendingSet() {
+			return new SubSet(range.reversed());
 		}
 
 		@Override
-		public Boolean apply(Consumer<String> printer, Consumer<PrintNode> outputQueue) {
-			int charsWritten = 0;
-			for(; charsWritten<eval.leftSubtreeWidth-(eval.labelWidth-1)/2; charsWritten++) {
-				printer.accept(" ");
-			}
-			while (charsWritten < eval.totalWidth) {
-				charsWritten++;
-				printer.accept("-");
+		public Spliterator<T> spliterator() {
+			if(range.descending) {
+				return NavigableSet.super.spliterator();
 			}
+			final int from = range.fromStart ? 0 : countLess(range.lo, !range.loInclusive);
+			final int to = range.toEnd ? AvlTreeSet.this.size() : countLess(range.hi, range.hiInclusive);
+			return new NodeSpliterator(from, Math.max(from, to), AvlTreeSet.this.modCount);
+		}
 
-			outputQueue.accept(new PrintTree(node, eval));
-			return true;
+		@Override
+		public NavigableSet<T> subSet(T fromElement, boolean fromInclusive, T toElement, boolean toInclusive) {
+			return new SubSet(range.subRange(fromElement, fromInclusive, toElement, toInclusive));
 		}
-	}
 
-	/** правое поддерево печатает линию налево до конца, и ниже допечатывает себя */
-	private class PrintRightSubtree extends AbstractPrintTree {
-		public PrintRightSubtree(TreeNode node) {
-			super(node);
+		@Override
+		public NavigableSet<T> headSet(T toElement, boolean inclusive) {
+			return new SubSet(range.headRange(toElement, inclusive));
 		}
 
 		@Override
-		public Boolean apply(Consumer<String> printer, Consumer<PrintNode> outputQueue) {
-			int charsWritten = 0;
-			for(; charsWritten<eval.leftSubtreeWidth-(eval.labelWidth-1)/2 + eval.labelWidth; charsWritten++) {
-				printer.accept("-");
-			}
-			while (charsWritten < eval.totalWidth) {
-				charsWritten++;
-				printer.accept(" ");
-			}
+		public NavigableSet<T> tailSet(T fromElement, boolean inclusive) {
+			return new SubSet(range.tailRange(fromElement, inclusive));
+		}
 
-			outputQueue.accept(new PrintTree(node, eval));
-			return true;
+		@Override
+		public SortedSet<T> subSet(T fromElement, T toElement) {
+			return subSet(fromElement, true, toElement, false);
+		}
+
+		@Override
+		public SortedSet<T> headSet(T toElement) {
+			return headSet(toElement, false);
 		}
-	}
 
-	private class PrintTreeEvalResult {
-		int totalWidth =0, labelWidth =0, subtreeInterval=0, leftSubtreeWidth =0, rightSubtreeWidth =0;
-		PrintNode leftSubtree, rightSubtree;
-		boolean toBeContinued = false;
-		String label = "";
+		@Override
+		public SortedSet<T> tailSet(T fromElement) {
+			return tailSet(fromElement, true);
+		}
 	}
 
-	/** обертка вокруг принтера, умеющая не печатать пробелы в конце строки */
-	private class AvoidTrailingSpaces implements Consumer<String> {
-		private final Consumer<String> printer;
-		private int amountOfSpaces = 0;
 
-		public AvoidTrailingSpaces(Consumer<String> printer) {
-			this.printer = printer;
+	/**
+	 * проверяет, что последовательность возрастает, и пропускает повторы;
+	 * в строгом режиме повтор считается ошибкой
+	 */
+	private class DistinctAscending implements Iterator<T> {
+		private final Iterator<? extends T> source;
+		private final boolean strict;
+		private T next;
+
+		DistinctAscending(Iterator<? extends T> source, boolean strict) {
+			this.source = source;
+			this.strict = strict;
+			this.next = source.hasNext() ? Objects.requireNonNull(source.next()) : null;
 		}
 
 		@Override
-		public void accept(String s) {
-			// вместо печати пробелов запоминаем их количество и печатаем позже по необходимости
-			if(" ".equals(s)) {
-				amountOfSpaces++;
-			} else {
-				if(!"\n".equals(s)) {
-					for (int i = 0; i < amountOfSpaces; i++) {
-						printer.accept(" ");
-					}
+		public boolean hasNext() {
+			return next!=null;
+		}
+
+		@Override
+		public T next() {
+			if(next==null) {
+				throw new NoSuchElementException();
+			}
+			final T result = next;
+			next = null;
+			while(source.hasNext()) {
+				final T candidate = Objects.requireNonNull(source.next());
+				final int comparisonResult = compare(candidate, result);
+				if(comparisonResult>0) {
+					next = candidate;
+					break;
+				}
+				if(comparisonResult<0 || strict) {
+					throw new IllegalArgumentException("input is not " + (strict ? "strictly " : "") + "ascending: " + candidate + " after " + result);
 				}
-				amountOfSpaces = 0;
-				printer.accept(s);
 			}
+			return result;
 		}
 	}
 
 
-	TreeNode root = null;
+	/** результат разрезания дерева по элементу */
+	private class Split {
+		TreeNode left;
+		TreeNode right;
+		boolean found;
+	}
 
+	private enum Operation {
+		UNION, INTERSECTION, DIFFERENCE
+	}
 
+	/** операция над парой поддеревьев, независимые поддеревья обрабатываются параллельно */
+	private class SetOperationTask extends RecursiveTask<TreeNode> {
+		private static final long serialVersionUID = 1L;
 
-	@Override
-	public boolean add(T value) {
-		boolean result = false;
-		if(this.root==null) {
-			this.root = new TreeNode(value, null, null);
-			result = true;
-		} else {
-			result = add(this.root, value);
-			if(result) {
-				this.root = rebalance(this.root);
-			}
+		final Operation operation;
+		final TreeNode first;
+		final TreeNode second;
+
+		SetOperationTask(Operation operation, TreeNode first, TreeNode second) {
+			this.operation = operation;
+			this.first = first;
+			this.second = second;
 		}
-		return result;
-	}
 
-	private boolean add(TreeNode node, T value) {
-		boolean result = false;
-		final int comparisonResult = value.compareTo(node.value);
-		if(comparisonResult<0) {
-			if(node.left==null) {
-				node.left = new TreeNode(value, null, null);
-				result = true;
-			} else {
-				result = add(node.left, value);
-			}
-			if(result) {
-				node.left = rebalance(node.left);
-			}
-		} else if(comparisonResult>0) {
-			if(node.right==null) {
-				node.right = new TreeNode(value, null, null);
-				result = true;
-			} else {
-				result = add(node.right, value);
-			}
-			if(result) {
-				node.right = rebalance(node.right);
-			}
+		@Override
+		protected TreeNode compute() {
+			return combine(operation, first, second);
 		}
-		return result;
 	}
 
-	private TreeNode rebalance(TreeNode node) {
-		calculateHeight(node);
 
-		if(balanceFactor(node)==2) {
-			if(balanceFactor(node.right) < 0) {
-				node.right = rotateRight(node.right);
-			}
-			return rotateLeft(node);
-		}
-		if(balanceFactor(node)==-2) {
-			if(balanceFactor(node.left) > 0) {
-				node.left = rotateLeft(node.left);
-			}
-			return rotateRight(node);
-		}
-		return node;
+	/** поддеревья суммарно меньшего размера объединяются без распараллеливания */
+	private static final int PARALLEL_THRESHOLD = 1 << 13;
+
+	TreeNode root = null;
+
+	/** счётчик структурных изменений, чтобы итераторы могли обнаружить параллельную модификацию */
+	private int modCount = 0;
+
+	/** путь от корня до изменяемой ноды, переиспользуется всеми операциями add/remove */
+	private final TreeNode[] path = (TreeNode[]) new AvlTreeSet.TreeNode[AvlNode.MAX_HEIGHT];
+
+	/**
+	 * способ сравнения: у каждого типа ключей своя ветка в compare со своим мономорфным вызовом,
+	 * который JIT встраивает, вместо одного общего и потому мегаморфного value.compareTo
+	 */
+	private enum Order {
+		NATURAL, STRING, INTEGER, LONG, BYTES, COMPARATOR
 	}
 
-	private void calculateHeight(TreeNode node) {
-		node.height = (1 + Math.max(height(node.left), height(node.right)));
+	private final Order order;
+
+	/** то, что возвращает comparator(): null для естественного порядка */
+	private final Comparator<? super T> comparator;
+
+	/** всё множество как диапазон для итераторов и представлений */
+	private final AvlRange<T> whole = new AvlRange<>(this::compare);
+
+	/** включён ли поиск от пальца, см. {@link #enableFingerSearch()} */
+	private boolean fingerSearch = false;
+
+	/** путь от корня до ноды последнего add или contains, см. {@link #setFinger(int)} */
+	private final TreeNode[] finger = (TreeNode[]) new AvlTreeSet.TreeNode[AvlNode.MAX_HEIGHT];
+	private int fingerDepth = 0;
+	private int fingerModCount = -1;
+
+	/** создаётся при первой печати, см. {@link #renderer()} */
+	private TreeRenderer<TreeNode> renderer = null;
+
+	/** счётчики операций, null - статистика выключена и операции проверяют только это поле */
+	private OperationCounters counters = null;
+
+	/** лексикографический порядок массивов байт, байты сравниваются без знака */
+	public static final Comparator<byte[]> BYTES_LEXICOGRAPHIC = AvlTreeSet::compareBytes;
+
+
+	/** множество в естественном порядке элементов */
+	public AvlTreeSet() {
+		this(Order.NATURAL, null);
 	}
 
-	private int height(TreeNode node) {
-		return node!=null ? node.height : 0;
+	/** @param comparator порядок элементов, null - естественный порядок */
+	public AvlTreeSet(Comparator<? super T> comparator) {
+		this(comparator==null ? Order.NATURAL : comparator==BYTES_LEXICOGRAPHIC ? Order.BYTES : Order.COMPARATOR, comparator);
 	}
 
-	private int balanceFactor(TreeNode node) {
-		return node==null ? 0 : height(node.right) - height(node.left);
+	private AvlTreeSet(Order order, Comparator<? super T> comparator) {
+		this.order = order;
+		this.comparator = comparator;
 	}
 
-	private TreeNode rotateRight(TreeNode p) {
-		TreeNode q = p.left;
-		p.left = q.right;
-		q.right = p;
-		calculateHeight(p);
-		calculateHeight(q);
-		return q;
+	public static AvlTreeSet<String> ofStrings() {
+		return new AvlTreeSet<>(Order.STRING, null);
 	}
 
-	private TreeNode rotateLeft(TreeNode q) {
-		TreeNode p = q.right;
-		q.right = p.left;
-		p.left = q;
-		calculateHeight(q);
-		calculateHeight(p);
-		return p;
+	public static AvlTreeSet<Integer> ofIntegers() {
+		return new AvlTreeSet<>(Order.INTEGER, null);
 	}
 
+	public static AvlTreeSet<Long> ofLongs() {
+		return new AvlTreeSet<>(Order.LONG, null);
+	}
 
+	/** массивы байт в порядке {@link #BYTES_LEXICOGRAPHIC}; массивы не копируются, менять их после вставки нельзя */
+	public static AvlTreeSet<byte[]> ofByteArrays() {
+		return new AvlTreeSet<>(Order.BYTES, BYTES_LEXICOGRAPHIC);
+	}
 
-	@Override
-	public boolean contains(Object value) {
-		return find((T)value, this.root).isPresent();
+	private int compare(final T first, final T second) {
+		switch(order) {
+			case STRING:
+				return ((String) first).compareTo((String) second);
+			case INTEGER:
+				return Integer.compare((Integer) first, (Integer) second);
+			case LONG:
+				return Long.compare((Long) first, (Long) second);
+			case BYTES:
+				return compareBytes((byte[]) first, (byte[]) second);
+			case COMPARATOR:
+				return comparator.compare(first, second);
+			default:
+				return ((Comparable<? super T>) first).compareTo(second);
+		}
 	}
 
-	private Optional<TreeNode> find(final T value, final TreeNode node) {
-		if(node==null) {
-			return Optional.empty();
-		} else {
-			final int comparisonResult = node.value.compareTo(value);
-			if(comparisonResult>0) {
-				return find(value, node.right);
-			} else if(comparisonResult<0) {
-				return find(value, node.left);
-			} else {
-				return Optional.of(node);
+	private static int compareBytes(final byte[] first, final byte[] second) {
+		final int length = Math.min(first.length, second.length);
+		for(int i=0; i<length; i++) {
+			if(first[i]!=second[i]) {
+				return (first[i] & 0xff) - (second[i] & 0xff);
 			}
 		}
+		return first.length - second.length;
 	}
 
-
-	@Override
-	public Iterator<T> iterator() {
-		return this.inorderIterator();
+	/** split/join с другим деревом возможны, только если оба упорядочены одинаково */
+	private boolean sameOrder(final AvlTreeSet<?> other) {
+		return Objects.equals(this.comparator, other.comparator);
 	}
 
-	public Iterator<T> inorderIterator() {
-		return new Iterator<T>() {
-			final Stack<TreeNode> stack = new Stack<>();
-			TreeNode node = AvlTreeSet.this.root;
 
-			@Override
-			public boolean hasNext() {
-				return this.node!=null || !stack.isEmpty();
-			}
 
-			@Override
-			public T next() {
-				while(node!=null) {
-					stack.push(node);
+	@Override
+	public boolean add(T value) {
+		if(this.root==null) {
+			this.root = new TreeNode(value, null, null);
+			this.modCount++;
+			if(fingerSearch) {
+				finger[0] = this.root;
+				setFinger(1);
+			}
+			if(counters!=null) {
+				counters.adds.increment();
+			}
+			return true;
+		}
+		final int start = fingerSearch ? fingerStart(value) : 0;
+		if(start>0) {
+			System.arraycopy(finger, 0, path, 0, start);
+		}
+		int depth = start;
+		TreeNode node = start==0 ? this.root : finger[start];
+		while(true) {
+			final int comparisonResult = compare(value, node.value);
+			if(comparisonResult==0) {
+				if(counters!=null) {
+					counters.duplicates.increment();
+					counters.descent(depth - start + 1);
+				}
+				if(fingerSearch) {
+					System.arraycopy(path, 0, finger, 0, depth);
+					finger[depth] = node;
+					setFinger(depth + 1);
+				}
+				return false;
+			}
+			path[depth++] = node;
+			if(comparisonResult<0) {
+				if(node.left==null) {
+					node.left = new TreeNode(value, null, null);
 					node = node.left;
+					break;
 				}
-				if(stack.isEmpty()) {
-					throw new RuntimeException("iterator exhausted");
+				node = node.left;
+			} else {
+				if(node.right==null) {
+					node.right = new TreeNode(value, null, null);
+					node = node.right;
+					break;
 				}
-				final TreeNode result = stack.pop();
-				this.node = result.right;
-				return result.value;
+				node = node.right;
 			}
-		};
+		}
+		if(counters!=null) {
+			counters.adds.increment();
+			counters.descent(depth - start);
+		}
+		if(fingerSearch) {
+			System.arraycopy(path, 0, finger, 0, depth);
+			finger[depth] = node;
+		}
+		final int rotated = rebalanceInserted(depth);
+		this.modCount++;
+		if(fingerSearch) {
+			if(rotated<0) {
+				setFinger(depth + 1);
+			} else {
+				// поворот перестроил путь только ниже rotated
+				refinger(rotated, value);
+			}
+		}
+		return true;
 	}
 
-	@Override
-	public int size() {
-		return this.size(this.root);
+	/**
+	 * балансирует путь path[0..depth) после вставки: выше первой ноды, высота которой не изменилась,
+	 * балансировать нечего и остаётся увеличить размеры поддеревьев
+	 * @return глубина ноды, на которой был поворот, или -1
+	 */
+	private int rebalanceInserted(int depth) {
+		final OperationCounters counters = this.counters;
+		int rotated = -1;
+		while(depth>0) {
+			final TreeNode node = path[--depth];
+			path[depth] = null;
+			final int height = node.height;
+			if(counters!=null) {
+				AvlNode.recalculate(node);
+				counters.rotations(AvlNode.rotations(node));
+			}
+			final TreeNode balanced = AvlNode.rebalance(node);
+			if(balanced!=node) {
+				replaceChild(depth==0 ? null : path[depth-1], node, balanced);
+				rotated = depth;
+			}
+			if(balanced.height==height) {
+				while(depth>0) {
+					path[--depth].size++;
+					path[depth] = null;
+				}
+			}
+		}
+		return rotated;
 	}
 
-	private int size(final TreeNode node) {
-		return node==null ? 0 : 1 + size(node.left) + size(node.right);
+	/** балансирует ноды из path[0..depth) снизу вверх, подвешивая результат к родителю */
+	private void rebalancePath(int depth) {
+		final OperationCounters counters = this.counters;
+		while(depth>0) {
+			final TreeNode node = path[--depth];
+			path[depth] = null;
+			if(counters!=null) {
+				AvlNode.recalculate(node);
+				counters.rotations(AvlNode.rotations(node));
+			}
+			final TreeNode balanced = AvlNode.rebalance(node);
+			replaceChild(depth==0 ? null : path[depth-1], node, balanced);
+		}
 	}
 
+	/** заменяет потомка parent (или корень, если parent==null) */
+	private void replaceChild(final TreeNode parent, final TreeNode child, final TreeNode replacement) {
+		if(parent==null) {
+			this.root = replacement;
+		} else if(parent.left==child) {
+			parent.left = replacement;
+		} else {
+			parent.right = replacement;
+		}
+	}
 
+	@Override
+	public boolean contains(Object value) {
+		return findNode((T)value)!=null;
+	}
 
-
-	public String print() {
-		final StringBuilder result = new StringBuilder();
-		this.print(result::append);
-		return result.toString();
+	private TreeNode findNode(final T value) {
+		if(fingerSearch && this.root!=null) {
+			return findFromFinger(value);
+		}
+		int depth = 0;
+		TreeNode node = this.root;
+		while(node!=null) {
+			depth++;
+			final int comparisonResult = compare(value, node.value);
+			if(comparisonResult<0) {
+				node = node.left;
+			} else if(comparisonResult>0) {
+				node = node.right;
+			} else {
+				break;
+			}
+		}
+		if(counters!=null) {
+			counters.descent(depth);
+		}
+		return node;
 	}
 
-	public void print(final Consumer<String> printer) {
-		final Consumer<String> internalPrinter = new AvoidTrailingSpaces(printer);
+	/** findNode, который начинает спуск от пальца и переносит палец на последнюю пройденную ноду, см. {@link #enableFingerSearch()} */
+	private TreeNode findFromFinger(final T value) {
+		final int start = fingerStart(value);
+		int depth = start;
+		TreeNode node = start==0 ? this.root : finger[start];
+		TreeNode result = null;
+		while(node!=null) {
+			finger[depth++] = node;
+			final int comparisonResult = compare(value, node.value);
+			if(comparisonResult<0) {
+				node = node.left;
+			} else if(comparisonResult>0) {
+				node = node.right;
+			} else {
+				result = node;
+				break;
+			}
+		}
+		setFinger(depth);
+		if(counters!=null) {
+			counters.descent(depth - start);
+		}
+		return result;
+	}
 
-		// обход дерева в ширину с двумя очередями для отслеживания перехода на следующий уровень
-		if(this.root==null) {
-			return;
+	/**
+	 * поддерево, с которого начинать спуск к value: поднимается от пальца к корню, пока value
+	 * не окажется в диапазоне поддерева; границы диапазона - предки, от которых путь свернул
+	 * в сторону, противоположную value, так что сравнивать приходится только с ними
+	 * @return глубина поддерева в finger, 0 - корень
+	 */
+	private int fingerStart(final T value) {
+		if(this.fingerModCount!=this.modCount || this.fingerDepth==0) {
+			return 0;
 		}
-		Queue<PrintNode> inputQueue = new LinkedList<>();
-		Queue<PrintNode> outputQueue = new LinkedList<>();
-		inputQueue.add(new PrintTree(root));
-		boolean toBeContinued = false;
-		while(true) {
-			if(inputQueue.isEmpty()) {
-				if(!toBeContinued) {
-					break;
+		final int last = this.fingerDepth - 1;
+		final int direction = compare(value, finger[last].value);
+		if(direction==0) {
+			return last;
+		}
+		int start = last;
+		for(int i=last-1; i>=0; i--) {
+			final TreeNode ancestor = finger[i];
+			if(direction>0 ? ancestor.left==finger[i+1] : ancestor.right==finger[i+1]) {
+				final int comparisonResult = compare(value, ancestor.value);
+				if(comparisonResult==0) {
+					return i;
 				}
-				if(outputQueue.isEmpty()) {
-					break;
+				if((comparisonResult>0)!=(direction>0)) {
+					return start;
 				}
-				Queue<PrintNode> temp = inputQueue;
-				inputQueue = outputQueue;
-				outputQueue = temp;
-				toBeContinued = false;
-				internalPrinter.accept("\n");
-			}
-			PrintNode entity = inputQueue.poll();
-			if(entity!=null) {
-				toBeContinued |= entity.apply(internalPrinter, outputQueue::offer);
+				start = i;
 			}
 		}
+		return start;
+	}
+
+	/** палец - путь finger[0..depth), действительный до следующего изменения дерева */
+	private void setFinger(final int depth) {
+		if(depth<this.fingerDepth) {
+			Arrays.fill(finger, depth, this.fingerDepth, null);
+		}
+		this.fingerDepth = depth;
+		this.fingerModCount = this.modCount;
+	}
+
+	/** восстанавливает палец на ноду value, когда путь finger[0..depth) не изменился, а ниже него был поворот */
+	private void refinger(int depth, final T value) {
+		TreeNode node = depth==0 ? this.root
+				: compare(value, finger[depth-1].value)<0 ? finger[depth-1].left : finger[depth-1].right;
+		while(true) {
+			finger[depth++] = node;
+			final int comparisonResult = compare(value, node.value);
+			if(comparisonResult==0) {
+				break;
+			}
+			node = comparisonResult<0 ? node.left : node.right;
+		}
+		setFinger(depth);
+	}
+
+	/**
+	 * включает поиск от пальца: add и contains запоминают путь к последней ноде и следующий поиск
+	 * начинают с ближайшего к ней поддерева, где лежит искомое значение; для значений на расстоянии d
+	 * от предыдущего это обычно O(log(d)) сравнений, а для возрастающих ключей - O(1) сравнений и поворотов;
+	 * для случайных ключей подъём от пальца добавляет до половины сравнений обычного спуска;
+	 * contains при этом переставляет палец, то есть становится изменяющей операцией: параллельные
+	 * вызовы contains, безопасные для неизменяемого дерева без пальца, теперь требуют внешней синхронизации
+	 */
+	public void enableFingerSearch() {
+		this.fingerSearch = true;
+	}
+
+	public void disableFingerSearch() {
+		this.fingerSearch = false;
+		setFinger(0);
+	}
+
+
+	@Override
+	public boolean remove(Object object) {
+		final T value = (T)object;
+		int depth = 0;
+		TreeNode node = this.root;
+		while(node!=null) {
+			final int comparisonResult = compare(value, node.value);
+			if(comparisonResult==0) {
+				break;
+			}
+			path[depth++] = node;
+			node = comparisonResult<0 ? node.left : node.right;
+		}
+		if(counters!=null) {
+			counters.descent(node==null ? depth : depth + 1);
+		}
+		if(node==null) {
+			Arrays.fill(path, 0, depth, null);
+			return false;
+		}
+
+		final TreeNode parent = depth==0 ? null : path[depth-1];
+		if(node.left==null) {
+			replaceChild(parent, node, node.right);
+		} else if(node.right==null) {
+			replaceChild(parent, node, node.left);
+		} else {
+			// на место удаляемой ноды ставим минимальную ноду правого поддерева
+			final int nodeDepth = depth++;
+			TreeNode minParent = node;
+			TreeNode min = node.right;
+			while(min.left!=null) {
+				path[depth++] = min;
+				minParent = min;
+				min = min.left;
+			}
+			if(minParent==node) {
+				node.right = min.right;
+			} else {
+				minParent.left = min.right;
+			}
+			min.left = node.left;
+			min.right = node.right;
+			path[nodeDepth] = min;
+			replaceChild(parent, node, min);
+		}
+		node.left = node.right = null;
+		rebalancePath(depth);
+		this.modCount++;
+		if(counters!=null) {
+			counters.removes.increment();
+		}
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		this.root = null;
+		this.modCount++;
+	}
+
+
+	private TreeNode firstNode() {
+		TreeNode node = this.root;
+		if(node!=null) {
+			while(node.left!=null) {
+				node = node.left;
+			}
+		}
+		return node;
+	}
+
+	private TreeNode lastNode() {
+		TreeNode node = this.root;
+		if(node!=null) {
+			while(node.right!=null) {
+				node = node.right;
+			}
+		}
+		return node;
+	}
+
+	/** @return нода с наименьшим элементом, большим value (или равным, если inclusive) */
+	private TreeNode ceilingNode(final T value, final boolean inclusive) {
+		TreeNode result = null;
+		TreeNode node = this.root;
+		while(node!=null) {
+			final int comparisonResult = compare(node.value, value);
+			if(comparisonResult>0 || (comparisonResult==0 && inclusive)) {
+				result = node;
+				node = node.left;
+			} else {
+				node = node.right;
+			}
+		}
+		return result;
+	}
+
+	/** @return нода с наибольшим элементом, меньшим value (или равным, если inclusive) */
+	private TreeNode floorNode(final T value, final boolean inclusive) {
+		TreeNode result = null;
+		TreeNode node = this.root;
+		while(node!=null) {
+			final int comparisonResult = compare(node.value, value);
+			if(comparisonResult<0 || (comparisonResult==0 && inclusive)) {
+				result = node;
+				node = node.right;
+			} else {
+				node = node.left;
+			}
+		}
+		return result;
+	}
+
+	private T valueOf(final TreeNode node) {
+		return node!=null ? node.value : null;
+	}
+
+	private T existingValueOf(final TreeNode node) {
+		if(node==null) {
+			throw new NoSuchElementException();
+		}
+		return node.value;
+	}
+
+	private T removeNode(final TreeNode node) {
+		if(node==null) {
+			return null;
+		}
+		final T result = node.value;
+		remove(result);
+		return result;
+	}
+
+	@Override
+	public Comparator<? super T> comparator() {
+		return this.comparator;
+	}
+
+	@Override
+	public T lower(T value) {
+		return valueOf(floorNode(value, false));
+	}
+
+	@Override
+	public T floor(T value) {
+		return valueOf(floorNode(value, true));
+	}
+
+	@Override
+	public T ceiling(T value) {
+		return valueOf(ceilingNode(value, true));
+	}
+
+	@Override
+	public T higher(T value) {
+		return valueOf(ceilingNode(value, false));
+	}
+
+	@Override
+	public T first() {
+		return existingValueOf(firstNode());
+	}
+
+	@Override
+	public T last() {
+		return existingValueOf(lastNode());
+	}
+
+	@Override
+	public T pollFirst() {
+		return removeNode(firstNode());
+	}
+
+	@Override
+	public T pollLast() {
+		return removeNode(lastNode());
+	}
+
+	@Override
+	public NavigableSet<T> descendingSet() {
+		return new SubSet(whole.reversed());
+	}
+
+	@Override
+	public NavigableSet<T> subSet(T fromElement, boolean fromInclusive, T toElement, boolean toInclusive) {
+		return new SubSet(whole.subRange(fromElement, fromInclusive, toElement, toInclusive));
+	}
+
+	@Override
+	public NavigableSet<T> headSet(T toElement, boolean inclusive) {
+		return new SubSet(whole.headRange(toElement, inclusive));
+	}
+
+	@Override
+	public NavigableSet<T> tailSet(T fromElement, boolean inclusive) {
+		return new SubSet(whole.tailRange(fromElement, inclusive));
+	}
+
+	@Override
+	public SortedSet<T> subSet(T fromElement, T toElement) {
+		return subSet(fromElement, true, toElement, false);
+	}
+
+	@Override
+	public SortedSet<T> headSet(T toElement) {
+		return headSet(toElement, false);
+	}
+
+	@Override
+	public SortedSet<T> tailSet(T fromElement) {
+		return tailSet(fromElement, true);
+	}
+
+
+	@Override
+	public Iterator<T> iterator() {
+		return this.inorderIterator();
+	}
+
+	public Iterator<T> inorderIterator() {
+		return new NodeIterator(whole, false);
+	}
+
+	@Override
+	public Iterator<T> descendingIterator() {
+		return new NodeIterator(whole, true);
+	}
+
+	@Override
+	public Spliterator<T> spliterator() {
+		if(counters!=null) {
+			counters.iterators.increment();
+		}
+		return new NodeSpliterator(0, size(), this.modCount);
+	}
+
+	@Override
+	public int size() {
+		return AvlNode.size(this.root);
+	}
+
+	/**
+	 * включает подсчёт операций: вставок, повторов, удалений, поворотов, глубины спусков и созданных итераторов;
+	 * пока статистика выключена, операции платят только проверкой поля на null
+	 */
+	public void enableStatistics() {
+		if(this.counters==null) {
+			this.counters = new OperationCounters();
+		}
+	}
+
+	/** выключает подсчёт операций и сбрасывает счётчики */
+	public void disableStatistics() {
+		this.counters = null;
+	}
+
+	/** @return снимок счётчиков, нулевых при выключенной статистике, с текущими высотой и размером дерева */
+	public TreeStatistics statistics() {
+		final OperationCounters counters = this.counters;
+		final TreeNode root = this.root;
+		if(counters==null) {
+			return new TreeStatistics(0, 0, 0, 0, 0, 0, 0, 0, 0, AvlNode.height(root), AvlNode.size(root));
+		}
+		return counters.snapshot(AvlNode.height(root), AvlNode.size(root));
+	}
+
+	/**
+	 * @return живое представление {@link #statistics()} для регистрации в MBeanServer;
+	 * читается из другого потока без синхронизации, поэтому высота и размер могут чуть отставать
+	 */
+	public TreeStatisticsMXBean statisticsBean() {
+		return new TreeStatisticsMXBean() {
+			@Override
+			public long getAdds() {
+				return statistics().getAdds();
+			}
+
+			@Override
+			public long getDuplicates() {
+				return statistics().getDuplicates();
+			}
+
+			@Override
+			public long getRemoves() {
+				return statistics().getRemoves();
+			}
+
+			@Override
+			public long getSingleRotations() {
+				return statistics().getSingleRotations();
+			}
+
+			@Override
+			public long getDoubleRotations() {
+				return statistics().getDoubleRotations();
+			}
+
+			@Override
+			public long getDescents() {
+				return statistics().getDescents();
+			}
+
+			@Override
+			public double getAverageDescentDepth() {
+				return statistics().getAverageDescentDepth();
+			}
+
+			@Override
+			public long getMaxDescentDepth() {
+				return statistics().getMaxDescentDepth();
+			}
+
+			@Override
+			public long getIterators() {
+				return statistics().getIterators();
+			}
+
+			@Override
+			public int getHeight() {
+				return statistics().getHeight();
+			}
+
+			@Override
+			public int getSize() {
+				return statistics().getSize();
+			}
+		};
+	}
+
+	/** @return k-й по порядку элемент множества (начиная с нуля) */
+	public T select(int k) {
+		if(k<0 || k>=size()) {
+			throw new IndexOutOfBoundsException("index " + k + " out of bounds for size " + size());
+		}
+		TreeNode node = this.root;
+		while(true) {
+			final int leftSize = AvlNode.size(node.left);
+			if(k<leftSize) {
+				node = node.left;
+			} else if(k>leftSize) {
+				k -= leftSize + 1;
+				node = node.right;
+			} else {
+				return node.value;
+			}
+		}
+	}
+
+	/** @return количество элементов множества, строго меньших value */
+	public int rank(final T value) {
+		return countLess(value, false);
+	}
+
+	/** @return количество элементов множества, меньших value (или равных, если inclusive) */
+	private int countLess(final T value, final boolean inclusive) {
+		int result = 0;
+		TreeNode node = this.root;
+		while(node!=null) {
+			final int comparisonResult = compare(value, node.value);
+			if(comparisonResult<0) {
+				node = node.left;
+			} else if(comparisonResult>0) {
+				result += AvlNode.size(node.left) + 1;
+				node = node.right;
+			} else {
+				return result + AvlNode.size(node.left) + (inclusive ? 1 : 0);
+			}
+		}
+		return result;
+	}
+
+	/** @return количество элементов в полуинтервале [lo, hi) */
+	public int countRange(final T lo, final T hi) {
+		return Math.max(0, rank(hi) - rank(lo));
+	}
+
+
+	/**
+	 * строит сбалансированное дерево из неубывающего массива за O(n), повторы пропускаются;
+	 * строки, Integer и Long сравниваются так же, как в {@link #ofStrings()}, {@link #ofIntegers()}, {@link #ofLongs()}
+	 */
+	public static <T extends Comparable<T>> AvlTreeSet<T> fromSorted(final T[] sorted) {
+		return AvlTreeSet.<T>naturalFor(sorted.length>0 ? sorted[0] : null).fillSorted(sorted);
+	}
+
+	/** строит сбалансированное дерево из неубывающей последовательности за O(n), повторы пропускаются */
+	public static <T extends Comparable<T>> AvlTreeSet<T> fromSorted(final Iterator<? extends T> sorted) {
+		return fromSorted(Spliterators.spliteratorUnknownSize(sorted, Spliterator.ORDERED));
+	}
+
+	/**
+	 * строит сбалансированное дерево из неубывающей последовательности за O(n);
+	 * если известно, что элементы различны и их количество известно, они не копируются в промежуточный буфер
+	 */
+	public static <T extends Comparable<T>> AvlTreeSet<T> fromSorted(final Spliterator<? extends T> sorted) {
+		final long count = distinctCount(sorted, null);
+		final Iterator<? extends T> iterator = Spliterators.iterator(sorted);
+		if(!iterator.hasNext()) {
+			return new AvlTreeSet<>();
+		}
+		final T first = iterator.next();
+		return AvlTreeSet.<T>naturalFor(first).fillSorted(new Prepended<>(first, iterator), count);
+	}
+
+	/** то же, что {@link #fromSorted(Object[])}, но массив упорядочен comparator; null - естественный порядок */
+	public static <T> AvlTreeSet<T> fromSorted(final Comparator<? super T> comparator, final T[] sorted) {
+		return new AvlTreeSet<T>(comparator).fillSorted(sorted);
+	}
+
+	/** то же, что {@link #fromSorted(Iterator)}, но последовательность упорядочена comparator */
+	public static <T> AvlTreeSet<T> fromSorted(final Comparator<? super T> comparator, final Iterator<? extends T> sorted) {
+		return new AvlTreeSet<T>(comparator).fillSorted(sorted, -1);
+	}
+
+	/** то же, что {@link #fromSorted(Spliterator)}, но последовательность упорядочена comparator */
+	public static <T> AvlTreeSet<T> fromSorted(final Comparator<? super T> comparator, final Spliterator<? extends T> sorted) {
+		return new AvlTreeSet<T>(comparator).fillSorted(Spliterators.iterator(sorted), distinctCount(sorted, comparator));
+	}
+
+	/** естественный порядок, для строк и чисел - с прямым сравнением, как у ofStrings и т.п. */
+	private static <T> AvlTreeSet<T> naturalFor(final Object sample) {
+		if(sample instanceof String) {
+			return new AvlTreeSet<>(Order.STRING, null);
+		} else if(sample instanceof Integer) {
+			return new AvlTreeSet<>(Order.INTEGER, null);
+		} else if(sample instanceof Long) {
+			return new AvlTreeSet<>(Order.LONG, null);
+		}
+		return new AvlTreeSet<>(Order.NATURAL, null);
+	}
+
+	/** @return количество элементов, если они заведомо различны и упорядочены comparator, иначе -1 */
+	private static long distinctCount(final Spliterator<?> sorted, final Comparator<?> comparator) {
+		if(sorted.hasCharacteristics(Spliterator.SIZED | Spliterator.DISTINCT | Spliterator.SORTED)
+				&& Objects.equals(sorted.getComparator(), comparator)
+				&& sorted.getExactSizeIfKnown()<=Integer.MAX_VALUE) {
+			return sorted.getExactSizeIfKnown();
+		}
+		return -1;
+	}
+
+	/** заполняет пустое множество: два прохода по массиву вместо копии в буфер */
+	private AvlTreeSet<T> fillSorted(final T[] sorted) {
+		int count = 0;
+		for(Iterator<T> iterator = new DistinctAscending(Arrays.asList(sorted).iterator(), false); iterator.hasNext(); iterator.next()) {
+			count++;
+		}
+		root = build(new DistinctAscending(Arrays.asList(sorted).iterator(), false), count);
+		return this;
+	}
+
+	/** заполняет пустое множество; @param count количество заведомо различных элементов или -1, если неизвестно */
+	private AvlTreeSet<T> fillSorted(final Iterator<? extends T> sorted, final long count) {
+		if(count>=0) {
+			root = build(new DistinctAscending(sorted, true), (int) count);
+		} else {
+			final List<T> buffer = new ArrayList<>();
+			new DistinctAscending(sorted, false).forEachRemaining(buffer::add);
+			root = build(buffer.iterator(), buffer.size());
+		}
+		return this;
+	}
+
+	/** first, затем rest: возвращает на место элемент, прочитанный, чтобы выбрать порядок */
+	private static final class Prepended<T> implements Iterator<T> {
+		private T first;
+		private final Iterator<? extends T> rest;
+
+		Prepended(T first, Iterator<? extends T> rest) {
+			this.first = first;
+			this.rest = rest;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return first!=null || rest.hasNext();
+		}
+
+		@Override
+		public T next() {
+			if(first==null) {
+				return rest.next();
+			}
+			final T result = first;
+			first = null;
+			return result;
+		}
+	}
+
+	/** строит идеально сбалансированное поддерево из следующих count элементов values */
+	private TreeNode build(final Iterator<? extends T> values, final int count) {
+		if(count==0) {
+			return null;
+		}
+		final int leftCount = (count - 1) / 2;
+		final TreeNode left = build(values, leftCount);
+		final TreeNode node = new TreeNode(values.next(), left, null);
+		node.right = build(values, count - 1 - leftCount);
+		AvlNode.recalculate(node);
+		return node;
+	}
+
+	/** сигнатура "AVLS" и версия формата writeTo/readFrom */
+	private static final int SNAPSHOT_MAGIC = 0x41564C53;
+	private static final int SNAPSHOT_VERSION = 1;
+
+	/**
+	 * пишет элементы в порядке множества: сигнатура, версия, количество элементов, элементы в кодировке codec;
+	 * обход без рекурсии, память не зависит от размера множества, канал не закрывается
+	 */
+	public void writeTo(WritableByteChannel channel, ElementCodec<? super T> codec) throws IOException {
+		final ChannelOutput output = new ChannelOutput(channel);
+		output.writeInt(SNAPSHOT_MAGIC);
+		output.writeByte(SNAPSHOT_VERSION);
+		output.writeVarLong(size());
+		T previous = null;
+		for(T value : this) {
+			codec.write(value, previous, output);
+			previous = value;
+		}
+		output.flush();
+	}
+
+	/**
+	 * заменяет содержимое множества записанным в writeTo: количество элементов известно заранее, поэтому
+	 * дерево строится сразу сбалансированным за O(n) без поворотов; порядок элементов проверяется по ходу чтения,
+	 * при ошибке множество не меняется
+	 */
+	public void readFrom(ReadableByteChannel channel, ElementCodec<T> codec) throws IOException {
+		final ChannelInput input = new ChannelInput(channel);
+		if(input.readInt()!=SNAPSHOT_MAGIC) {
+			throw new IOException("not an AvlTreeSet snapshot");
+		}
+		final int version = input.readByte();
+		if(version!=SNAPSHOT_VERSION) {
+			throw new IOException("unsupported snapshot version " + version);
+		}
+		final long count = input.readVarLong();
+		if(count<0 || count>Integer.MAX_VALUE) {
+			throw new IOException("bad element count " + count);
+		}
+		final Iterator<T> decoder = new Iterator<T>() {
+			long remaining = count;
+			T previous = null;
+
+			@Override
+			public boolean hasNext() {
+				return remaining>0;
+			}
+
+			@Override
+			public T next() {
+				if(remaining==0) {
+					throw new NoSuchElementException();
+				}
+				try {
+					previous = codec.read(previous, input);
+				} catch(IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				remaining--;
+				return previous;
+			}
+		};
+		final TreeNode root;
+		try {
+			root = build(new DistinctAscending(decoder, true), (int) count);
+		} catch(UncheckedIOException e) {
+			throw e.getCause();
+		} catch(IllegalArgumentException | NullPointerException e) {
+			throw new IOException("corrupted snapshot", e);
+		}
+		this.root = root;
+		this.modCount++;
+	}
+
+	/** связывает упорядоченные ноды nodes[from..to) в идеально сбалансированное поддерево */
+	private TreeNode link(final TreeNode[] nodes, final int from, final int to) {
+		if(from>=to) {
+			return null;
+		}
+		final int middle = (from + to) >>> 1;
+		final TreeNode node = nodes[middle];
+		node.left = link(nodes, from, middle);
+		node.right = link(nodes, middle + 1, to);
+		AvlNode.recalculate(node);
+		return node;
+	}
+
+	/**
+	 * другой AvlTreeSet объединяется через split/join, прочее отсортированное по естественному порядку
+	 * множество добавляется слиянием за O(n+m) без балансировки на каждом элементе,
+	 * если это дешевле m вставок по O(log(n))
+	 */
+	@Override
+	public boolean addAll(Collection<? extends T> values) {
+		if(values instanceof AvlTreeSet && sameOrder((AvlTreeSet<?>) values)) {
+			return unionWith((AvlTreeSet<T>) values);
+		}
+		if(values instanceof SortedSet && Objects.equals(((SortedSet<?>) values).comparator(), this.comparator) && !values.isEmpty()) {
+			final int count = values.size();
+			if(this.root==null) {
+				this.root = build(new DistinctAscending(values.iterator(), true), count);
+				this.modCount++;
+				return true;
+			}
+			final int size = size();
+			if((long) count * (32 - Integer.numberOfLeadingZeros(size)) >= size) {
+				return mergeSorted(new DistinctAscending(values.iterator(), true), count);
+			}
+		}
+		return super.addAll(values);
+	}
+
+	/** объединение с другим AvlTreeSet выполняется через split/join за O(m*log(n/m+1)) */
+	private boolean unionWith(final AvlTreeSet<T> other) {
+		if(other==this || other.root==null) {
+			return false;
+		}
+		return applyOperation(Operation.UNION, copy(other.root));
+	}
+
+	/**
+	 * пересечение с AvlTreeSet того же порядка выполняется через split/join, если аргумент не больше этого множества;
+	 * больший аргумент пришлось бы копировать целиком, поэтому тогда элементы проверяются по одному
+	 */
+	@Override
+	public boolean retainAll(Collection<?> values) {
+		if(values instanceof AvlTreeSet && sameOrder((AvlTreeSet<?>) values)) {
+			final AvlTreeSet<T> other = (AvlTreeSet<T>) values;
+			if(other==this) {
+				return false;
+			}
+			// ноды аргумента разрезаются, поэтому копируем его, только если он не больше текущего дерева
+			if(other.size()<=size()) {
+				return applyOperation(Operation.INTERSECTION, copy(other.root));
+			}
+		}
+		return super.retainAll(values);
+	}
+
+	/** как {@link #retainAll(Collection)}: split/join, только если аргумент не больше этого множества */
+	@Override
+	public boolean removeAll(Collection<?> values) {
+		if(values instanceof AvlTreeSet && sameOrder((AvlTreeSet<?>) values)) {
+			final AvlTreeSet<T> other = (AvlTreeSet<T>) values;
+			if(other==this) {
+				final boolean result = !isEmpty();
+				clear();
+				return result;
+			}
+			if(other.size()<=size()) {
+				return applyOperation(Operation.DIFFERENCE, copy(other.root));
+			}
+		}
+		return super.removeAll(values);
+	}
+
+	private boolean applyOperation(final Operation operation, final TreeNode other) {
+		final int sizeBefore = size();
+		this.root = AvlNode.size(this.root) + AvlNode.size(other) > PARALLEL_THRESHOLD
+				? ForkJoinPool.commonPool().invoke(new SetOperationTask(operation, this.root, other))
+				: combine(operation, this.root, other);
+		// combine перестраивает дерево, даже если состав не изменился, так что итераторы и палец устаревают в любом случае
+		this.modCount++;
+		return size()!=sizeBefore;
+	}
+
+	/**
+	 * рекурсивно разрезает второе дерево по корню первого и объединяет результаты по поддеревьям
+	 * (G. Blelloch, D. Ferizovic, Y. Sun, "Just Join for Parallel Ordered Sets"); оба дерева разрушаются
+	 */
+	private TreeNode combine(final Operation operation, final TreeNode first, final TreeNode second) {
+		if(first==null) {
+			return operation==Operation.UNION ? second : null;
+		}
+		if(second==null) {
+			return operation==Operation.INTERSECTION ? null : first;
+		}
+		final boolean parallel = AvlNode.size(first) + AvlNode.size(second) > PARALLEL_THRESHOLD;
+		final TreeNode firstLeft = first.left;
+		final TreeNode firstRight = first.right;
+		final Split split = new Split();
+		split(second, first.value, split);
+		final boolean found = split.found;
+
+		final TreeNode left;
+		final TreeNode right;
+		if(parallel) {
+			final SetOperationTask leftTask = new SetOperationTask(operation, firstLeft, split.left);
+			leftTask.fork();
+			right = combine(operation, firstRight, split.right);
+			left = leftTask.join();
+		} else {
+			left = combine(operation, firstLeft, split.left);
+			right = combine(operation, firstRight, split.right);
+		}
+
+		switch(operation) {
+			case UNION:
+				return join(left, first, right);
+			case INTERSECTION:
+				return found ? join(left, first, right) : join(left, right);
+			default:
+				return found ? join(left, right) : join(left, first, right);
+		}
+	}
+
+	/**
+	 * соединяет деревья left < middle < right в одно АВЛ-дерево за O(|h(left)-h(right)|):
+	 * спускаемся по краю более высокого дерева до поддерева подходящей высоты
+	 */
+	private TreeNode join(final TreeNode left, final TreeNode middle, final TreeNode right) {
+		if(AvlNode.height(left) > AvlNode.height(right) + 1) {
+			left.right = join(left.right, middle, right);
+			return AvlNode.rebalance(left);
+		}
+		if(AvlNode.height(right) > AvlNode.height(left) + 1) {
+			right.left = join(left, middle, right.left);
+			return AvlNode.rebalance(right);
+		}
+		middle.left = left;
+		middle.right = right;
+		AvlNode.recalculate(middle);
+		return middle;
+	}
+
+	/** соединяет деревья left < right, серединой становится минимальная нода right */
+	private TreeNode join(final TreeNode left, final TreeNode right) {
+		if(left==null) {
+			return right;
+		}
+		if(right==null) {
+			return left;
+		}
+		TreeNode min = right;
+		while(min.left!=null) {
+			min = min.left;
+		}
+		return join(left, min, removeMin(right));
+	}
+
+	private TreeNode removeMin(final TreeNode node) {
+		if(node.left==null) {
+			return node.right;
+		}
+		node.left = removeMin(node.left);
+		return AvlNode.rebalance(node);
+	}
+
+	/** разрезает дерево на элементы меньше и больше value; нода, равная value, выбрасывается */
+	private void split(final TreeNode node, final T value, final Split result) {
+		if(node==null) {
+			result.left = result.right = null;
+			result.found = false;
+			return;
+		}
+		final int comparisonResult = compare(value, node.value);
+		if(comparisonResult<0) {
+			final TreeNode right = node.right;
+			split(node.left, value, result);
+			result.right = join(result.right, node, right);
+		} else if(comparisonResult>0) {
+			final TreeNode left = node.left;
+			split(node.right, value, result);
+			result.left = join(left, node, result.left);
+		} else {
+			result.left = node.left;
+			result.right = node.right;
+			result.found = true;
+		}
+	}
+
+	/** копирует чужое поддерево вместе с высотами и размерами */
+	private TreeNode copy(final TreeNode node) {
+		if(node==null) {
+			return null;
+		}
+		final TreeNode result = new TreeNode(node.value, copy(node.left), copy(node.right));
+		result.height = node.height;
+		result.size = node.size;
+		return result;
+	}
+
+	private boolean mergeSorted(final Iterator<T> values, final int count) {
+		final int size = size();
+		// существующие ноды кладём в конец массива и сливаем с новыми элементами в его начало:
+		// позиция записи никогда не обгоняет позицию чтения
+		final TreeNode[] nodes = (TreeNode[]) new AvlTreeSet.TreeNode[size + count];
+		int read = count;
+		final Deque<TreeNode> stack = new ArrayDeque<>();
+		for(TreeNode node = this.root; node!=null || !stack.isEmpty(); ) {
+			if(node!=null) {
+				stack.push(node);
+				node = node.left;
+			} else {
+				node = stack.pop();
+				nodes[read++] = node;
+				node = node.right;
+			}
+		}
+
+		int write = 0;
+		read = count;
+		T pending = values.hasNext() ? values.next() : null;
+		while(pending!=null || read<nodes.length) {
+			final int comparisonResult = read==nodes.length ? 1 : pending==null ? -1 : compare(nodes[read].value, pending);
+			if(comparisonResult<=0) {
+				if(comparisonResult==0) {
+					pending = values.hasNext() ? values.next() : null;
+				}
+				nodes[write++] = nodes[read++];
+			} else {
+				nodes[write++] = new TreeNode(pending, null, null);
+				pending = values.hasNext() ? values.next() : null;
+			}
+		}
+
+		if(write==size) {
+			// новых элементов нет: дерево остаётся как было, живые итераторы и палец не затронуты
+			return false;
+		}
+		this.root = link(nodes, 0, write);
+		this.modCount++;
+		return true;
+	}
+
+
+
+
+	public String print() {
+		final StringBuilder result = new StringBuilder();
+		this.print(result::append);
+		return result.toString();
+	}
+
+	public void print(final Consumer<String> printer) {
+		try {
+			this.print(new ConsumerAppendable(printer), Integer.MAX_VALUE);
+		} catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/** печатает не больше maxLevels верхних уровней дерева */
+	public void print(Appendable out, int maxLevels) throws IOException {
+		renderer().render(this.root, maxLevels, out);
+	}
+
+	/**
+	 * печатает окрестность значения: поддерево предка на levelsAbove уровней выше ноды, на которой кончается
+	 * поиск value (самой ноды со значением, если оно есть в множестве), не больше maxLevels уровней
+	 */
+	public void printAround(T value, int levelsAbove, int maxLevels, Appendable out) throws IOException {
+		Objects.requireNonNull(value);
+		if(levelsAbove<0) {
+			throw new IllegalArgumentException("levels above must not be negative, got " + levelsAbove);
+		}
+		final TreeNode[] ancestors = (TreeNode[]) new AvlTreeSet.TreeNode[AvlNode.MAX_HEIGHT];
+		int depth = 0;
+		for(TreeNode node = this.root; node!=null; ) {
+			ancestors[depth++] = node;
+			final int comparisonResult = compare(value, node.value);
+			node = comparisonResult<0 ? node.left : comparisonResult>0 ? node.right : null;
+		}
+		if(depth>0) {
+			renderer().render(ancestors[Math.max(0, depth - 1 - levelsAbove)], maxLevels, out);
+		}
+	}
+
+	/**
+	 * печать переиспользует буфер строки и массивы одного рендерера, поэтому print не потокобезопасен;
+	 * массивы не сжимаются, так что множество держит память под самую большую напечатанную часть дерева
+	 */
+	private TreeRenderer<TreeNode> renderer() {
+		if(this.renderer==null) {
+			this.renderer = new TreeRenderer<>(node -> node.left, node -> node.right, node -> String.valueOf(node.value));
+		}
+		return this.renderer;
+	}
+
+	/** старый интерфейс печати получает строку целиком вместо отдельных символов */
+	private static class ConsumerAppendable implements Appendable {
+		private final Consumer<String> printer;
+
+		ConsumerAppendable(Consumer<String> printer) {
+			this.printer = printer;
+		}
+
+		@Override
+		public Appendable append(CharSequence csq) {
+			printer.accept(String.valueOf(csq));
+			return this;
+		}
+
+		@Override
+		public Appendable append(CharSequence csq, int start, int end) {
+			printer.accept(String.valueOf(csq).substring(start, end));
+			return this;
+		}
+
+		@Override
+		public Appendable append(char c) {
+			printer.accept(String.valueOf(c));
+			return this;
+		}
 	}
 
 
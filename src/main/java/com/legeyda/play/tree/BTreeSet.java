@@ -0,0 +1,366 @@
+package com.legeyda.play.tree;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * B+-дерево: в каждой ноде до capacity ключей, упакованных в массив,
+ * поэтому поиск проходит несколько широких нод вместо цепочки из ~1.44*log2(n) мелких;
+ * все элементы хранятся в листьях, связанных в список для быстрого последовательного обхода.
+ *
+ * Во внутренней ноде keys[i] - разделитель: ключи children[i] меньше него,
+ * ключи children[i+1] больше или равны.
+ */
+public class BTreeSet<T extends Comparable<T>> extends AbstractSet<T> {
+
+	private abstract static class Node {
+		final Object[] keys;
+		int count = 0;
+
+		Node(int capacity) {
+			// лишнее место под переполнение перед разделением
+			this.keys = new Object[capacity + 1];
+		}
+	}
+
+	private static final class Leaf extends Node {
+		Leaf next;
+
+		Leaf(int capacity) {
+			super(capacity);
+		}
+	}
+
+	private static final class Inner extends Node {
+		final Node[] children;
+
+		Inner(int capacity) {
+			super(capacity);
+			this.children = new Node[capacity + 2];
+		}
+	}
+
+	/** результат разделения переполненной ноды */
+	private static final class Split {
+		Object separator;
+		Node right;
+	}
+
+
+	private static final int DEFAULT_CAPACITY = 64;
+
+	/** максимальное количество ключей в ноде */
+	private final int capacity;
+	/** минимальное количество ключей в ноде, кроме корня */
+	private final int minCount;
+
+	private Node root;
+	private int size = 0;
+	private int modCount = 0;
+
+
+	public BTreeSet() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public BTreeSet(int capacity) {
+		if(capacity<3) {
+			throw new IllegalArgumentException("node capacity must be at least 3, got " + capacity);
+		}
+		this.capacity = capacity;
+		this.minCount = capacity / 2;
+		this.root = new Leaf(capacity);
+	}
+
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public boolean contains(Object value) {
+		Node node = this.root;
+		while(node instanceof Inner) {
+			node = ((Inner) node).children[childIndex(node, value)];
+		}
+		return Arrays.binarySearch(node.keys, 0, node.count, value)>=0;
+	}
+
+	@Override
+	public boolean add(T value) {
+		final Split split = new Split();
+		if(!add(this.root, value, split)) {
+			return false;
+		}
+		if(split.right!=null) {
+			final Inner newRoot = new Inner(capacity);
+			newRoot.keys[0] = split.separator;
+			newRoot.children[0] = this.root;
+			newRoot.children[1] = split.right;
+			newRoot.count = 1;
+			this.root = newRoot;
+		}
+		this.size++;
+		this.modCount++;
+		return true;
+	}
+
+	@Override
+	public boolean remove(Object value) {
+		if(!remove(this.root, value)) {
+			return false;
+		}
+		if(this.root instanceof Inner && this.root.count==0) {
+			this.root = ((Inner) this.root).children[0];
+		}
+		this.size--;
+		this.modCount++;
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		this.root = new Leaf(capacity);
+		this.size = 0;
+		this.modCount++;
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return new Iterator<T>() {
+			Leaf leaf = firstLeaf();
+			int index = 0;
+			T lastReturned = null;
+			int expectedModCount = BTreeSet.this.modCount;
+
+			{
+				skipExhaustedLeaves();
+			}
+
+			private void skipExhaustedLeaves() {
+				while(leaf!=null && index>=leaf.count) {
+					leaf = leaf.next;
+					index = 0;
+				}
+			}
+
+			@Override
+			public boolean hasNext() {
+				return leaf!=null;
+			}
+
+			@Override
+			public T next() {
+				if(leaf==null) {
+					throw new NoSuchElementException();
+				}
+				if(expectedModCount!=BTreeSet.this.modCount) {
+					throw new ConcurrentModificationException();
+				}
+				lastReturned = (T) leaf.keys[index++];
+				skipExhaustedLeaves();
+				return lastReturned;
+			}
+
+			@Override
+			public void remove() {
+				if(lastReturned==null) {
+					throw new IllegalStateException();
+				}
+				if(expectedModCount!=BTreeSet.this.modCount) {
+					throw new ConcurrentModificationException();
+				}
+				BTreeSet.this.remove(lastReturned);
+				expectedModCount = BTreeSet.this.modCount;
+				// ноды могли слиться, ищем следующий элемент заново
+				Node node = BTreeSet.this.root;
+				while(node instanceof Inner) {
+					node = ((Inner) node).children[childIndex(node, lastReturned)];
+				}
+				leaf = (Leaf) node;
+				final int position = Arrays.binarySearch(leaf.keys, 0, leaf.count, lastReturned);
+				index = position>=0 ? position + 1 : -position - 1;
+				skipExhaustedLeaves();
+				lastReturned = null;
+			}
+		};
+	}
+
+
+	/** номер потомка внутренней ноды, в котором может лежать value */
+	private static int childIndex(Node node, Object value) {
+		final int position = Arrays.binarySearch(node.keys, 0, node.count, value);
+		return position>=0 ? position + 1 : -position - 1;
+	}
+
+	private Leaf firstLeaf() {
+		Node node = this.root;
+		while(node instanceof Inner) {
+			node = ((Inner) node).children[0];
+		}
+		return (Leaf) node;
+	}
+
+	/** вставляет value в поддерево; если нода переполнилась, она делится и правая половина возвращается в split */
+	private boolean add(Node node, T value, Split split) {
+		if(node instanceof Leaf) {
+			final int position = Arrays.binarySearch(node.keys, 0, node.count, value);
+			if(position>=0) {
+				return false;
+			}
+			insert(node.keys, node.count, -position - 1, value);
+			node.count++;
+			if(node.count>capacity) {
+				splitLeaf((Leaf) node, split);
+			}
+			return true;
+		}
+
+		final Inner inner = (Inner) node;
+		final int index = childIndex(inner, value);
+		if(!add(inner.children[index], value, split)) {
+			return false;
+		}
+		if(split.right!=null) {
+			insert(inner.keys, inner.count, index, split.separator);
+			insert(inner.children, inner.count + 1, index + 1, split.right);
+			inner.count++;
+			split.right = null;
+			if(inner.count>capacity) {
+				splitInner(inner, split);
+			}
+		}
+		return true;
+	}
+
+	private void splitLeaf(Leaf leaf, Split split) {
+		final Leaf right = new Leaf(capacity);
+		final int leftCount = leaf.count / 2;
+		right.count = leaf.count - leftCount;
+		System.arraycopy(leaf.keys, leftCount, right.keys, 0, right.count);
+		Arrays.fill(leaf.keys, leftCount, leaf.count, null);
+		leaf.count = leftCount;
+		right.next = leaf.next;
+		leaf.next = right;
+		split.separator = right.keys[0];
+		split.right = right;
+	}
+
+	private void splitInner(Inner inner, Split split) {
+		// средний ключ поднимается в родителя
+		final Inner right = new Inner(capacity);
+		final int middle = inner.count / 2;
+		right.count = inner.count - middle - 1;
+		System.arraycopy(inner.keys, middle + 1, right.keys, 0, right.count);
+		System.arraycopy(inner.children, middle + 1, right.children, 0, right.count + 1);
+		split.separator = inner.keys[middle];
+		split.right = right;
+		Arrays.fill(inner.keys, middle, inner.count, null);
+		Arrays.fill(inner.children, middle + 1, inner.count + 1, null);
+		inner.count = middle;
+	}
+
+	/** удаляет value из поддерева; недозаполненного потомка чинит родитель */
+	private boolean remove(Node node, Object value) {
+		if(node instanceof Leaf) {
+			final int position = Arrays.binarySearch(node.keys, 0, node.count, value);
+			if(position<0) {
+				return false;
+			}
+			delete(node.keys, node.count, position);
+			node.count--;
+			return true;
+		}
+
+		final Inner inner = (Inner) node;
+		final int index = childIndex(inner, value);
+		if(!remove(inner.children[index], value)) {
+			return false;
+		}
+		if(inner.children[index].count<minCount) {
+			fixUnderflow(inner, index);
+		}
+		return true;
+	}
+
+	/** пополняет потомка index за счёт соседа, а если у соседей нет лишних ключей - сливает с соседом */
+	private void fixUnderflow(Inner parent, int index) {
+		final Node child = parent.children[index];
+		final Node left = index>0 ? parent.children[index - 1] : null;
+		final Node right = index<parent.count ? parent.children[index + 1] : null;
+		if(left!=null && left.count>minCount) {
+			borrowFromLeft(parent, index, left, child);
+		} else if(right!=null && right.count>minCount) {
+			borrowFromRight(parent, index, child, right);
+		} else if(left!=null) {
+			merge(parent, index - 1, left, child);
+		} else {
+			merge(parent, index, child, right);
+		}
+	}
+
+	private void borrowFromLeft(Inner parent, int index, Node left, Node child) {
+		if(child instanceof Leaf) {
+			insert(child.keys, child.count, 0, left.keys[left.count - 1]);
+			parent.keys[index - 1] = child.keys[0];
+		} else {
+			insert(child.keys, child.count, 0, parent.keys[index - 1]);
+			insert(((Inner) child).children, child.count + 1, 0, ((Inner) left).children[left.count]);
+			((Inner) left).children[left.count] = null;
+			parent.keys[index - 1] = left.keys[left.count - 1];
+		}
+		left.keys[left.count - 1] = null;
+		left.count--;
+		child.count++;
+	}
+
+	private void borrowFromRight(Inner parent, int index, Node child, Node right) {
+		if(child instanceof Leaf) {
+			child.keys[child.count] = right.keys[0];
+			delete(right.keys, right.count, 0);
+			parent.keys[index] = right.keys[0];
+		} else {
+			child.keys[child.count] = parent.keys[index];
+			((Inner) child).children[child.count + 1] = ((Inner) right).children[0];
+			parent.keys[index] = right.keys[0];
+			delete(right.keys, right.count, 0);
+			delete(((Inner) right).children, right.count + 1, 0);
+		}
+		right.count--;
+		child.count++;
+	}
+
+	/** переносит всё из right в left и убирает разделитель separatorIndex из родителя */
+	private void merge(Inner parent, int separatorIndex, Node left, Node right) {
+		if(left instanceof Leaf) {
+			System.arraycopy(right.keys, 0, left.keys, left.count, right.count);
+			left.count += right.count;
+			((Leaf) left).next = ((Leaf) right).next;
+		} else {
+			left.keys[left.count] = parent.keys[separatorIndex];
+			System.arraycopy(right.keys, 0, left.keys, left.count + 1, right.count);
+			System.arraycopy(((Inner) right).children, 0, ((Inner) left).children, left.count + 1, right.count + 1);
+			left.count += right.count + 1;
+		}
+		delete(parent.keys, parent.count, separatorIndex);
+		delete(parent.children, parent.count + 1, separatorIndex + 1);
+		parent.count--;
+	}
+
+	/** вставляет value на позицию position массива из count элементов */
+	private static void insert(Object[] array, int count, int position, Object value) {
+		System.arraycopy(array, position, array, position + 1, count - position);
+		array[position] = value;
+	}
+
+	/** удаляет элемент на позиции position массива из count элементов */
+	private static void delete(Object[] array, int count, int position) {
+		System.arraycopy(array, position + 1, array, position, count - position - 1);
+		array[count - 1] = null;
+	}
+
+}
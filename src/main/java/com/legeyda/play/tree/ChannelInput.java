@@ -0,0 +1,92 @@
+package com.legeyda.play.tree;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * буферизованное чтение из канала того, что записал {@link ChannelOutput};
+ * канал должен быть блокирующим и не закрывается, конец канала посреди значения - {@link EOFException}
+ */
+public final class ChannelInput {
+
+	private final ReadableByteChannel channel;
+	/** в режиме чтения: между position и limit прочитанные из канала, но ещё не разобранные байты */
+	private final ByteBuffer buffer;
+
+	public ChannelInput(ReadableByteChannel channel) {
+		this(channel, 1 << 16);
+	}
+
+	public ChannelInput(ReadableByteChannel channel, int bufferSize) {
+		if(bufferSize<Long.BYTES) {
+			throw new IllegalArgumentException("buffer size must be at least " + Long.BYTES + ", got " + bufferSize);
+		}
+		this.channel = channel;
+		this.buffer = ByteBuffer.allocateDirect(bufferSize);
+		this.buffer.flip();
+	}
+
+	/** дочитывает из канала, пока в буфере не наберётся bytes байт */
+	private void require(final int bytes) throws IOException {
+		if(buffer.remaining()>=bytes) {
+			return;
+		}
+		buffer.compact();
+		try {
+			while(buffer.position()<bytes) {
+				if(channel.read(buffer)<0) {
+					throw new EOFException();
+				}
+			}
+		} finally {
+			buffer.flip();
+		}
+	}
+
+	public int readByte() throws IOException {
+		require(1);
+		return buffer.get();
+	}
+
+	public int readInt() throws IOException {
+		require(Integer.BYTES);
+		return buffer.getInt();
+	}
+
+	public long readLong() throws IOException {
+		require(Long.BYTES);
+		return buffer.getLong();
+	}
+
+	public long readVarLong() throws IOException {
+		long result = 0;
+		for(int shift=0; shift<64; shift+=7) {
+			require(1);
+			final byte b = buffer.get();
+			result |= (long) (b & 0x7F) << shift;
+			if(b>=0) {
+				return result;
+			}
+		}
+		throw new IOException("malformed variable-length number");
+	}
+
+	public long readSignedVarLong() throws IOException {
+		final long value = readVarLong();
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	public void readBytes(byte[] bytes, int offset, int length) throws IOException {
+		while(length>0) {
+			if(!buffer.hasRemaining()) {
+				require(1);
+			}
+			final int chunk = Math.min(length, buffer.remaining());
+			buffer.get(bytes, offset, chunk);
+			offset += chunk;
+			length -= chunk;
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package com.legeyda.play.tree;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * буферизованная запись в канал: примитивы кладутся в прямой буфер, который отдаётся каналу целиком,
+ * когда заполняется, и в {@link #flush()}; канал должен быть блокирующим и не закрывается
+ */
+public final class ChannelOutput {
+
+	/** самое длинное число в {@link #writeVarLong(long)} */
+	private static final int MAX_VAR_LONG_BYTES = 10;
+
+	private final WritableByteChannel channel;
+	private final ByteBuffer buffer;
+
+	public ChannelOutput(WritableByteChannel channel) {
+		this(channel, 1 << 16);
+	}
+
+	public ChannelOutput(WritableByteChannel channel, int bufferSize) {
+		if(bufferSize<MAX_VAR_LONG_BYTES) {
+			throw new IllegalArgumentException("buffer size must be at least " + MAX_VAR_LONG_BYTES + ", got " + bufferSize);
+		}
+		this.channel = channel;
+		this.buffer = ByteBuffer.allocateDirect(bufferSize);
+	}
+
+	private void ensure(final int bytes) throws IOException {
+		if(buffer.remaining()<bytes) {
+			drain();
+		}
+	}
+
+	private void drain() throws IOException {
+		buffer.flip();
+		while(buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	public void writeByte(int value) throws IOException {
+		ensure(1);
+		buffer.put((byte) value);
+	}
+
+	public void writeInt(int value) throws IOException {
+		ensure(Integer.BYTES);
+		buffer.putInt(value);
+	}
+
+	public void writeLong(long value) throws IOException {
+		ensure(Long.BYTES);
+		buffer.putLong(value);
+	}
+
+	/** число без знака группами по 7 бит, младшие вперёд: от 1 до 10 байт, маленькие числа короче */
+	public void writeVarLong(long value) throws IOException {
+		ensure(MAX_VAR_LONG_BYTES);
+		while((value & ~0x7FL)!=0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	/** число со знаком: зигзаг-кодирование переводит маленькие по модулю числа в маленькие без знака */
+	public void writeSignedVarLong(long value) throws IOException {
+		writeVarLong((value << 1) ^ (value >> 63));
+	}
+
+	public void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+		while(length>0) {
+			if(!buffer.hasRemaining()) {
+				drain();
+			}
+			final int chunk = Math.min(length, buffer.remaining());
+			buffer.put(bytes, offset, chunk);
+			offset += chunk;
+			length -= chunk;
+		}
+	}
+
+	/** отдаёт каналу всё записанное */
+	public void flush() throws IOException {
+		drain();
+	}
+}
@@ -0,0 +1,788 @@
+package com.legeyda.play.tree;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Потокобезопасное АВЛ-дерево с оптимистичным чтением
+ * (N. Bronson, J. Casper, H. Chafi, K. Olukotun, "A Practical Concurrent Binary Search Tree").
+ *
+ * Читатели не берут блокировок: спускаясь по дереву, они запоминают версию ноды
+ * и перепроверяют её после чтения потомка. Версия меняется, только когда поворот
+ * уменьшает поддерево ноды (ключи могли уйти из поддерева) или нода удаляется из дерева.
+ * Писатели блокируют лишь изменяемые ноды: при вставке - родителя новой ноды,
+ * при повороте - родителя, поворачиваемую ноду и её потомков.
+ *
+ * Удаление ноды с двумя потомками только снимает признак present, оставляя
+ * маршрутную ноду; она вырезается, когда у неё остаётся не больше одного потомка.
+ * Баланс восстанавливается после изменения (relaxed balance), поэтому в каждый
+ * момент высоты поддеревьев могут временно отличаться больше чем на единицу.
+ *
+ * Итераторы слабо согласованы: каждый следующий элемент ищется заново как
+ * наименьший больший предыдущего, поэтому итератор не бросает
+ * ConcurrentModificationException и видит все элементы, присутствовавшие
+ * в множестве всё время обхода.
+ */
+public class ConcurrentAvlTreeSet<T extends Comparable<T>> extends AbstractSet<T> {
+
+	private static final class Node<T> {
+		final T key;
+		volatile int height;
+		volatile long version;
+		volatile boolean present;
+		volatile Node<T> parent;
+		volatile Node<T> left;
+		volatile Node<T> right;
+
+		Node(T key, int height, boolean present, Node<T> parent) {
+			this.key = key;
+			this.height = height;
+			this.present = present;
+			this.parent = parent;
+		}
+
+		Node<T> child(int direction) {
+			return direction<0 ? left : right;
+		}
+
+		void setChild(int direction, Node<T> node) {
+			if(direction<0) {
+				left = node;
+			} else {
+				right = node;
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "Node{" + key + (present ? "" : ", routing") + '}';
+		}
+	}
+
+
+	/** нода удалена из дерева */
+	private static final long UNLINKED = 1L;
+	/** идёт поворот, уменьшающий поддерево ноды */
+	private static final long SHRINKING = 2L;
+	/** счётчик завершённых уменьшений поддерева */
+	private static final long SHRINK_COUNT_INCREMENT = 4L;
+
+	private static final int UNLINK_REQUIRED = -1;
+	private static final int REBALANCE_REQUIRED = -2;
+	private static final int NOTHING_REQUIRED = -3;
+
+	private static final int SPIN_COUNT = 100;
+
+	/** результат попытки, которую нужно повторить с уровня выше */
+	private static final Object RETRY = new Object();
+	/** в поддереве нет подходящего элемента */
+	private static final Object NONE = new Object();
+
+	private static final int LEFT = -1;
+	private static final int RIGHT = 1;
+
+	/** фиктивная нода, правый потомок которой - корень дерева; никогда не поворачивается */
+	private final Node<T> holder = new Node<>(null, 1, false, null);
+
+	private final LongAdder count = new LongAdder();
+
+
+	@Override
+	public int size() {
+		return (int) Math.max(0, Math.min(Integer.MAX_VALUE, count.sum()));
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return ceiling(null, true)==null;
+	}
+
+	@Override
+	public boolean contains(Object object) {
+		final T key = (T)object;
+		while(true) {
+			final Node<T> right = holder.right;
+			if(right==null) {
+				return false;
+			}
+			final int comparisonResult = key.compareTo(right.key);
+			if(comparisonResult==0) {
+				return right.present;
+			}
+			final long version = right.version;
+			if(isShrinkingOrUnlinked(version)) {
+				waitUntilNotChanging(right);
+			} else if(right==holder.right) {
+				final Object result = attemptGet(key, right, comparisonResult, version);
+				if(result!=RETRY) {
+					return (Boolean) result;
+				}
+			}
+		}
+	}
+
+	@Override
+	public boolean add(T value) {
+		final boolean result = !update(value, true);
+		if(result) {
+			count.increment();
+		}
+		return result;
+	}
+
+	@Override
+	public boolean remove(Object value) {
+		final boolean result = update((T)value, false);
+		if(result) {
+			count.decrement();
+		}
+		return result;
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return new Iterator<T>() {
+			T next = ceiling(null, true);
+			T lastReturned = null;
+
+			@Override
+			public boolean hasNext() {
+				return next!=null;
+			}
+
+			@Override
+			public T next() {
+				if(next==null) {
+					throw new NoSuchElementException();
+				}
+				lastReturned = next;
+				next = ceiling(next, false);
+				return lastReturned;
+			}
+
+			@Override
+			public void remove() {
+				if(lastReturned==null) {
+					throw new IllegalStateException();
+				}
+				ConcurrentAvlTreeSet.this.remove(lastReturned);
+				lastReturned = null;
+			}
+		};
+	}
+
+
+	private static boolean isShrinkingOrUnlinked(long version) {
+		return (version & (SHRINKING | UNLINKED))!=0;
+	}
+
+	private static boolean isUnlinked(long version) {
+		return version==UNLINKED;
+	}
+
+	private static long beginShrink(long version) {
+		return version | SHRINKING;
+	}
+
+	private static long endShrink(long version) {
+		return version + SHRINK_COUNT_INCREMENT;
+	}
+
+	/** ждёт окончания поворота, не захватывая блокировку ноды */
+	private static void waitUntilNotChanging(Node<?> node) {
+		final long version = node.version;
+		if((version & SHRINKING)!=0) {
+			for(int i=0; node.version==version; i++) {
+				if(i>=SPIN_COUNT) {
+					Thread.yield();
+				}
+			}
+		}
+	}
+
+	private static int height(Node<?> node) {
+		return node==null ? 0 : node.height;
+	}
+
+
+	/** поиск key в поддереве node, версия которой была nodeVersion */
+	private Object attemptGet(T key, Node<T> node, int direction, long nodeVersion) {
+		while(true) {
+			final Node<T> child = node.child(direction);
+			if(child==null) {
+				if(node.version!=nodeVersion) {
+					return RETRY;
+				}
+				return Boolean.FALSE;
+			}
+			final int childComparisonResult = key.compareTo(child.key);
+			if(childComparisonResult==0) {
+				return child.present;
+			}
+			final long childVersion = child.version;
+			if(isShrinkingOrUnlinked(childVersion)) {
+				waitUntilNotChanging(child);
+				if(node.version!=nodeVersion) {
+					return RETRY;
+				}
+			} else if(child!=node.child(direction)) {
+				if(node.version!=nodeVersion) {
+					return RETRY;
+				}
+			} else {
+				if(node.version!=nodeVersion) {
+					return RETRY;
+				}
+				final Object result = attemptGet(key, child, childComparisonResult, childVersion);
+				if(result!=RETRY) {
+					return result;
+				}
+			}
+		}
+	}
+
+	/**
+	 * наименьший присутствующий элемент, больший key (или равный, если inclusive);
+	 * key==null означает поиск наименьшего элемента
+	 */
+	private T ceiling(T key, boolean inclusive) {
+		while(true) {
+			// версия holder никогда не меняется
+			final Object result = descendCeiling(key, inclusive, holder, 0L, RIGHT);
+			if(result!=RETRY) {
+				return result==NONE ? null : (T) result;
+			}
+		}
+	}
+
+	private Object attemptCeiling(T key, boolean inclusive, Node<T> node, long nodeVersion) {
+		final int comparisonResult = key==null ? -1 : key.compareTo(node.key);
+		if(comparisonResult<0 || (comparisonResult==0 && inclusive)) {
+			final Object result = descendCeiling(key, inclusive, node, nodeVersion, LEFT);
+			if(result!=NONE) {
+				return result;
+			}
+			if(node.present) {
+				return node.version!=nodeVersion ? RETRY : node.key;
+			}
+		}
+		return descendCeiling(key, inclusive, node, nodeVersion, RIGHT);
+	}
+
+	private Object descendCeiling(T key, boolean inclusive, Node<T> node, long nodeVersion, int direction) {
+		while(true) {
+			final Node<T> child = node.child(direction);
+			if(node.version!=nodeVersion) {
+				return RETRY;
+			}
+			if(child==null) {
+				return NONE;
+			}
+			final long childVersion = child.version;
+			if(isShrinkingOrUnlinked(childVersion)) {
+				waitUntilNotChanging(child);
+			} else if(child==node.child(direction)) {
+				if(node.version!=nodeVersion) {
+					return RETRY;
+				}
+				final Object result = attemptCeiling(key, inclusive, child, childVersion);
+				if(result!=RETRY) {
+					return result;
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * делает элемент присутствующим (present=true) или отсутствующим
+	 * @return присутствовал ли элемент до изменения
+	 */
+	private boolean update(T key, boolean present) {
+		while(true) {
+			final Node<T> right = holder.right;
+			if(right==null) {
+				if(!present) {
+					return false;
+				}
+				if(attemptInsertIntoEmpty(key)) {
+					return false;
+				}
+			} else {
+				final long version = right.version;
+				if(isShrinkingOrUnlinked(version)) {
+					waitUntilNotChanging(right);
+				} else if(right==holder.right) {
+					final Object result = attemptUpdate(key, present, holder, right, version);
+					if(result!=RETRY) {
+						return (Boolean) result;
+					}
+				}
+			}
+		}
+	}
+
+	private boolean attemptInsertIntoEmpty(T key) {
+		synchronized(holder) {
+			if(holder.right==null) {
+				holder.right = new Node<>(key, 1, true, holder);
+				holder.height = 2;
+				return true;
+			}
+			return false;
+		}
+	}
+
+	private Object attemptUpdate(T key, boolean present, Node<T> parent, Node<T> node, long nodeVersion) {
+		final int comparisonResult = key.compareTo(node.key);
+		if(comparisonResult==0) {
+			return attemptNodeUpdate(present, parent, node);
+		}
+		while(true) {
+			final Node<T> child = node.child(comparisonResult);
+			if(node.version!=nodeVersion) {
+				return RETRY;
+			}
+			if(child==null) {
+				if(!present) {
+					return Boolean.FALSE;
+				}
+				final boolean inserted;
+				Node<T> damaged = null;
+				synchronized(node) {
+					// перепроверяем под блокировкой
+					if(node.version!=nodeVersion) {
+						return RETRY;
+					}
+					inserted = node.child(comparisonResult)==null;
+					if(inserted) {
+						node.setChild(comparisonResult, new Node<>(key, 1, true, node));
+						damaged = fixHeight(node);
+					}
+				}
+				if(inserted) {
+					fixHeightAndRebalance(damaged);
+					return Boolean.FALSE;
+				}
+			} else {
+				final long childVersion = child.version;
+				if(isShrinkingOrUnlinked(childVersion)) {
+					waitUntilNotChanging(child);
+				} else if(child==node.child(comparisonResult)) {
+					if(node.version!=nodeVersion) {
+						return RETRY;
+					}
+					final Object result = attemptUpdate(key, present, node, child, childVersion);
+					if(result!=RETRY) {
+						return result;
+					}
+				}
+			}
+		}
+	}
+
+	private Object attemptNodeUpdate(boolean present, Node<T> parent, Node<T> node) {
+		// present читается один раз: между двумя чтениями его мог переключить другой поток
+		final boolean current = node.present;
+		if(current==present) {
+			return current;
+		}
+		if(!present && (node.left==null || node.right==null)) {
+			// ноду можно вырезать, для этого нужна блокировка родителя
+			final Node<T> damaged;
+			synchronized(parent) {
+				if(isUnlinked(parent.version) || node.parent!=parent) {
+					return RETRY;
+				}
+				synchronized(node) {
+					if(!node.present) {
+						return Boolean.FALSE;
+					}
+					if(!attemptUnlink(parent, node)) {
+						return RETRY;
+					}
+				}
+				damaged = fixHeight(parent);
+			}
+			fixHeightAndRebalance(damaged);
+			return Boolean.TRUE;
+		}
+		synchronized(node) {
+			if(isUnlinked(node.version)) {
+				return RETRY;
+			}
+			final boolean previous = node.present;
+			if(!present && previous && (node.left==null || node.right==null)) {
+				// пока ждали блокировку, у ноды пропал потомок - теперь её надо вырезать
+				return RETRY;
+			}
+			node.present = present;
+			return previous;
+		}
+	}
+
+	/** вырезает ноду, у которой не больше одного потомка; parent и node заблокированы */
+	private boolean attemptUnlink(Node<T> parent, Node<T> node) {
+		final Node<T> parentLeft = parent.left;
+		final Node<T> parentRight = parent.right;
+		if(parentLeft!=node && parentRight!=node) {
+			return false;
+		}
+		final Node<T> left = node.left;
+		final Node<T> right = node.right;
+		if(left!=null && right!=null) {
+			return false;
+		}
+		final Node<T> splice = left!=null ? left : right;
+		if(parentLeft==node) {
+			parent.left = splice;
+		} else {
+			parent.right = splice;
+		}
+		if(splice!=null) {
+			splice.parent = parent;
+		}
+		node.version = UNLINKED;
+		node.present = false;
+		return true;
+	}
+
+
+	/** что нужно сделать с нодой: вырезать, повернуть, ничего, либо новая высота */
+	private int nodeCondition(Node<T> node) {
+		final Node<T> left = node.left;
+		final Node<T> right = node.right;
+		if((left==null || right==null) && !node.present) {
+			return UNLINK_REQUIRED;
+		}
+		final int height = node.height;
+		final int leftHeight = height(left);
+		final int rightHeight = height(right);
+		// чтение не атомарно, но кто изменил ноду, тот её и исправит
+		final int newHeight = 1 + Math.max(leftHeight, rightHeight);
+		final int balance = leftHeight - rightHeight;
+		if(balance<-1 || balance>1) {
+			return REBALANCE_REQUIRED;
+		}
+		return height!=newHeight ? newHeight : NOTHING_REQUIRED;
+	}
+
+	/**
+	 * исправляет высоту заблокированной ноды
+	 * @return нижняя повреждённая нода, которую должен исправить текущий поток, либо null
+	 */
+	private Node<T> fixHeight(Node<T> node) {
+		final int condition = nodeCondition(node);
+		switch(condition) {
+			case REBALANCE_REQUIRED:
+			case UNLINK_REQUIRED:
+				return node;
+			case NOTHING_REQUIRED:
+				return null;
+			default:
+				node.height = condition;
+				return node.parent;
+		}
+	}
+
+	private void fixHeightAndRebalance(Node<T> node) {
+		while(node!=null && node.parent!=null) {
+			final int condition = nodeCondition(node);
+			if(condition==NOTHING_REQUIRED || isUnlinked(node.version)) {
+				return;
+			}
+			if(condition!=UNLINK_REQUIRED && condition!=REBALANCE_REQUIRED) {
+				synchronized(node) {
+					node = fixHeight(node);
+				}
+			} else {
+				final Node<T> parent = node.parent;
+				synchronized(parent) {
+					if(!isUnlinked(parent.version) && node.parent==parent) {
+						synchronized(node) {
+							node = rebalance(parent, node);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/** parent и node заблокированы */
+	private Node<T> rebalance(Node<T> parent, Node<T> node) {
+		final Node<T> left = node.left;
+		final Node<T> right = node.right;
+		if((left==null || right==null) && !node.present) {
+			return attemptUnlink(parent, node) ? fixHeight(parent) : node;
+		}
+		final int height = node.height;
+		final int leftHeight = height(left);
+		final int rightHeight = height(right);
+		final int newHeight = 1 + Math.max(leftHeight, rightHeight);
+		final int balance = leftHeight - rightHeight;
+		if(balance>1) {
+			return rebalanceToRight(parent, node, left, rightHeight);
+		} else if(balance<-1) {
+			return rebalanceToLeft(parent, node, right, leftHeight);
+		} else if(newHeight!=height) {
+			node.height = newHeight;
+			return fixHeight(parent);
+		} else {
+			return null;
+		}
+	}
+
+	private Node<T> rebalanceToRight(Node<T> parent, Node<T> node, Node<T> left, int rightHeight) {
+		synchronized(left) {
+			final int leftHeight = left.height;
+			if(leftHeight - rightHeight<=1) {
+				return node;
+			}
+			final Node<T> leftRight = left.right;
+			final int leftLeftHeight = height(left.left);
+			final int leftRightHeight = height(leftRight);
+			if(leftLeftHeight>=leftRightHeight) {
+				return rotateRight(parent, node, left, rightHeight, leftLeftHeight, leftRight, leftRightHeight);
+			}
+			synchronized(leftRight) {
+				final int actualLeftRightHeight = leftRight.height;
+				if(leftLeftHeight>=actualLeftRightHeight) {
+					return rotateRight(parent, node, left, rightHeight, leftLeftHeight, leftRight, actualLeftRightHeight);
+				}
+				final int leftRightLeftHeight = height(leftRight.left);
+				final int balance = leftLeftHeight - leftRightLeftHeight;
+				if(balance>=-1 && balance<=1 && !((leftLeftHeight==0 || leftRightLeftHeight==0) && !left.present)) {
+					return rotateRightOverLeft(parent, node, left, rightHeight, leftLeftHeight, leftRight, leftRightLeftHeight);
+				}
+			}
+			// двойной поворот оставил бы left несбалансированной, сначала поворачиваем её отдельно
+			return rebalanceToLeft(node, left, leftRight, leftLeftHeight);
+		}
+	}
+
+	private Node<T> rebalanceToLeft(Node<T> parent, Node<T> node, Node<T> right, int leftHeight) {
+		synchronized(right) {
+			final int rightHeight = right.height;
+			if(leftHeight - rightHeight>=-1) {
+				return node;
+			}
+			final Node<T> rightLeft = right.left;
+			final int rightLeftHeight = height(rightLeft);
+			final int rightRightHeight = height(right.right);
+			if(rightRightHeight>=rightLeftHeight) {
+				return rotateLeft(parent, node, leftHeight, right, rightLeft, rightLeftHeight, rightRightHeight);
+			}
+			synchronized(rightLeft) {
+				final int actualRightLeftHeight = rightLeft.height;
+				if(rightRightHeight>=actualRightLeftHeight) {
+					return rotateLeft(parent, node, leftHeight, right, rightLeft, actualRightLeftHeight, rightRightHeight);
+				}
+				final int rightLeftRightHeight = height(rightLeft.right);
+				final int balance = rightRightHeight - rightLeftRightHeight;
+				if(balance>=-1 && balance<=1 && !((rightRightHeight==0 || rightLeftRightHeight==0) && !right.present)) {
+					return rotateLeftOverRight(parent, node, leftHeight, right, rightLeft, rightRightHeight, rightLeftRightHeight);
+				}
+			}
+			return rebalanceToRight(node, right, rightLeft, rightRightHeight);
+		}
+	}
+
+	private Node<T> rotateRight(Node<T> parent, Node<T> node, Node<T> left, int rightHeight,
+	                            int leftLeftHeight, Node<T> leftRight, int leftRightHeight) {
+		final long nodeVersion = node.version;
+		final Node<T> parentLeft = parent.left;
+
+		node.version = beginShrink(nodeVersion);
+
+		node.left = leftRight;
+		if(leftRight!=null) {
+			leftRight.parent = node;
+		}
+		left.right = node;
+		node.parent = left;
+		if(parentLeft==node) {
+			parent.left = left;
+		} else {
+			parent.right = left;
+		}
+		left.parent = parent;
+
+		final int newNodeHeight = 1 + Math.max(leftRightHeight, rightHeight);
+		node.height = newNodeHeight;
+		left.height = 1 + Math.max(leftLeftHeight, newNodeHeight);
+
+		node.version = endShrink(nodeVersion);
+
+		// повреждены parent, left (теперь потомок parent) и node (потомок left);
+		// исправляем сколько можем, пока держим блокировки
+		final int nodeBalance = leftRightHeight - rightHeight;
+		if(nodeBalance<-1 || nodeBalance>1) {
+			return node;
+		}
+		if((leftRight==null || rightHeight==0) && !node.present) {
+			return node;
+		}
+		final int leftBalance = leftLeftHeight - newNodeHeight;
+		if(leftBalance<-1 || leftBalance>1) {
+			return left;
+		}
+		if(leftLeftHeight==0 && !left.present) {
+			return left;
+		}
+		return fixHeight(parent);
+	}
+
+	private Node<T> rotateLeft(Node<T> parent, Node<T> node, int leftHeight,
+	                           Node<T> right, Node<T> rightLeft, int rightLeftHeight, int rightRightHeight) {
+		final long nodeVersion = node.version;
+		final Node<T> parentLeft = parent.left;
+
+		node.version = beginShrink(nodeVersion);
+
+		node.right = rightLeft;
+		if(rightLeft!=null) {
+			rightLeft.parent = node;
+		}
+		right.left = node;
+		node.parent = right;
+		if(parentLeft==node) {
+			parent.left = right;
+		} else {
+			parent.right = right;
+		}
+		right.parent = parent;
+
+		final int newNodeHeight = 1 + Math.max(leftHeight, rightLeftHeight);
+		node.height = newNodeHeight;
+		right.height = 1 + Math.max(newNodeHeight, rightRightHeight);
+
+		node.version = endShrink(nodeVersion);
+
+		final int nodeBalance = rightLeftHeight - leftHeight;
+		if(nodeBalance<-1 || nodeBalance>1) {
+			return node;
+		}
+		if((rightLeft==null || leftHeight==0) && !node.present) {
+			return node;
+		}
+		final int rightBalance = rightRightHeight - newNodeHeight;
+		if(rightBalance<-1 || rightBalance>1) {
+			return right;
+		}
+		if(rightRightHeight==0 && !right.present) {
+			return right;
+		}
+		return fixHeight(parent);
+	}
+
+	private Node<T> rotateRightOverLeft(Node<T> parent, Node<T> node, Node<T> left, int rightHeight,
+	                                    int leftLeftHeight, Node<T> leftRight, int leftRightLeftHeight) {
+		final long nodeVersion = node.version;
+		final long leftVersion = left.version;
+		final Node<T> parentLeft = parent.left;
+		final Node<T> leftRightLeft = leftRight.left;
+		final Node<T> leftRightRight = leftRight.right;
+		final int leftRightRightHeight = height(leftRightRight);
+
+		node.version = beginShrink(nodeVersion);
+		left.version = beginShrink(leftVersion);
+
+		node.left = leftRightRight;
+		if(leftRightRight!=null) {
+			leftRightRight.parent = node;
+		}
+		left.right = leftRightLeft;
+		if(leftRightLeft!=null) {
+			leftRightLeft.parent = left;
+		}
+		leftRight.left = left;
+		left.parent = leftRight;
+		leftRight.right = node;
+		node.parent = leftRight;
+		if(parentLeft==node) {
+			parent.left = leftRight;
+		} else {
+			parent.right = leftRight;
+		}
+		leftRight.parent = parent;
+
+		final int newNodeHeight = 1 + Math.max(leftRightRightHeight, rightHeight);
+		node.height = newNodeHeight;
+		final int newLeftHeight = 1 + Math.max(leftLeftHeight, leftRightLeftHeight);
+		left.height = newLeftHeight;
+		leftRight.height = 1 + Math.max(newLeftHeight, newNodeHeight);
+
+		node.version = endShrink(nodeVersion);
+		left.version = endShrink(leftVersion);
+
+		final int nodeBalance = leftRightRightHeight - rightHeight;
+		if(nodeBalance<-1 || nodeBalance>1) {
+			return node;
+		}
+		if((leftRightRight==null || rightHeight==0) && !node.present) {
+			return node;
+		}
+		final int leftRightBalance = newLeftHeight - newNodeHeight;
+		if(leftRightBalance<-1 || leftRightBalance>1) {
+			return leftRight;
+		}
+		return fixHeight(parent);
+	}
+
+	private Node<T> rotateLeftOverRight(Node<T> parent, Node<T> node, int leftHeight, Node<T> right,
+	                                    Node<T> rightLeft, int rightRightHeight, int rightLeftRightHeight) {
+		final long nodeVersion = node.version;
+		final long rightVersion = right.version;
+		final Node<T> parentLeft = parent.left;
+		final Node<T> rightLeftLeft = rightLeft.left;
+		final Node<T> rightLeftRight = rightLeft.right;
+		final int rightLeftLeftHeight = height(rightLeftLeft);
+
+		node.version = beginShrink(nodeVersion);
+		right.version = beginShrink(rightVersion);
+
+		node.right = rightLeftLeft;
+		if(rightLeftLeft!=null) {
+			rightLeftLeft.parent = node;
+		}
+		right.left = rightLeftRight;
+		if(rightLeftRight!=null) {
+			rightLeftRight.parent = right;
+		}
+		rightLeft.right = right;
+		right.parent = rightLeft;
+		rightLeft.left = node;
+		node.parent = rightLeft;
+		if(parentLeft==node) {
+			parent.left = rightLeft;
+		} else {
+			parent.right = rightLeft;
+		}
+		rightLeft.parent = parent;
+
+		final int newNodeHeight = 1 + Math.max(leftHeight, rightLeftLeftHeight);
+		node.height = newNodeHeight;
+		final int newRightHeight = 1 + Math.max(rightLeftRightHeight, rightRightHeight);
+		right.height = newRightHeight;
+		rightLeft.height = 1 + Math.max(newNodeHeight, newRightHeight);
+
+		node.version = endShrink(nodeVersion);
+		right.version = endShrink(rightVersion);
+
+		final int nodeBalance = rightLeftLeftHeight - leftHeight;
+		if(nodeBalance<-1 || nodeBalance>1) {
+			return node;
+		}
+		if((rightLeftLeft==null || leftHeight==0) && !node.present) {
+			return node;
+		}
+		final int rightLeftBalance = newRightHeight - newNodeHeight;
+		if(rightLeftBalance<-1 || rightLeftBalance>1) {
+			return rightLeft;
+		}
+		return fixHeight(parent);
+	}
+
+}
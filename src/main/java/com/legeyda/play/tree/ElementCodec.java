@@ -0,0 +1,100 @@
+package com.legeyda.play.tree;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * кодирует элементы множества в поток переменной длины; элементы пишутся и читаются в порядке множества,
+ * поэтому кодек получает предыдущий элемент (null для первого) и может хранить только разность с ним
+ */
+public interface ElementCodec<T> {
+
+	void write(T value, T previous, ChannelOutput output) throws IOException;
+
+	T read(T previous, ChannelInput input) throws IOException;
+
+
+	ElementCodec<Integer> INTEGER = new ElementCodec<Integer>() {
+		@Override
+		public void write(Integer value, Integer previous, ChannelOutput output) throws IOException {
+			output.writeInt(value);
+		}
+
+		@Override
+		public Integer read(Integer previous, ChannelInput input) throws IOException {
+			return input.readInt();
+		}
+	};
+
+	ElementCodec<Long> LONG = new ElementCodec<Long>() {
+		@Override
+		public void write(Long value, Long previous, ChannelOutput output) throws IOException {
+			output.writeLong(value);
+		}
+
+		@Override
+		public Long read(Long previous, ChannelInput input) throws IOException {
+			return input.readLong();
+		}
+	};
+
+	/** разность с предыдущим элементом в {@link ChannelOutput#writeSignedVarLong(long)}: плотные ключи занимают 1-2 байта */
+	ElementCodec<Integer> INTEGER_DELTA = new ElementCodec<Integer>() {
+		@Override
+		public void write(Integer value, Integer previous, ChannelOutput output) throws IOException {
+			output.writeSignedVarLong((long) value - (previous!=null ? previous : 0));
+		}
+
+		@Override
+		public Integer read(Integer previous, ChannelInput input) throws IOException {
+			return (int) ((previous!=null ? previous : 0) + input.readSignedVarLong());
+		}
+	};
+
+	/** как {@link #INTEGER_DELTA}; переполнение разности безопасно, при чтении оно переполняется обратно */
+	ElementCodec<Long> LONG_DELTA = new ElementCodec<Long>() {
+		@Override
+		public void write(Long value, Long previous, ChannelOutput output) throws IOException {
+			output.writeSignedVarLong(value - (previous!=null ? previous : 0L));
+		}
+
+		@Override
+		public Long read(Long previous, ChannelInput input) throws IOException {
+			return (previous!=null ? previous : 0L) + input.readSignedVarLong();
+		}
+	};
+
+	/** длина и байты UTF-8 */
+	ElementCodec<String> STRING = new ElementCodec<String>() {
+		@Override
+		public void write(String value, String previous, ChannelOutput output) throws IOException {
+			BYTES.write(value.getBytes(StandardCharsets.UTF_8), null, output);
+		}
+
+		@Override
+		public String read(String previous, ChannelInput input) throws IOException {
+			return new String(BYTES.read(null, input), StandardCharsets.UTF_8);
+		}
+	};
+
+	/** длина и байты */
+	ElementCodec<byte[]> BYTES = new ElementCodec<byte[]>() {
+		@Override
+		public void write(byte[] value, byte[] previous, ChannelOutput output) throws IOException {
+			output.writeVarLong(value.length);
+			output.writeBytes(value, 0, value.length);
+		}
+
+		@Override
+		public byte[] read(byte[] previous, ChannelInput input) throws IOException {
+			final long length = input.readVarLong();
+			if(length<0 || length>Integer.MAX_VALUE) {
+				throw new IOException("bad array length " + length);
+			}
+			final byte[] result = new byte[(int) length];
+			input.readBytes(result, 0, result.length);
+			return result;
+		}
+	};
+
+}
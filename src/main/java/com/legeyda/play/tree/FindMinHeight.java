@@ -1,37 +1,25 @@
 package com.legeyda.play.tree;
 
-import java.util.LinkedList;
-import java.util.Queue;
+import com.legeyda.play.tree.walk.LevelWalker;
 
 public class FindMinHeight<T> {
 
-	private class NodeWithDepth {
-		int depth;
-		TreeNode<T> node;
-		public NodeWithDepth(int depth, TreeNode<T> node) {
-			this.depth = depth;
-			this.node = node;
-		}
-	}
-
+	/** the height is the number of the first level, counting from 1, that has a leaf */
 	public int findMinHeight(TreeNode<T> root) {
 		if(null==root) {
 			return 1;
 		}
-		final Queue<NodeWithDepth> queue = new LinkedList<>();
-		for(NodeWithDepth node = new NodeWithDepth(1, root); node!=null; node=queue.poll()) {
-			if(node.node.left!=null || node.node.right!=null) {
-				if (null != node.node.left) {
-					queue.offer(new NodeWithDepth(node.depth + 1, node.node.left));
+		final int[] result = {-1};
+		new LevelWalker<T>().walkLevels(root, (depth, nodes) -> {
+			for(TreeNode<T> node : nodes) {
+				if(node.left==null && node.right==null) {
+					result[0] = depth + 1;
+					return false;
 				}
-				if (null != node.node.right) {
-					queue.offer(new NodeWithDepth(node.depth + 1, node.node.right));
-				}
-			} else {
-				return node.depth;
 			}
-		}
-		return -1;
+			return true;
+		});
+		return result[0];
 	}
 
 }
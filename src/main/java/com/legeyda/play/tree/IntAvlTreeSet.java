@@ -0,0 +1,321 @@
+package com.legeyda.play.tree;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * АВЛ-дерево примитивных int без упаковки:
+ * ноды хранятся в параллельных массивах и ссылаются друг на друга индексами
+ */
+public class IntAvlTreeSet {
+
+	/** индекс отсутствующей ноды; нулевой слот не используется, его высота всегда 0 */
+	private static final int NIL = 0;
+
+	/** см. AvlNode.MAX_HEIGHT */
+	private static final int MAX_HEIGHT = 48;
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private int[] keys;
+	private int[] left;
+	private int[] right;
+	private byte[] height;
+
+	private int root = NIL;
+	private int size = 0;
+
+	/** первый ни разу не занятый слот */
+	private int top = 1;
+
+	/** список освободившихся слотов, связанный через left */
+	private int free = NIL;
+
+	private int modCount = 0;
+
+	/** путь от корня до изменяемой ноды, переиспользуется всеми операциями add/remove */
+	private final int[] path = new int[MAX_HEIGHT];
+
+
+	public IntAvlTreeSet() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public IntAvlTreeSet(int initialCapacity) {
+		if(initialCapacity<0) {
+			throw new IllegalArgumentException("negative capacity " + initialCapacity);
+		}
+		final int capacity = initialCapacity + 1;
+		this.keys = new int[capacity];
+		this.left = new int[capacity];
+		this.right = new int[capacity];
+		this.height = new byte[capacity];
+	}
+
+
+	public int size() {
+		return this.size;
+	}
+
+	public boolean isEmpty() {
+		return this.size==0;
+	}
+
+	public void clear() {
+		this.root = NIL;
+		this.size = 0;
+		this.top = 1;
+		this.free = NIL;
+		this.modCount++;
+	}
+
+	public boolean contains(int value) {
+		int node = this.root;
+		while(node!=NIL) {
+			final int key = keys[node];
+			if(value<key) {
+				node = left[node];
+			} else if(value>key) {
+				node = right[node];
+			} else {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public boolean add(int value) {
+		if(this.root==NIL) {
+			this.root = allocate(value);
+			this.modCount++;
+			return true;
+		}
+		int depth = 0;
+		int node = this.root;
+		while(true) {
+			final int key = keys[node];
+			if(value==key) {
+				return false;
+			}
+			path[depth++] = node;
+			if(value<key) {
+				if(left[node]==NIL) {
+					final int child = allocate(value);
+					left[node] = child;
+					break;
+				}
+				node = left[node];
+			} else {
+				if(right[node]==NIL) {
+					final int child = allocate(value);
+					right[node] = child;
+					break;
+				}
+				node = right[node];
+			}
+		}
+		rebalancePath(depth);
+		this.modCount++;
+		return true;
+	}
+
+	public boolean remove(int value) {
+		int depth = 0;
+		int node = this.root;
+		while(node!=NIL) {
+			final int key = keys[node];
+			if(value==key) {
+				break;
+			}
+			path[depth++] = node;
+			node = value<key ? left[node] : right[node];
+		}
+		if(node==NIL) {
+			return false;
+		}
+
+		final int parent = depth==0 ? NIL : path[depth-1];
+		if(left[node]==NIL) {
+			replaceChild(parent, node, right[node]);
+		} else if(right[node]==NIL) {
+			replaceChild(parent, node, left[node]);
+		} else {
+			// на место удаляемой ноды ставим минимальную ноду правого поддерева
+			final int nodeDepth = depth++;
+			int minParent = node;
+			int min = right[node];
+			while(left[min]!=NIL) {
+				path[depth++] = min;
+				minParent = min;
+				min = left[min];
+			}
+			if(minParent==node) {
+				right[node] = right[min];
+			} else {
+				left[minParent] = right[min];
+			}
+			left[min] = left[node];
+			right[min] = right[node];
+			path[nodeDepth] = min;
+			replaceChild(parent, node, min);
+		}
+		release(node);
+		rebalancePath(depth);
+		this.modCount++;
+		return true;
+	}
+
+	public PrimitiveIterator.OfInt iterator() {
+		return new PrimitiveIterator.OfInt() {
+			final int[] stack = new int[MAX_HEIGHT];
+			int depth = 0;
+			int expectedModCount = IntAvlTreeSet.this.modCount;
+
+			{
+				pushLeft(IntAvlTreeSet.this.root);
+			}
+
+			private void pushLeft(int node) {
+				for(; node!=NIL; node = left[node]) {
+					stack[depth++] = node;
+				}
+			}
+
+			@Override
+			public boolean hasNext() {
+				return depth>0;
+			}
+
+			@Override
+			public int nextInt() {
+				if(depth==0) {
+					throw new NoSuchElementException();
+				}
+				if(expectedModCount!=IntAvlTreeSet.this.modCount) {
+					throw new ConcurrentModificationException();
+				}
+				final int node = stack[--depth];
+				pushLeft(right[node]);
+				return keys[node];
+			}
+		};
+	}
+
+	/** @return элементы в порядке возрастания */
+	public int[] toArray() {
+		final int[] result = new int[this.size];
+		int i = 0;
+		for(PrimitiveIterator.OfInt iterator = iterator(); iterator.hasNext(); ) {
+			result[i++] = iterator.nextInt();
+		}
+		return result;
+	}
+
+
+	private int allocate(int value) {
+		final int node;
+		if(this.free!=NIL) {
+			node = this.free;
+			this.free = left[node];
+		} else {
+			if(this.top==keys.length) {
+				grow();
+			}
+			node = this.top++;
+		}
+		keys[node] = value;
+		left[node] = NIL;
+		right[node] = NIL;
+		height[node] = 1;
+		this.size++;
+		return node;
+	}
+
+	private void release(int node) {
+		left[node] = this.free;
+		right[node] = NIL;
+		this.free = node;
+		this.size--;
+	}
+
+	private void grow() {
+		final int oldCapacity = keys.length;
+		if(oldCapacity==Integer.MAX_VALUE) {
+			throw new IllegalStateException("set is full");
+		}
+		final int newCapacity = (int) Math.min(Integer.MAX_VALUE, Math.max(oldCapacity + 1L, oldCapacity + (oldCapacity >> 1)));
+		this.keys = Arrays.copyOf(keys, newCapacity);
+		this.left = Arrays.copyOf(left, newCapacity);
+		this.right = Arrays.copyOf(right, newCapacity);
+		this.height = Arrays.copyOf(height, newCapacity);
+	}
+
+	/** балансирует ноды из path[0..depth) снизу вверх, подвешивая результат к родителю */
+	private void rebalancePath(int depth) {
+		while(depth>0) {
+			final int node = path[--depth];
+			final int balanced = rebalance(node);
+			if(balanced!=node) {
+				replaceChild(depth==0 ? NIL : path[depth-1], node, balanced);
+			}
+		}
+	}
+
+	/** заменяет потомка parent (или корень, если parent==NIL) */
+	private void replaceChild(int parent, int child, int replacement) {
+		if(parent==NIL) {
+			this.root = replacement;
+		} else if(left[parent]==child) {
+			left[parent] = replacement;
+		} else {
+			right[parent] = replacement;
+		}
+	}
+
+	private int rebalance(int node) {
+		calculateHeight(node);
+
+		if(balanceFactor(node)==2) {
+			if(balanceFactor(right[node]) < 0) {
+				right[node] = rotateRight(right[node]);
+			}
+			return rotateLeft(node);
+		}
+		if(balanceFactor(node)==-2) {
+			if(balanceFactor(left[node]) > 0) {
+				left[node] = rotateLeft(left[node]);
+			}
+			return rotateRight(node);
+		}
+		return node;
+	}
+
+	private void calculateHeight(int node) {
+		height[node] = (byte) (1 + Math.max(height[left[node]], height[right[node]]));
+	}
+
+	private int balanceFactor(int node) {
+		return height[right[node]] - height[left[node]];
+	}
+
+	private int rotateRight(int p) {
+		final int q = left[p];
+		left[p] = right[q];
+		right[q] = p;
+		calculateHeight(p);
+		calculateHeight(q);
+		return q;
+	}
+
+	private int rotateLeft(int q) {
+		final int p = right[q];
+		right[q] = left[p];
+		left[p] = q;
+		calculateHeight(q);
+		calculateHeight(p);
+		return p;
+	}
+
+}
@@ -0,0 +1,50 @@
+package com.legeyda.play.tree;
+
+import java.nio.ByteBuffer;
+
+/** кодирует элементы в двоичное представление фиксированной ширины */
+public interface KeyCodec<T> {
+
+	/** @return количество байт, занимаемых одним элементом */
+	int width();
+
+	void write(T value, ByteBuffer buffer, int offset);
+
+	T read(ByteBuffer buffer, int offset);
+
+
+	KeyCodec<Integer> INTEGER = new KeyCodec<Integer>() {
+		@Override
+		public int width() {
+			return Integer.BYTES;
+		}
+
+		@Override
+		public void write(Integer value, ByteBuffer buffer, int offset) {
+			buffer.putInt(offset, value);
+		}
+
+		@Override
+		public Integer read(ByteBuffer buffer, int offset) {
+			return buffer.getInt(offset);
+		}
+	};
+
+	KeyCodec<Long> LONG = new KeyCodec<Long>() {
+		@Override
+		public int width() {
+			return Long.BYTES;
+		}
+
+		@Override
+		public void write(Long value, ByteBuffer buffer, int offset) {
+			buffer.putLong(offset, value);
+		}
+
+		@Override
+		public Long read(ByteBuffer buffer, int offset) {
+			return buffer.getLong(offset);
+		}
+	};
+
+}
@@ -0,0 +1,361 @@
+package com.legeyda.play.tree;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * АВЛ-дерево, ноды которого хранятся вне кучи в отображённом в память файле.
+ *
+ * Файл состоит из заголовка и сегментов одинакового размера, в каждом сегменте
+ * целое число записей вида [left:int][right:int][height:byte][key:codec.width()].
+ * Ноды ссылаются друг на друга номерами записей, нулевая запись - отсутствующая нода.
+ * Заголовок хранит корень и размер, поэтому открытие существующего файла
+ * не требует чтения записей, а сегменты отображаются по мере обращения к ним.
+ */
+public class MappedAvlTreeSet<T extends Comparable<T>> extends AbstractSet<T> implements Closeable {
+
+	private static final int MAGIC = 0x41564c31;
+	private static final int HEADER_SIZE = 64;
+	private static final int MAGIC_OFFSET = 0;
+	private static final int KEY_WIDTH_OFFSET = 4;
+	private static final int SEGMENT_RECORDS_OFFSET = 8;
+	private static final int ROOT_OFFSET = 12;
+	private static final int SIZE_OFFSET = 16;
+	private static final int TOP_OFFSET = 20;
+
+	private static final int LEFT = 0;
+	private static final int RIGHT = 4;
+	private static final int HEIGHT = 8;
+	private static final int KEY = 9;
+
+	private static final int NIL = 0;
+
+	/** см. AvlNode.MAX_HEIGHT */
+	private static final int MAX_HEIGHT = 48;
+
+	private static final int DEFAULT_SEGMENT_SIZE = 1 << 26;
+
+	private final FileChannel channel;
+	private final KeyCodec<T> codec;
+	private final int recordSize;
+	private final int segmentRecords;
+	private final MappedByteBuffer header;
+	private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+	private int root;
+	private int size;
+	/** первая свободная запись */
+	private int top;
+	private int modCount = 0;
+
+	/** путь от корня до добавляемой ноды, переиспользуется всеми вызовами add */
+	private final int[] path = new int[MAX_HEIGHT];
+
+
+	public MappedAvlTreeSet(Path file, KeyCodec<T> codec) throws IOException {
+		this(file, codec, DEFAULT_SEGMENT_SIZE);
+	}
+
+	/** @param segmentSize размер сегмента в байтах, используется только при создании файла */
+	public MappedAvlTreeSet(Path file, KeyCodec<T> codec, int segmentSize) throws IOException {
+		this.codec = codec;
+		this.recordSize = KEY + codec.width();
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			final boolean created = channel.size()==0;
+			this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+			if(created) {
+				if(segmentSize<recordSize) {
+					throw new IllegalArgumentException("segment size " + segmentSize + " is less than record size " + recordSize);
+				}
+				this.segmentRecords = segmentSize / recordSize;
+				header.putInt(MAGIC_OFFSET, MAGIC);
+				header.putInt(KEY_WIDTH_OFFSET, codec.width());
+				header.putInt(SEGMENT_RECORDS_OFFSET, segmentRecords);
+				this.root = NIL;
+				this.size = 0;
+				this.top = 1;
+				writeHeader();
+			} else {
+				if(header.getInt(MAGIC_OFFSET)!=MAGIC) {
+					throw new IOException(file + " is not an avl tree file");
+				}
+				if(header.getInt(KEY_WIDTH_OFFSET)!=codec.width()) {
+					throw new IOException("key width mismatch: file has " + header.getInt(KEY_WIDTH_OFFSET) + ", codec has " + codec.width());
+				}
+				this.segmentRecords = header.getInt(SEGMENT_RECORDS_OFFSET);
+				this.root = header.getInt(ROOT_OFFSET);
+				this.size = header.getInt(SIZE_OFFSET);
+				this.top = header.getInt(TOP_OFFSET);
+				validateHeader(file);
+			}
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public boolean contains(Object object) {
+		final T value = (T)object;
+		int node = this.root;
+		while(node!=NIL) {
+			final int comparisonResult = value.compareTo(key(node));
+			if(comparisonResult<0) {
+				node = left(node);
+			} else if(comparisonResult>0) {
+				node = right(node);
+			} else {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean add(T value) {
+		if(this.root==NIL) {
+			this.root = allocate(value);
+			writeHeader();
+			this.modCount++;
+			return true;
+		}
+		int depth = 0;
+		int node = this.root;
+		while(true) {
+			final int comparisonResult = value.compareTo(key(node));
+			if(comparisonResult==0) {
+				return false;
+			}
+			path[depth++] = node;
+			if(comparisonResult<0) {
+				if(left(node)==NIL) {
+					setLeft(node, allocate(value));
+					break;
+				}
+				node = left(node);
+			} else {
+				if(right(node)==NIL) {
+					setRight(node, allocate(value));
+					break;
+				}
+				node = right(node);
+			}
+		}
+		while(depth>0) {
+			final int child = path[--depth];
+			final int balanced = rebalance(child);
+			if(balanced!=child) {
+				if(depth==0) {
+					this.root = balanced;
+				} else if(left(path[depth-1])==child) {
+					setLeft(path[depth-1], balanced);
+				} else {
+					setRight(path[depth-1], balanced);
+				}
+			}
+		}
+		writeHeader();
+		this.modCount++;
+		return true;
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return new Iterator<T>() {
+			final int[] stack = new int[MAX_HEIGHT];
+			int depth = 0;
+			final int expectedModCount = MappedAvlTreeSet.this.modCount;
+
+			{
+				pushLeft(MappedAvlTreeSet.this.root);
+			}
+
+			private void pushLeft(int node) {
+				for(; node!=NIL; node = left(node)) {
+					stack[depth++] = node;
+				}
+			}
+
+			@Override
+			public boolean hasNext() {
+				return depth>0;
+			}
+
+			@Override
+			public T next() {
+				if(depth==0) {
+					throw new NoSuchElementException();
+				}
+				if(expectedModCount!=MappedAvlTreeSet.this.modCount) {
+					throw new ConcurrentModificationException();
+				}
+				final int node = stack[--depth];
+				pushLeft(right(node));
+				return key(node);
+			}
+		};
+	}
+
+	/** сбрасывает изменения на диск */
+	public void flush() {
+		header.force();
+		for(MappedByteBuffer segment : segments) {
+			segment.force();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		flush();
+		channel.close();
+	}
+
+
+	/** заголовок существующего файла: битые поля дали бы деление на ноль или чтение мусора вместо записей */
+	private void validateHeader(Path file) throws IOException {
+		if(segmentRecords<=0 || (long) segmentRecords * recordSize>Integer.MAX_VALUE) {
+			throw new IOException(file + " is corrupted: bad segment record count " + segmentRecords);
+		}
+		if(top<1) {
+			throw new IOException(file + " is corrupted: bad record count " + top);
+		}
+		if(root<NIL || root>=top) {
+			throw new IOException(file + " is corrupted: root " + root + " is out of " + top + " records");
+		}
+		if(size<0 || size>=top || (size==0)!=(root==NIL)) {
+			throw new IOException(file + " is corrupted: size " + size + " does not match " + top + " records and root " + root);
+		}
+		final long segmentSize = (long) segmentRecords * recordSize;
+		final long required = HEADER_SIZE + ((top - 1) / segmentRecords + 1) * segmentSize;
+		if(top>1 && channel.size()<required) {
+			throw new IOException(file + " is truncated: " + channel.size() + " bytes, " + required + " expected");
+		}
+	}
+
+	private void writeHeader() {
+		header.putInt(ROOT_OFFSET, root);
+		header.putInt(SIZE_OFFSET, size);
+		header.putInt(TOP_OFFSET, top);
+	}
+
+	private int allocate(T value) {
+		if(this.top==Integer.MAX_VALUE) {
+			throw new IllegalStateException("set is full");
+		}
+		final int node = this.top++;
+		final MappedByteBuffer segment = segment(node);
+		final int offset = offset(node);
+		segment.putInt(offset + LEFT, NIL);
+		segment.putInt(offset + RIGHT, NIL);
+		segment.put(offset + HEIGHT, (byte) 1);
+		codec.write(value, segment, offset + KEY);
+		this.size++;
+		return node;
+	}
+
+	/** сегмент, в котором лежит запись; недостающие сегменты отображаются и дописываются в файл */
+	private MappedByteBuffer segment(int node) {
+		final int index = node / segmentRecords;
+		while(segments.size()<=index) {
+			final long segmentSize = (long) segmentRecords * recordSize;
+			try {
+				segments.add(channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + segments.size() * segmentSize, segmentSize));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return segments.get(index);
+	}
+
+	private int offset(int node) {
+		return (node % segmentRecords) * recordSize;
+	}
+
+	private T key(int node) {
+		return codec.read(segment(node), offset(node) + KEY);
+	}
+
+	private int left(int node) {
+		return segment(node).getInt(offset(node) + LEFT);
+	}
+
+	private void setLeft(int node, int child) {
+		segment(node).putInt(offset(node) + LEFT, child);
+	}
+
+	private int right(int node) {
+		return segment(node).getInt(offset(node) + RIGHT);
+	}
+
+	private void setRight(int node, int child) {
+		segment(node).putInt(offset(node) + RIGHT, child);
+	}
+
+	private int height(int node) {
+		return node!=NIL ? segment(node).get(offset(node) + HEIGHT) : 0;
+	}
+
+
+	private int rebalance(int node) {
+		calculateHeight(node);
+
+		if(balanceFactor(node)==2) {
+			if(balanceFactor(right(node)) < 0) {
+				setRight(node, rotateRight(right(node)));
+			}
+			return rotateLeft(node);
+		}
+		if(balanceFactor(node)==-2) {
+			if(balanceFactor(left(node)) > 0) {
+				setLeft(node, rotateLeft(left(node)));
+			}
+			return rotateRight(node);
+		}
+		return node;
+	}
+
+	private void calculateHeight(int node) {
+		segment(node).put(offset(node) + HEIGHT, (byte) (1 + Math.max(height(left(node)), height(right(node)))));
+	}
+
+	private int balanceFactor(int node) {
+		return node==NIL ? 0 : height(right(node)) - height(left(node));
+	}
+
+	private int rotateRight(int p) {
+		final int q = left(p);
+		setLeft(p, right(q));
+		setRight(q, p);
+		calculateHeight(p);
+		calculateHeight(q);
+		return q;
+	}
+
+	private int rotateLeft(int q) {
+		final int p = right(q);
+		setRight(q, left(p));
+		setLeft(p, q);
+		calculateHeight(q);
+		calculateHeight(p);
+		return p;
+	}
+
+}
@@ -0,0 +1,42 @@
+package com.legeyda.play.tree;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * счётчики операций дерева; пишет в них только поток, изменяющий дерево, а читать можно из любого,
+ * например из JMX, поэтому счётчики - LongAdder, запись в которые не требует CAS в одном потоке
+ */
+final class OperationCounters {
+
+	final LongAdder adds = new LongAdder();
+	final LongAdder duplicates = new LongAdder();
+	final LongAdder removes = new LongAdder();
+	final LongAdder singleRotations = new LongAdder();
+	final LongAdder doubleRotations = new LongAdder();
+	final LongAdder descents = new LongAdder();
+	final LongAdder descentDepth = new LongAdder();
+	final LongAccumulator maxDescentDepth = new LongAccumulator(Math::max, 0);
+	final LongAdder iterators = new LongAdder();
+
+	/** спуск от корня, прошедший depth нод */
+	void descent(final int depth) {
+		descents.increment();
+		descentDepth.add(depth);
+		maxDescentDepth.accumulate(depth);
+	}
+
+	/** @param rotations результат {@link AvlNode#rotations(AvlNode)} */
+	void rotations(final int rotations) {
+		if(rotations==1) {
+			singleRotations.increment();
+		} else if(rotations==2) {
+			doubleRotations.increment();
+		}
+	}
+
+	TreeStatistics snapshot(final int height, final int size) {
+		return new TreeStatistics(adds.sum(), duplicates.sum(), removes.sum(), singleRotations.sum(), doubleRotations.sum(),
+				descents.sum(), descentDepth.sum(), maxDescentDepth.get(), iterators.sum(), height, size);
+	}
+}
@@ -0,0 +1,242 @@
+package com.legeyda.play.tree;
+
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * АВЛ-дерево с неизменяемыми нодами: add и remove копируют только путь от корня
+ * до изменённой ноды (O(log(n)) нод), остальные поддеревья разделяются между версиями.
+ *
+ * Снимок {@link #snapshot()} стоит O(1) и дальше не меняется при изменениях исходного множества
+ * (и наоборот). Изменять множество должен один поток, читать снимки можно из любых потоков:
+ * корень публикуется через volatile, а ноды неизменяемы.
+ */
+public class PersistentAvlTreeSet<T extends Comparable<T>> extends AbstractSet<T> {
+
+	private static final class Node<T> {
+		final T value;
+		final Node<T> left;
+		final Node<T> right;
+		final int height;
+		final int size;
+
+		Node(T value, Node<T> left, Node<T> right) {
+			this.value = value;
+			this.left = left;
+			this.right = right;
+			this.height = 1 + Math.max(height(left), height(right));
+			this.size = 1 + size(left) + size(right);
+		}
+
+		@Override
+		public String toString() {
+			return "Node{" + value + '}';
+		}
+	}
+
+
+	private volatile Node<T> root;
+
+	public PersistentAvlTreeSet() {
+		this(null);
+	}
+
+	private PersistentAvlTreeSet(Node<T> root) {
+		this.root = root;
+	}
+
+	/** @return независимая копия множества, разделяющая с ним все ноды */
+	public PersistentAvlTreeSet<T> snapshot() {
+		return new PersistentAvlTreeSet<>(this.root);
+	}
+
+	@Override
+	public int size() {
+		return size(this.root);
+	}
+
+	@Override
+	public boolean contains(Object object) {
+		final T value = (T)object;
+		Node<T> node = this.root;
+		while(node!=null) {
+			final int comparisonResult = value.compareTo(node.value);
+			if(comparisonResult<0) {
+				node = node.left;
+			} else if(comparisonResult>0) {
+				node = node.right;
+			} else {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean add(T value) {
+		final Node<T> oldRoot = this.root;
+		final Node<T> newRoot = add(oldRoot, value);
+		this.root = newRoot;
+		return newRoot!=oldRoot;
+	}
+
+	@Override
+	public boolean remove(Object value) {
+		final Node<T> oldRoot = this.root;
+		final Node<T> newRoot = remove(oldRoot, (T)value);
+		this.root = newRoot;
+		return newRoot!=oldRoot;
+	}
+
+	@Override
+	public void clear() {
+		this.root = null;
+	}
+
+	/** итератор обходит версию дерева, бывшую на момент его создания */
+	@Override
+	public Iterator<T> iterator() {
+		return new Iterator<T>() {
+			final Deque<Node<T>> stack = new ArrayDeque<>();
+			T lastReturned = null;
+
+			{
+				pushLeft(PersistentAvlTreeSet.this.root);
+			}
+
+			private void pushLeft(Node<T> node) {
+				for(; node!=null; node = node.left) {
+					stack.push(node);
+				}
+			}
+
+			@Override
+			public boolean hasNext() {
+				return !stack.isEmpty();
+			}
+
+			@Override
+			public T next() {
+				if(stack.isEmpty()) {
+					throw new NoSuchElementException();
+				}
+				final Node<T> node = stack.pop();
+				pushLeft(node.right);
+				lastReturned = node.value;
+				return lastReturned;
+			}
+
+			@Override
+			public void remove() {
+				if(lastReturned==null) {
+					throw new IllegalStateException();
+				}
+				PersistentAvlTreeSet.this.remove(lastReturned);
+				lastReturned = null;
+			}
+		};
+	}
+
+
+	/** @return новый корень поддерева, либо тот же node, если элемент уже есть */
+	private static <T extends Comparable<T>> Node<T> add(Node<T> node, T value) {
+		if(node==null) {
+			return new Node<>(value, null, null);
+		}
+		final int comparisonResult = value.compareTo(node.value);
+		if(comparisonResult<0) {
+			final Node<T> left = add(node.left, value);
+			return left==node.left ? node : rebalance(node.value, left, node.right);
+		} else if(comparisonResult>0) {
+			final Node<T> right = add(node.right, value);
+			return right==node.right ? node : rebalance(node.value, node.left, right);
+		}
+		return node;
+	}
+
+	/** @return новый корень поддерева, либо тот же node, если элемента нет */
+	private static <T extends Comparable<T>> Node<T> remove(Node<T> node, T value) {
+		if(node==null) {
+			return null;
+		}
+		final int comparisonResult = value.compareTo(node.value);
+		if(comparisonResult<0) {
+			final Node<T> left = remove(node.left, value);
+			return left==node.left ? node : rebalance(node.value, left, node.right);
+		} else if(comparisonResult>0) {
+			final Node<T> right = remove(node.right, value);
+			return right==node.right ? node : rebalance(node.value, node.left, right);
+		}
+		if(node.left==null) {
+			return node.right;
+		}
+		if(node.right==null) {
+			return node.left;
+		}
+		// на место удаляемого элемента ставим минимальный элемент правого поддерева
+		Node<T> min = node.right;
+		while(min.left!=null) {
+			min = min.left;
+		}
+		return rebalance(min.value, node.left, removeMin(node.right));
+	}
+
+	private static <T> Node<T> removeMin(Node<T> node) {
+		if(node.left==null) {
+			return node.right;
+		}
+		return rebalance(node.value, removeMin(node.left), node.right);
+	}
+
+	/** та же балансировка, что и в AvlTreeSet, но вместо изменения нод создаются новые */
+	private static <T> Node<T> rebalance(T value, Node<T> left, Node<T> right) {
+		final int balanceFactor = height(right) - height(left);
+		if(balanceFactor==2) {
+			if(balanceFactor(right) < 0) {
+				right = rotateRight(right);
+			}
+			return rotateLeft(value, left, right);
+		}
+		if(balanceFactor==-2) {
+			if(balanceFactor(left) > 0) {
+				left = rotateLeft(left);
+			}
+			return rotateRight(value, left, right);
+		}
+		return new Node<>(value, left, right);
+	}
+
+	private static int height(Node<?> node) {
+		return node!=null ? node.height : 0;
+	}
+
+	private static int size(Node<?> node) {
+		return node!=null ? node.size : 0;
+	}
+
+	private static int balanceFactor(Node<?> node) {
+		return node==null ? 0 : height(node.right) - height(node.left);
+	}
+
+	private static <T> Node<T> rotateRight(Node<T> p) {
+		return rotateRight(p.value, p.left, p.right);
+	}
+
+	/** поворот направо ноды (value, q, right), где q - левый потомок */
+	private static <T> Node<T> rotateRight(T value, Node<T> q, Node<T> right) {
+		return new Node<>(q.value, q.left, new Node<>(value, q.right, right));
+	}
+
+	private static <T> Node<T> rotateLeft(Node<T> q) {
+		return rotateLeft(q.value, q.left, q.right);
+	}
+
+	/** поворот налево ноды (value, left, p), где p - правый потомок */
+	private static <T> Node<T> rotateLeft(T value, Node<T> left, Node<T> p) {
+		return new Node<>(p.value, new Node<>(value, left, p.left), p.right);
+	}
+
+}
@@ -0,0 +1,121 @@
+package com.legeyda.play.tree;
+
+import java.util.Arrays;
+
+/**
+ * Характеристики дерева, которые {@link TreeMetricsAnalyzer} собирает за один обход.
+ * Глубина считается в нодах: у корня 1, так что minDepth - то же, что находит FindMinHeight,
+ * а maxDepth - высота дерева. Диаметр - число рёбер самого длинного пути между двумя нодами.
+ */
+public final class TreeMetrics {
+
+	public static final TreeMetrics EMPTY = new TreeMetrics(0, 0, 0, 0, new long[0], 0, true);
+
+	private final long size;
+	private final long leaves;
+	private final int minDepth;
+	private final int maxDepth;
+	private final long[] widths;
+	private final int diameter;
+	private final boolean balanced;
+
+	TreeMetrics(long size, long leaves, int minDepth, int maxDepth, long[] widths, int diameter, boolean balanced) {
+		this.size = size;
+		this.leaves = leaves;
+		this.minDepth = minDepth;
+		this.maxDepth = maxDepth;
+		this.widths = widths;
+		this.diameter = diameter;
+		this.balanced = balanced;
+	}
+
+	/** метрики дерева из корня с поддеревьями left и right, для пустого поддерева - EMPTY */
+	static TreeMetrics join(TreeMetrics left, TreeMetrics right) {
+		final long[] widths = new long[1 + Math.max(left.widths.length, right.widths.length)];
+		widths[0] = 1;
+		for(int i=0; i<left.widths.length; i++) {
+			widths[i + 1] += left.widths[i];
+		}
+		for(int i=0; i<right.widths.length; i++) {
+			widths[i + 1] += right.widths[i];
+		}
+		final int minDepth;
+		if(left.size==0) {
+			minDepth = 1 + right.minDepth;
+		} else if(right.size==0) {
+			minDepth = 1 + left.minDepth;
+		} else {
+			minDepth = 1 + Math.min(left.minDepth, right.minDepth);
+		}
+		return new TreeMetrics(
+				1 + left.size + right.size,
+				left.size==0 && right.size==0 ? 1 : left.leaves + right.leaves,
+				minDepth,
+				1 + Math.max(left.maxDepth, right.maxDepth),
+				widths,
+				Math.max(left.maxDepth + right.maxDepth, Math.max(left.diameter, right.diameter)),
+				left.balanced && right.balanced && Math.abs(left.maxDepth - right.maxDepth)<=1);
+	}
+
+	public long size() {
+		return size;
+	}
+
+	public long leaves() {
+		return leaves;
+	}
+
+	public int minDepth() {
+		return minDepth;
+	}
+
+	public int maxDepth() {
+		return maxDepth;
+	}
+
+	/** @return количество нод на глубине depth, начиная с 1 */
+	public long width(int depth) {
+		return depth>=1 && depth<=widths.length ? widths[depth - 1] : 0;
+	}
+
+	public long maxWidth() {
+		long result = 0;
+		for(long width : widths) {
+			result = Math.max(result, width);
+		}
+		return result;
+	}
+
+	public int diameter() {
+		return diameter;
+	}
+
+	/** @return true, если высоты поддеревьев каждой ноды отличаются не больше чем на 1, как в АВЛ-дереве */
+	public boolean isBalanced() {
+		return balanced;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if(this==o) {
+			return true;
+		}
+		if(!(o instanceof TreeMetrics)) {
+			return false;
+		}
+		final TreeMetrics that = (TreeMetrics) o;
+		return size==that.size && leaves==that.leaves && minDepth==that.minDepth && maxDepth==that.maxDepth
+				&& diameter==that.diameter && balanced==that.balanced && Arrays.equals(widths, that.widths);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * Long.hashCode(size) + Arrays.hashCode(widths);
+	}
+
+	@Override
+	public String toString() {
+		return "TreeMetrics{size=" + size + ", leaves=" + leaves + ", minDepth=" + minDepth + ", maxDepth=" + maxDepth
+				+ ", widths=" + Arrays.toString(widths) + ", diameter=" + diameter + ", balanced=" + balanced + '}';
+	}
+}
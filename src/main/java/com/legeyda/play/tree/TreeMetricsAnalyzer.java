@@ -0,0 +1,174 @@
+package com.legeyda.play.tree;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Собирает все {@link TreeMetrics} за один обход в обратном порядке без рекурсии:
+ * высоты поддеревьев нужны для диаметра и проверки баланса, а глубина ноды - это глубина стека.
+ * Стек хранится в параллельных массивах, поэтому на ноду ничего не выделяется.
+ *
+ * Обход можно вести по частям через {@link #advance(long)}, а {@link #current()} между шагами
+ * возвращает метрики обработанной части: размер, листья, ширины и глубины уже пройденных нод,
+ * диаметр и баланс уже законченных поддеревьев. Дерево не должно меняться, пока идёт обход.
+ */
+public class TreeMetricsAnalyzer<T> {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private static final byte ENTERED = 0;
+	private static final byte LEFT_PUSHED = 1;
+	private static final byte RIGHT_PUSHED = 2;
+
+	/** стек от корня до текущей ноды */
+	private TreeNode<T>[] nodes = TreeNode.newArray(INITIAL_CAPACITY);
+	private byte[] states = new byte[INITIAL_CAPACITY];
+	private int[] leftHeights = new int[INITIAL_CAPACITY];
+	private int[] rightHeights = new int[INITIAL_CAPACITY];
+	private int top = -1;
+
+	private long size = 0;
+	private long leaves = 0;
+	private int minDepth = Integer.MAX_VALUE;
+	private int maxDepth = 0;
+	private long[] widths = new long[INITIAL_CAPACITY];
+	private int diameter = 0;
+	private boolean balanced = true;
+
+
+	public TreeMetricsAnalyzer(TreeNode<T> root) {
+		if(root!=null) {
+			push(root);
+		}
+	}
+
+	public static <T> TreeMetrics analyze(TreeNode<T> root) {
+		return new TreeMetricsAnalyzer<>(root).run();
+	}
+
+	/**
+	 * Параллельный анализ: поддеревья ближе splitDepth к корню анализируются отдельными задачами,
+	 * а их метрики объединяются через {@link TreeMetrics#join}.
+	 */
+	public static <T> TreeMetrics analyze(TreeNode<T> root, ForkJoinPool pool, int splitDepth) {
+		return root==null ? TreeMetrics.EMPTY : pool.invoke(new AnalyzeTask<>(root, splitDepth));
+	}
+
+	public TreeMetrics run() {
+		advance(Long.MAX_VALUE);
+		return current();
+	}
+
+	public boolean isDone() {
+		return top<0;
+	}
+
+	/**
+	 * Продолжает обход, пока не закончит ещё maxNodes нод.
+	 * @return true, если обход закончен
+	 */
+	public boolean advance(long maxNodes) {
+		long finished = 0;
+		while(top>=0 && finished<maxNodes) {
+			final TreeNode<T> node = nodes[top];
+			switch(states[top]) {
+				case ENTERED:
+					states[top] = LEFT_PUSHED;
+					if(node.left!=null) {
+						push(node.left);
+					}
+					break;
+				case LEFT_PUSHED:
+					states[top] = RIGHT_PUSHED;
+					if(node.right!=null) {
+						push(node.right);
+					}
+					break;
+				default:
+					finish(node);
+					finished++;
+			}
+		}
+		return top<0;
+	}
+
+	/** @return метрики обработанной части дерева */
+	public TreeMetrics current() {
+		return new TreeMetrics(size, leaves, size==0 ? 0 : minDepth, maxDepth,
+				Arrays.copyOf(widths, maxDepth), diameter, balanced);
+	}
+
+
+	private void push(TreeNode<T> node) {
+		top++;
+		if(top==nodes.length) {
+			final int capacity = 2 * nodes.length;
+			nodes = Arrays.copyOf(nodes, capacity);
+			states = Arrays.copyOf(states, capacity);
+			leftHeights = Arrays.copyOf(leftHeights, capacity);
+			rightHeights = Arrays.copyOf(rightHeights, capacity);
+		}
+		nodes[top] = node;
+		states[top] = ENTERED;
+		leftHeights[top] = 0;
+		rightHeights[top] = 0;
+	}
+
+	/** оба поддерева ноды на вершине стека пройдены */
+	private void finish(TreeNode<T> node) {
+		final int depth = top + 1;
+		final int leftHeight = leftHeights[top];
+		final int rightHeight = rightHeights[top];
+		diameter = Math.max(diameter, leftHeight + rightHeight);
+		if(Math.abs(leftHeight - rightHeight)>1) {
+			balanced = false;
+		}
+		if(depth>widths.length) {
+			widths = Arrays.copyOf(widths, Math.max(depth, 2 * widths.length));
+		}
+		widths[depth - 1]++;
+		size++;
+		if(node.left==null && node.right==null) {
+			leaves++;
+			minDepth = Math.min(minDepth, depth);
+			maxDepth = Math.max(maxDepth, depth);
+		}
+
+		nodes[top] = null;
+		top--;
+		if(top>=0) {
+			final int height = 1 + Math.max(leftHeight, rightHeight);
+			if(states[top]==LEFT_PUSHED) {
+				leftHeights[top] = height;
+			} else {
+				rightHeights[top] = height;
+			}
+		}
+	}
+
+	private static final class AnalyzeTask<T> extends RecursiveTask<TreeMetrics> {
+		private static final long serialVersionUID = 1L;
+
+		private final TreeNode<T> node;
+		private final int splitDepth;
+
+		AnalyzeTask(TreeNode<T> node, int splitDepth) {
+			this.node = node;
+			this.splitDepth = splitDepth;
+		}
+
+		@Override
+		protected TreeMetrics compute() {
+			if(splitDepth<=0) {
+				return analyze(node);
+			}
+			final AnalyzeTask<T> left = node.left!=null ? new AnalyzeTask<>(node.left, splitDepth - 1) : null;
+			if(left!=null) {
+				left.fork();
+			}
+			final TreeMetrics right = node.right!=null ? new AnalyzeTask<>(node.right, splitDepth - 1).compute() : TreeMetrics.EMPTY;
+			return TreeMetrics.join(left!=null ? left.join() : TreeMetrics.EMPTY, right);
+		}
+	}
+}
@@ -11,6 +11,12 @@ public class TreeNode<T> {
 		this.right = right;
 	}
 
+	/** массив нод: создать массив параметризованного типа можно только непроверяемым приведением */
+	@SuppressWarnings("unchecked")
+	public static <T> TreeNode<T>[] newArray(int length) {
+		return (TreeNode<T>[]) new TreeNode<?>[length];
+	}
+
 	@Override
 	public String toString() {
 		return "TreeNode{" + (value!=null ? value.toString() + '}' : "null}");
@@ -0,0 +1,228 @@
+package com.legeyda.play.tree;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Печать дерева в виде текста: строка с надписями нод каждого уровня, под ней строка с линиями к потомкам.
+ *
+ * Каждому поддереву отводится блок ширины width: блок левого поддерева, промежуток (1 символ, либо 2 - для
+ * надписи чётной длины) и блок правого поддерева; блок поддерева не уже половины надписи без промежутка, так что
+ * надпись не вылезает за свой блок, у отсутствующего поддерева блок ровно такой.
+ * Надпись ноды стоит примерно над промежутком, линия под ней тянется от надписи левого потомка до надписи правого.
+ *
+ * Ноды собираются обходом в ширину в массивы, поэтому ширины считаются за один проход в обратном порядке
+ * (потомки идут после родителей), а позиции - за один проход в прямом. Строки рисуются в переиспользуемый
+ * буфер char[] и целиком отдаются в Appendable, пробелы в конце строк не печатаются.
+ *
+ * Печать не потоковая: ширина блока зависит от всего поддерева, поэтому все печатаемые ноды с надписями
+ * собираются в массивы до вывода первой строки, и память растёт линейно с их числом. Для больших деревьев
+ * её ограничивает только maxLevels; массивы не сжимаются и переиспользуются следующими вызовами render.
+ */
+public class TreeRenderer<N> {
+
+	private static final byte LEFT = 1;
+	private static final byte RIGHT = 2;
+
+	private final Function<N, N> left;
+	private final Function<N, N> right;
+	private final Function<N, String> label;
+
+	/** ноды, их надписи и флаги наличия потомков в порядке обхода в ширину */
+	private Object[] nodes = new Object[64];
+	private String[] labels = new String[64];
+	private byte[] children = new byte[64];
+	/** ширина блока поддерева, начало блока и начало надписи */
+	private int[] widths = new int[64];
+	private int[] starts = new int[64];
+	private int[] labelStarts = new int[64];
+	/** levelEnds[d] - номер первой ноды после уровня d */
+	private int[] levelEnds = new int[64];
+
+	private char[] line = new char[0];
+	private CharBuffer lineView = CharBuffer.wrap(line);
+
+	public TreeRenderer(Function<N, N> left, Function<N, N> right, Function<N, String> label) {
+		this.left = left;
+		this.right = right;
+		this.label = label;
+	}
+
+	/** печать деревьев из {@link TreeNode} */
+	public static <T> TreeRenderer<TreeNode<T>> forTreeNodes() {
+		return new TreeRenderer<>(node -> node.left, node -> node.right, node -> String.valueOf(node.value));
+	}
+
+	/**
+	 * печатает не больше maxLevels верхних уровней дерева, ноды последнего уровня печатаются как листья;
+	 * память - O(число напечатанных нод), см. описание класса
+	 */
+	public void render(N root, int maxLevels, Appendable out) throws IOException {
+		if(root==null || maxLevels<=0) {
+			return;
+		}
+		try {
+			final int levels = collect(root, maxLevels);
+			final int count = levelEnds[levels - 1];
+			measure(count);
+			place(count);
+			draw(levels, out);
+		} finally {
+			Arrays.fill(nodes, null);
+			Arrays.fill(labels, null);
+		}
+	}
+
+	/** собирает ноды обходом в ширину; @return количество уровней */
+	private int collect(N root, int maxLevels) {
+		nodes[0] = root;
+		int tail = 1;
+		int levels = 0;
+		for(int head=0; head<tail; levels++) {
+			final int levelEnd = tail;
+			if(levels==levelEnds.length) {
+				levelEnds = Arrays.copyOf(levelEnds, 2 * levelEnds.length);
+			}
+			levelEnds[levels] = levelEnd;
+			final boolean last = levels + 1>=maxLevels;
+			for(; head<levelEnd; head++) {
+				final N node = (N) nodes[head];
+				byte flags = 0;
+				if(!last) {
+					final N leftChild = left.apply(node);
+					final N rightChild = right.apply(node);
+					if(leftChild!=null) {
+						ensureCapacity(tail + 1);
+						nodes[tail++] = leftChild;
+						flags |= LEFT;
+					}
+					if(rightChild!=null) {
+						ensureCapacity(tail + 1);
+						nodes[tail++] = rightChild;
+						flags |= RIGHT;
+					}
+				}
+				children[head] = flags;
+			}
+		}
+		return levels;
+	}
+
+	/** ширины блоков снизу вверх: потомки последней ноды - последние из ещё не использованных */
+	private void measure(int count) {
+		for(int i=0; i<count; i++) {
+			labels[i] = label.apply((N) nodes[i]);
+			if(labels[i].isEmpty()) {
+				throw new IllegalArgumentException("empty label of node " + nodes[i]);
+			}
+		}
+		int child = count - 1;
+		for(int i=count-1; i>=0; i--) {
+			final int labelWidth = labels[i].length();
+			final int interval = interval(labelWidth);
+			final int half = (labelWidth - interval) / 2;
+			final int rightWidth = (children[i] & RIGHT)!=0 ? Math.max(half, widths[child--]) : half;
+			final int leftWidth = (children[i] & LEFT)!=0 ? Math.max(half, widths[child--]) : half;
+			widths[i] = leftWidth + interval + rightWidth;
+		}
+	}
+
+	/** позиции блоков и надписей сверху вниз */
+	private void place(int count) {
+		starts[0] = 0;
+		int child = 1;
+		for(int i=0; i<count; i++) {
+			final int labelWidth = labels[i].length();
+			final int interval = interval(labelWidth);
+			final int half = (labelWidth - interval) / 2;
+			final int leftWidth = (children[i] & LEFT)!=0 ? Math.max(half, widths[child]) : half;
+			labelStarts[i] = starts[i] + leftWidth - (labelWidth - 1) / 2;
+			if((children[i] & LEFT)!=0) {
+				starts[child++] = starts[i];
+			}
+			if((children[i] & RIGHT)!=0) {
+				starts[child++] = starts[i] + leftWidth + interval;
+			}
+		}
+	}
+
+	private void draw(int levels, Appendable out) throws IOException {
+		if(line.length<widths[0]) {
+			line = new char[widths[0]];
+			lineView = CharBuffer.wrap(line);
+		}
+		Arrays.fill(line, ' ');
+		int child = 1;
+		for(int level=0; level<levels; level++) {
+			final int from = level==0 ? 0 : levelEnds[level - 1];
+			final int to = levelEnds[level];
+			if(level>0) {
+				out.append('\n');
+			}
+			for(int i=from; i<to; i++) {
+				labels[i].getChars(0, labels[i].length(), line, labelStarts[i]);
+			}
+			flush(out);
+			if(level + 1==levels) {
+				break;
+			}
+			out.append('\n');
+			for(int i=from; i<to; i++) {
+				if(children[i]==0) {
+					continue;
+				}
+				final int lineStart;
+				if((children[i] & LEFT)!=0) {
+					lineStart = labelStarts[child++];
+				} else {
+					lineStart = starts[i];
+				}
+				final int lineEnd;
+				if((children[i] & RIGHT)!=0) {
+					lineEnd = labelStarts[child] + labels[child].length();
+					child++;
+				} else {
+					lineEnd = starts[i] + widths[i];
+				}
+				Arrays.fill(line, lineStart, lineEnd, '-');
+			}
+			flush(out);
+		}
+	}
+
+	/** печатает строку без пробелов в конце и очищает буфер */
+	private void flush(Appendable out) throws IOException {
+		int length = widths[0];
+		while(length>0 && line[length - 1]==' ') {
+			length--;
+		}
+		if(out instanceof StringBuilder) {
+			((StringBuilder) out).append(line, 0, length);
+		} else if(out instanceof Writer) {
+			((Writer) out).write(line, 0, length);
+		} else {
+			out.append(lineView, 0, length);
+		}
+		Arrays.fill(line, 0, length, ' ');
+	}
+
+	/** для симметрии, если в надписи чётное число символов, между поддеревьями 2 пробела, иначе 1 */
+	private static int interval(int labelWidth) {
+		return labelWidth % 2==0 ? 2 : 1;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if(nodes.length<capacity) {
+			final int grown = Math.max(capacity, 2 * nodes.length);
+			nodes = Arrays.copyOf(nodes, grown);
+			labels = Arrays.copyOf(labels, grown);
+			children = Arrays.copyOf(children, grown);
+			widths = Arrays.copyOf(widths, grown);
+			starts = Arrays.copyOf(starts, grown);
+			labelStarts = Arrays.copyOf(labelStarts, grown);
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package com.legeyda.play.tree;
+
+/** неизменяемый снимок {@link TreeStatisticsMXBean} на момент вызова {@link AvlTreeSet#statistics()} */
+public final class TreeStatistics implements TreeStatisticsMXBean {
+
+	private final long adds;
+	private final long duplicates;
+	private final long removes;
+	private final long singleRotations;
+	private final long doubleRotations;
+	private final long descents;
+	private final long descentDepth;
+	private final long maxDescentDepth;
+	private final long iterators;
+	private final int height;
+	private final int size;
+
+	TreeStatistics(long adds, long duplicates, long removes, long singleRotations, long doubleRotations,
+			long descents, long descentDepth, long maxDescentDepth, long iterators, int height, int size) {
+		this.adds = adds;
+		this.duplicates = duplicates;
+		this.removes = removes;
+		this.singleRotations = singleRotations;
+		this.doubleRotations = doubleRotations;
+		this.descents = descents;
+		this.descentDepth = descentDepth;
+		this.maxDescentDepth = maxDescentDepth;
+		this.iterators = iterators;
+		this.height = height;
+		this.size = size;
+	}
+
+	@Override
+	public long getAdds() {
+		return adds;
+	}
+
+	@Override
+	public long getDuplicates() {
+		return duplicates;
+	}
+
+	@Override
+	public long getRemoves() {
+		return removes;
+	}
+
+	@Override
+	public long getSingleRotations() {
+		return singleRotations;
+	}
+
+	@Override
+	public long getDoubleRotations() {
+		return doubleRotations;
+	}
+
+	@Override
+	public long getDescents() {
+		return descents;
+	}
+
+	@Override
+	public double getAverageDescentDepth() {
+		return descents==0 ? 0 : (double) descentDepth / descents;
+	}
+
+	@Override
+	public long getMaxDescentDepth() {
+		return maxDescentDepth;
+	}
+
+	@Override
+	public long getIterators() {
+		return iterators;
+	}
+
+	@Override
+	public int getHeight() {
+		return height;
+	}
+
+	@Override
+	public int getSize() {
+		return size;
+	}
+
+	@Override
+	public String toString() {
+		return "TreeStatistics{adds=" + adds + ", duplicates=" + duplicates + ", removes=" + removes
+				+ ", singleRotations=" + singleRotations + ", doubleRotations=" + doubleRotations
+				+ ", descents=" + descents + ", averageDescentDepth=" + getAverageDescentDepth()
+				+ ", maxDescentDepth=" + maxDescentDepth + ", iterators=" + iterators
+				+ ", height=" + height + ", size=" + size + '}';
+	}
+}
@@ -0,0 +1,41 @@
+package com.legeyda.play.tree;
+
+/**
+ * счётчики операций {@link AvlTreeSet}, см. {@link AvlTreeSet#enableStatistics()};
+ * {@link AvlTreeSet#statisticsBean()} можно зарегистрировать в MBeanServer
+ */
+public interface TreeStatisticsMXBean {
+
+	/** вставки нового элемента */
+	long getAdds();
+
+	/** вызовы add для уже имеющегося элемента */
+	long getDuplicates();
+
+	/** удаления имеющегося элемента */
+	long getRemoves();
+
+	/** балансировки одним поворотом */
+	long getSingleRotations();
+
+	/** балансировки двумя поворотами */
+	long getDoubleRotations();
+
+	/** спуски от корня в add, remove и contains */
+	long getDescents();
+
+	/** среднее число нод, пройденных за спуск */
+	double getAverageDescentDepth();
+
+	/** наибольшее число нод, пройденных за спуск */
+	long getMaxDescentDepth();
+
+	/** созданные итераторы и сплитераторы */
+	long getIterators();
+
+	/** текущая высота дерева */
+	int getHeight();
+
+	/** текущий размер дерева */
+	int getSize();
+}
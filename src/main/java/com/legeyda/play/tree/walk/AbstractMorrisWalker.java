@@ -0,0 +1,56 @@
+package com.legeyda.play.tree.walk;
+
+import com.legeyda.play.tree.TreeNode;
+
+import java.util.function.Consumer;
+
+/**
+ * Common part of the Morris walks. They need O(1) extra memory: instead of a stack, the rightmost node
+ * of each left subtree temporarily gets its null right pointer "threaded" to the subtree's parent,
+ * and the thread is removed when the walk comes back over it.
+ *
+ * While a walk is running the tree is modified, so it must not be read or changed concurrently,
+ * and the listener must not change the tree nor rely on right pointers of the nodes it gets.
+ * At any visit the threads lead back to exactly those ancestors of the visited node whose left subtree it is in,
+ * so if the walk is terminated or the listener throws, they are removed by one descent from the root
+ * (see {@link #restore}) and the tree is always restored.
+ *
+ * Without a stack the only way out of a subtree is through its threads, so a skipped subtree is still passed over,
+ * only its nodes are not visited. The walk knows it has left the subtree when it removes a thread created before the skip.
+ */
+abstract class AbstractMorrisWalker<T> implements TreeWalker<T> {
+
+	@Override
+	public void walk(TreeNode<T> root, Consumer<TreeNode<T>> listener) {
+		visit(root, node -> {
+			listener.accept(node);
+			return VisitResult.CONTINUE;
+		});
+	}
+
+	/** @return rightmost node of node.left, or the last node before a thread already leading back to node */
+	static <T> TreeNode<T> predecessor(TreeNode<T> node) {
+		TreeNode<T> predecessor = node.left;
+		while(predecessor.right!=null && predecessor.right!=node) {
+			predecessor = predecessor.right;
+		}
+		return predecessor;
+	}
+
+	/** removes the threads left in the tree when the walk is interrupted at the current node */
+	static <T> void restore(TreeNode<T> root, TreeNode<T> current) {
+		TreeNode<T> node = root;
+		while(node!=current) {
+			if(node.left!=null) {
+				final TreeNode<T> predecessor = predecessor(node);
+				if(predecessor.right==node) {
+					// current node is in the left subtree
+					predecessor.right = null;
+					node = node.left;
+					continue;
+				}
+			}
+			node = node.right;
+		}
+	}
+}
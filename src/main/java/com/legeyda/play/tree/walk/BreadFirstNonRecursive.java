@@ -23,4 +23,26 @@ public class BreadFirstNonRecursive<T> implements TreeWalker<T> {
 			}
 		}
 	}
+
+	@Override
+	public void visit(TreeNode<T> root, TreeVisitor<T> visitor) {
+		if(null==root) {
+			return;
+		}
+		final Queue<TreeNode<T>> queue = new LinkedList<>();
+		for(TreeNode<T> node = root; node!=null; node=queue.poll()) {
+			final VisitResult result = visitor.visit(node);
+			if(result==VisitResult.TERMINATE) {
+				return;
+			}
+			if(result==VisitResult.CONTINUE) {
+				if(null!=node.left) {
+					queue.offer(node.left);
+				}
+				if(null!=node.right) {
+					queue.offer(node.right);
+				}
+			}
+		}
+	}
 }
@@ -0,0 +1,62 @@
+package com.legeyda.play.tree.walk;
+
+import com.legeyda.play.tree.TreeNode;
+
+import java.util.function.Consumer;
+
+/**
+ * Same walk as {@link BreadFirstNonRecursive}, but on a {@link NodeQueue} kept between walks
+ * instead of a LinkedList entry per node. An instance must not be used by several threads at once.
+ */
+public class BreadFirstRingBuffer<T> implements TreeWalker<T> {
+	private final NodeQueue<T> queue = new NodeQueue<>();
+
+	@Override
+	public void walk(TreeNode<T> root, Consumer<TreeNode<T>> listener) {
+		if(null==root) {
+			return;
+		}
+		try {
+			queue.offer(root);
+			while(!queue.isEmpty()) {
+				final TreeNode<T> node = queue.poll();
+				listener.accept(node);
+				if(null!=node.left) {
+					queue.offer(node.left);
+				}
+				if(null!=node.right) {
+					queue.offer(node.right);
+				}
+			}
+		} finally {
+			queue.clear();
+		}
+	}
+
+	@Override
+	public void visit(TreeNode<T> root, TreeVisitor<T> visitor) {
+		if(null==root) {
+			return;
+		}
+		try {
+			queue.offer(root);
+			while(!queue.isEmpty()) {
+				final TreeNode<T> node = queue.poll();
+				final VisitResult result = visitor.visit(node);
+				if(result==VisitResult.TERMINATE) {
+					return;
+				}
+				if(result==VisitResult.CONTINUE) {
+					if(null!=node.left) {
+						queue.offer(node.left);
+					}
+					if(null!=node.right) {
+						queue.offer(node.right);
+					}
+				}
+			}
+		} finally {
+			queue.clear();
+		}
+	}
+}
@@ -0,0 +1,230 @@
+package com.legeyda.play.tree.walk;
+
+import com.legeyda.play.tree.TreeNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Walks a tree on a ForkJoinPool: subtrees closer than splitDepth to the root are forked as separate tasks,
+ * deeper subtrees are walked sequentially inside their task.
+ * TreeNode does not know the size of its subtree, so the split is by depth, which suits balanced trees;
+ * a list-shaped tree has nothing to split and is walked by a single task.
+ *
+ * In {@link Order#UNORDERED} mode the listener is called concurrently from pool threads in no particular order
+ * and must be thread-safe. In ordered modes the work that should run in parallel is given as a mapper
+ * ({@link #walk(TreeNode, Function, Consumer)}): it is applied concurrently, its results are buffered per subtree,
+ * and then the listener gets them one at a time in preorder, inorder or postorder, as a sequential walker would.
+ * Buffering keeps all n results in memory until delivery, so it pays off only when the mapper is costly.
+ * Plain {@link #walk(TreeNode, Consumer)} in ordered mode has no work to run in parallel:
+ * the listener must see nodes one at a time anyway, so the matching sequential walker runs it without buffering.
+ *
+ * {@link #visit(TreeNode, TreeVisitor)} is parallel only in unordered mode, where termination stops the walk as soon as
+ * the running tasks notice it. Decisions of a visitor in ordered mode depend on the nodes before,
+ * so it is run by the matching sequential walker.
+ */
+public class ForkJoinWalker<T> implements TreeWalker<T> {
+
+	public enum Order {
+		UNORDERED, PREORDER, INORDER, POSTORDER
+	}
+
+	private final Order order;
+	private final ForkJoinPool pool;
+	private final int splitDepth;
+
+	public ForkJoinWalker(Order order) {
+		this(order, ForkJoinPool.commonPool());
+	}
+
+	public ForkJoinWalker(Order order, ForkJoinPool pool) {
+		// a balanced tree is cut into about 8 subtrees per thread to even out subtrees of different cost
+		this(order, pool, 32 - Integer.numberOfLeadingZeros(pool.getParallelism()) + 2);
+	}
+
+	public ForkJoinWalker(Order order, ForkJoinPool pool, int splitDepth) {
+		if(splitDepth<0) {
+			throw new IllegalArgumentException("split depth must not be negative, got " + splitDepth);
+		}
+		this.order = order;
+		this.pool = pool;
+		this.splitDepth = splitDepth;
+	}
+
+	@Override
+	public void walk(TreeNode<T> root, Consumer<TreeNode<T>> listener) {
+		if(order==Order.UNORDERED) {
+			walk(root, Function.identity(), listener);
+		} else {
+			sequentialWalker().walk(root, listener);
+		}
+	}
+
+	public <R> void walk(TreeNode<T> root, Function<? super TreeNode<T>, ? extends R> mapper, Consumer<? super R> listener) {
+		if(root==null) {
+			return;
+		}
+		if(order==Order.UNORDERED) {
+			pool.invoke(new UnorderedTask(root, 0, node -> {
+				listener.accept(mapper.apply(node));
+				return VisitResult.CONTINUE;
+			}, new AtomicBoolean()));
+		} else {
+			deliver(pool.invoke(new OrderedTask<R>(root, 0, mapper)), listener);
+		}
+	}
+
+	@Override
+	public void visit(TreeNode<T> root, TreeVisitor<T> visitor) {
+		if(root==null) {
+			return;
+		}
+		if(order==Order.UNORDERED) {
+			pool.invoke(new UnorderedTask(root, 0, visitor, new AtomicBoolean()));
+		} else {
+			sequentialWalker().visit(root, visitor);
+		}
+	}
+
+
+	private class UnorderedTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final TreeNode<T> node;
+		private final int depth;
+		private final TreeVisitor<T> visitor;
+		/** shared by all tasks of a walk */
+		private final AtomicBoolean terminated;
+
+		UnorderedTask(TreeNode<T> node, int depth, TreeVisitor<T> visitor, AtomicBoolean terminated) {
+			this.node = node;
+			this.depth = depth;
+			this.visitor = visitor;
+			this.terminated = terminated;
+		}
+
+		@Override
+		protected void compute() {
+			if(depth>=splitDepth) {
+				new PreorderArrayStack<T>().visit(node, this::visitNode);
+				return;
+			}
+			final VisitResult result = visitNode(node);
+			if(result!=VisitResult.CONTINUE) {
+				return;
+			}
+			final UnorderedTask left = node.left!=null ? new UnorderedTask(node.left, depth + 1, visitor, terminated) : null;
+			if(left!=null) {
+				left.fork();
+			}
+			if(node.right!=null) {
+				new UnorderedTask(node.right, depth + 1, visitor, terminated).compute();
+			}
+			if(left!=null) {
+				left.join();
+			}
+		}
+
+		private VisitResult visitNode(TreeNode<T> node) {
+			if(terminated.get()) {
+				return VisitResult.TERMINATE;
+			}
+			final VisitResult result = visitor.visit(node);
+			if(result==VisitResult.TERMINATE) {
+				terminated.set(true);
+			}
+			return result;
+		}
+	}
+
+	/** results of a subtree in walk order: either a buffer of a sequentially walked subtree, or a node with chunks of its children */
+	private static final class Chunk<R> {
+		final List<R> values;
+		final Chunk<R> left;
+		final R value;
+		final Chunk<R> right;
+
+		Chunk(List<R> values) {
+			this.values = values;
+			this.left = null;
+			this.value = null;
+			this.right = null;
+		}
+
+		Chunk(Chunk<R> left, R value, Chunk<R> right) {
+			this.values = null;
+			this.left = left;
+			this.value = value;
+			this.right = right;
+		}
+	}
+
+	private class OrderedTask<R> extends RecursiveTask<Chunk<R>> {
+		private static final long serialVersionUID = 1L;
+
+		private final TreeNode<T> node;
+		private final int depth;
+		private final Function<? super TreeNode<T>, ? extends R> mapper;
+
+		OrderedTask(TreeNode<T> node, int depth, Function<? super TreeNode<T>, ? extends R> mapper) {
+			this.node = node;
+			this.depth = depth;
+			this.mapper = mapper;
+		}
+
+		@Override
+		protected Chunk<R> compute() {
+			if(depth>=splitDepth) {
+				final List<R> values = new ArrayList<>();
+				sequentialWalker().walk(node, child -> values.add(mapper.apply(child)));
+				return new Chunk<>(values);
+			}
+			final OrderedTask<R> left = node.left!=null ? new OrderedTask<R>(node.left, depth + 1, mapper) : null;
+			if(left!=null) {
+				left.fork();
+			}
+			final R value = mapper.apply(node);
+			final Chunk<R> right = node.right!=null ? new OrderedTask<R>(node.right, depth + 1, mapper).compute() : null;
+			return new Chunk<>(left!=null ? left.join() : null, value, right);
+		}
+	}
+
+	private TreeWalker<T> sequentialWalker() {
+		switch(order) {
+			case INORDER:
+				return new InorderArrayStack<>();
+			case POSTORDER:
+				return new PostorderArrayStack<>();
+			default:
+				return new PreorderArrayStack<>();
+		}
+	}
+
+	/** recursion depth is bounded by splitDepth */
+	private <R> void deliver(Chunk<R> chunk, Consumer<? super R> listener) {
+		if(chunk==null) {
+			return;
+		}
+		if(chunk.values!=null) {
+			chunk.values.forEach(listener);
+			return;
+		}
+		if(order==Order.PREORDER) {
+			listener.accept(chunk.value);
+		}
+		deliver(chunk.left, listener);
+		if(order==Order.INORDER) {
+			listener.accept(chunk.value);
+		}
+		deliver(chunk.right, listener);
+		if(order==Order.POSTORDER) {
+			listener.accept(chunk.value);
+		}
+	}
+}
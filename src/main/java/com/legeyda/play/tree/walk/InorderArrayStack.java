@@ -0,0 +1,57 @@
+package com.legeyda.play.tree.walk;
+
+import com.legeyda.play.tree.TreeNode;
+
+import java.util.function.Consumer;
+
+/**
+ * Same walk as {@link InorderIterative2}, but on a {@link NodeStack} kept between walks,
+ * so repeated walks do not allocate. An instance must not be used by several threads at once.
+ */
+public class InorderArrayStack<T> implements TreeWalker<T> {
+	private final NodeStack<T> stack = new NodeStack<>();
+
+	@Override
+	public void walk(TreeNode<T> node, Consumer<TreeNode<T>> listener) {
+		try {
+			while(true) {
+				if(node!=null) {
+					stack.push(node);
+					node = node.left;
+				} else if(!stack.isEmpty()) {
+					node = stack.pop();
+					listener.accept(node);
+					node = node.right;
+				} else {
+					break;
+				}
+			}
+		} finally {
+			// the listener may have thrown in the middle of the walk
+			stack.clear();
+		}
+	}
+
+	@Override
+	public void visit(TreeNode<T> node, TreeVisitor<T> visitor) {
+		try {
+			while(true) {
+				if(node!=null) {
+					stack.push(node);
+					node = node.left;
+				} else if(!stack.isEmpty()) {
+					node = stack.pop();
+					final VisitResult result = visitor.visit(node);
+					if(result==VisitResult.TERMINATE) {
+						break;
+					}
+					node = result==VisitResult.CONTINUE ? node.right : null;
+				} else {
+					break;
+				}
+			}
+		} finally {
+			stack.clear();
+		}
+	}
+}
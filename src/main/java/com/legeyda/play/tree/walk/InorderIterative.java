@@ -21,4 +21,22 @@ public class InorderIterative<T> implements TreeWalker<T> {
 			}
 		}
 	}
+
+	@Override
+	public void visit(TreeNode<T> node, TreeVisitor<T> visitor) {
+		final Stack<TreeNode<T>> stack = new Stack<>();
+		while (node != null || !stack.empty()) {
+			while (node != null) {
+				stack.push(node);
+				node = node.left;
+			}
+			node = stack.pop();
+			final VisitResult result = visitor.visit(node);
+			if (result == VisitResult.TERMINATE) {
+				return;
+			}
+			// the left subtree is already visited, only the right one can be skipped
+			node = result == VisitResult.CONTINUE ? node.right : null;
+		}
+	}
 }
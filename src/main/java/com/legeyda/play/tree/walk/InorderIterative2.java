@@ -22,4 +22,24 @@ public class InorderIterative2<T> implements TreeWalker<T> {
 			}
 		}
 	}
+
+	@Override
+	public void visit(TreeNode<T> node, TreeVisitor<T> visitor) {
+		final Stack<TreeNode<T>> stack = new Stack<>();
+		while(true) {
+			if(node!=null) {
+				stack.push(node);
+				node = node.left;
+			} else if (!stack.isEmpty()) {
+				node = stack.pop();
+				final VisitResult result = visitor.visit(node);
+				if(result==VisitResult.TERMINATE) {
+					break;
+				}
+				node = result==VisitResult.CONTINUE ? node.right : null;
+			} else {
+				break;
+			}
+		}
+	}
 }
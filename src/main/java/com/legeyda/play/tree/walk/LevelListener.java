@@ -0,0 +1,15 @@
+package com.legeyda.play.tree.walk;
+
+import com.legeyda.play.tree.TreeNode;
+
+import java.util.List;
+
+/** Listener of {@link LevelWalker#walkLevels(TreeNode, LevelListener)} */
+public interface LevelListener<T> {
+	/**
+	 * @param depth depth of the level, the root is at depth 0
+	 * @param nodes nodes of the level from left to right; a read-only view that is valid only during the call
+	 * @return false to stop the walk
+	 */
+	boolean level(int depth, List<TreeNode<T>> nodes);
+}
@@ -0,0 +1,231 @@
+package com.legeyda.play.tree.walk;
+
+import com.legeyda.play.tree.TreeNode;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * Level-synchronous breadth-first walk: the whole level is kept in an array, the next level is built
+ * into a second array, then they are swapped. The depth is the number of swaps, so no per-node wrappers
+ * or queue entries are allocated, and the arrays are kept between walks.
+ * An instance must not be used by several threads at once.
+ *
+ * With a pool, levels of at least parallelThreshold nodes are built on it: each chunk of the level counts children,
+ * then after a prefix sum each chunk writes its children at its own offset, so the order is the same as sequential.
+ * The list given to a {@link LevelListener} splits evenly, so the listener can also process a level with parallelStream().
+ */
+public class LevelWalker<T> implements TreeWalker<T> {
+
+	private static final int DEFAULT_CAPACITY = 64;
+	/** smallest chunk of a level built by one task */
+	private static final int MIN_CHUNK = 1024;
+
+	private final ForkJoinPool pool;
+	private final int parallelThreshold;
+
+	private TreeNode<T>[] current = TreeNode.newArray(DEFAULT_CAPACITY);
+	private TreeNode<T>[] next = TreeNode.newArray(DEFAULT_CAPACITY);
+	private final LevelView<T> view = new LevelView<>();
+
+	public LevelWalker() {
+		this(null, Integer.MAX_VALUE);
+	}
+
+	public LevelWalker(ForkJoinPool pool, int parallelThreshold) {
+		this.pool = pool;
+		this.parallelThreshold = Math.max(2 * MIN_CHUNK, parallelThreshold);
+	}
+
+	public void walkLevels(TreeNode<T> root, LevelListener<T> listener) {
+		if(root==null) {
+			return;
+		}
+		current[0] = root;
+		int size = 1;
+		try {
+			for(int depth=0; size>0; depth++) {
+				view.reset(current, size);
+				if(!listener.level(depth, view)) {
+					return;
+				}
+				size = nextLevel(size);
+			}
+		} finally {
+			release(size);
+		}
+	}
+
+	@Override
+	public void walk(TreeNode<T> root, Consumer<TreeNode<T>> listener) {
+		walkLevels(root, (depth, nodes) -> {
+			nodes.forEach(listener);
+			return true;
+		});
+	}
+
+	@Override
+	public void visit(TreeNode<T> root, TreeVisitor<T> visitor) {
+		if(root==null) {
+			return;
+		}
+		current[0] = root;
+		int size = 1;
+		try {
+			while(size>0) {
+				for(int i=0; i<size; i++) {
+					final VisitResult result = visitor.visit(current[i]);
+					if(result==VisitResult.TERMINATE) {
+						return;
+					}
+					if(result==VisitResult.SKIP_SUBTREE) {
+						// nextLevel passes over removed nodes
+						current[i] = null;
+					}
+				}
+				size = nextLevel(size);
+			}
+		} finally {
+			release(size);
+		}
+	}
+
+
+	/** builds the level after current[0..size) in next and swaps the arrays; @return size of the new level */
+	private int nextLevel(int size) {
+		final int nextSize;
+		if(pool!=null && size>=parallelThreshold) {
+			nextSize = nextLevelParallel(size);
+		} else {
+			ensureNextCapacity(2 * size);
+			nextSize = collectChildren(0, size, 0);
+		}
+		Arrays.fill(current, 0, size, null);
+		final TreeNode<T>[] swap = current;
+		current = next;
+		next = swap;
+		return nextSize;
+	}
+
+	private int nextLevelParallel(int size) {
+		final int chunks = Math.min(4 * pool.getParallelism(), size / MIN_CHUNK);
+		final int[] offsets = new int[chunks + 1];
+		pool.invoke(new ChunkTask(0, chunks, size, offsets, false));
+		for(int i=0; i<chunks; i++) {
+			offsets[i + 1] += offsets[i];
+		}
+		ensureNextCapacity(offsets[chunks]);
+		pool.invoke(new ChunkTask(0, chunks, size, offsets, true));
+		return offsets[chunks];
+	}
+
+	/** writes children of current[from..to) to next starting at offset; @return position after the last written child */
+	private int collectChildren(int from, int to, int offset) {
+		for(int i=from; i<to; i++) {
+			final TreeNode<T> node = current[i];
+			if(node!=null) {
+				if(node.left!=null) {
+					next[offset++] = node.left;
+				}
+				if(node.right!=null) {
+					next[offset++] = node.right;
+				}
+			}
+		}
+		return offset;
+	}
+
+	private int countChildren(int from, int to) {
+		int count = 0;
+		for(int i=from; i<to; i++) {
+			final TreeNode<T> node = current[i];
+			if(node!=null) {
+				count += (node.left!=null ? 1 : 0) + (node.right!=null ? 1 : 0);
+			}
+		}
+		return count;
+	}
+
+	private void ensureNextCapacity(int capacity) {
+		if(next.length<capacity) {
+			next = TreeNode.newArray(Math.max(capacity, 2 * next.length));
+		}
+	}
+
+	/** do not keep walked trees reachable; only the level the walk has stopped at can be left in the arrays */
+	private void release(int size) {
+		Arrays.fill(current, 0, size, null);
+		view.reset(null, 0);
+	}
+
+	/** chunk c of a level of size nodes covers [c*size/chunks, (c+1)*size/chunks) */
+	private class ChunkTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int fromChunk;
+		private final int toChunk;
+		private final int size;
+		/** before the prefix sum offsets[c+1] gets the number of children of chunk c, after it offsets[c] is where they go */
+		private final int[] offsets;
+		private final boolean fill;
+
+		ChunkTask(int fromChunk, int toChunk, int size, int[] offsets, boolean fill) {
+			this.fromChunk = fromChunk;
+			this.toChunk = toChunk;
+			this.size = size;
+			this.offsets = offsets;
+			this.fill = fill;
+		}
+
+		@Override
+		protected void compute() {
+			if(toChunk - fromChunk>1) {
+				final int middle = (fromChunk + toChunk) >>> 1;
+				invokeAll(new ChunkTask(fromChunk, middle, size, offsets, fill), new ChunkTask(middle, toChunk, size, offsets, fill));
+				return;
+			}
+			final int chunks = offsets.length - 1;
+			final int from = (int) ((long) fromChunk * size / chunks);
+			final int to = (int) ((long) toChunk * size / chunks);
+			if(fill) {
+				collectChildren(from, to, offsets[fromChunk]);
+			} else {
+				offsets[toChunk] = countChildren(from, to);
+			}
+		}
+	}
+
+	private static final class LevelView<T> extends AbstractList<TreeNode<T>> implements RandomAccess {
+		private TreeNode<T>[] nodes;
+		private int size;
+
+		void reset(TreeNode<T>[] nodes, int size) {
+			this.nodes = nodes;
+			this.size = size;
+		}
+
+		@Override
+		public TreeNode<T> get(int index) {
+			if(index<0 || index>=size) {
+				throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+			}
+			return nodes[index];
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public Spliterator<TreeNode<T>> spliterator() {
+			return Arrays.spliterator(nodes, 0, size);
+		}
+	}
+}
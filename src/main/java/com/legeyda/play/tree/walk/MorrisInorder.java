@@ -0,0 +1,48 @@
+package com.legeyda.play.tree.walk;
+
+import com.legeyda.play.tree.TreeNode;
+
+/** Inorder walk in O(1) extra memory, see {@link AbstractMorrisWalker} */
+public class MorrisInorder<T> extends AbstractMorrisWalker<T> {
+	@Override
+	public void visit(TreeNode<T> root, TreeVisitor<T> visitor) {
+		TreeNode<T> node = root;
+		// number of threads in the tree, and while a subtree is skipped, the number of threads outside of it
+		int threads = 0;
+		int skipUntil = -1;
+		try {
+			while(node!=null) {
+				if(node.left!=null) {
+					final TreeNode<T> predecessor = predecessor(node);
+					if(predecessor.right==null) {
+						// come back to node after its left subtree
+						predecessor.right = node;
+						threads++;
+						node = node.left;
+						continue;
+					}
+					// left subtree is done
+					predecessor.right = null;
+					threads--;
+					if(threads<skipUntil) {
+						skipUntil = -1;
+					}
+				}
+				if(skipUntil<0) {
+					final VisitResult result = visitor.visit(node);
+					if(result==VisitResult.TERMINATE) {
+						restore(root, node);
+						return;
+					}
+					if(result==VisitResult.SKIP_SUBTREE) {
+						skipUntil = threads;
+					}
+				}
+				node = node.right;
+			}
+		} catch (RuntimeException | Error e) {
+			restore(root, node);
+			throw e;
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package com.legeyda.play.tree.walk;
+
+import com.legeyda.play.tree.TreeNode;
+
+/** Preorder walk in O(1) extra memory, see {@link AbstractMorrisWalker} */
+public class MorrisPreorder<T> extends AbstractMorrisWalker<T> {
+	@Override
+	public void visit(TreeNode<T> root, TreeVisitor<T> visitor) {
+		TreeNode<T> node = root;
+		// number of threads in the tree, and while a subtree is skipped, the number of threads outside of it
+		int threads = 0;
+		int skipUntil = -1;
+		try {
+			while(node!=null) {
+				final TreeNode<T> predecessor = node.left!=null ? predecessor(node) : null;
+				if(predecessor!=null && predecessor.right==node) {
+					// left subtree is done, the node itself was visited before it
+					predecessor.right = null;
+					threads--;
+					if(threads<skipUntil) {
+						skipUntil = -1;
+					}
+					node = node.right;
+					continue;
+				}
+				if(skipUntil<0) {
+					final VisitResult result = visitor.visit(node);
+					if(result==VisitResult.TERMINATE) {
+						restore(root, node);
+						return;
+					}
+					if(result==VisitResult.SKIP_SUBTREE) {
+						skipUntil = threads;
+					}
+				}
+				if(predecessor!=null) {
+					// come back past the node after its left subtree
+					predecessor.right = node;
+					threads++;
+					node = node.left;
+				} else {
+					node = node.right;
+				}
+			}
+		} catch (RuntimeException | Error e) {
+			restore(root, node);
+			throw e;
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package com.legeyda.play.tree.walk;
+
+import com.legeyda.play.tree.TreeNode;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Unsynchronized ring-buffer queue of tree nodes.
+ * Like {@link NodeStack} it keeps its array between uses, so a reused queue stops allocating
+ * once it has reached the width of the widest tree.
+ */
+public final class NodeQueue<T> {
+
+	private static final int DEFAULT_CAPACITY = 64;
+
+	/** capacity is always a power of two, so positions wrap with a mask */
+	private TreeNode<T>[] elements;
+	private int head = 0;
+	private int size = 0;
+
+	public NodeQueue() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public NodeQueue(int capacity) {
+		this.elements = TreeNode.newArray(Integer.highestOneBit(Math.max(2, capacity - 1)) << 1);
+	}
+
+	public void offer(TreeNode<T> node) {
+		if(size==elements.length) {
+			grow();
+		}
+		elements[(head + size) & (elements.length - 1)] = node;
+		size++;
+	}
+
+	public TreeNode<T> poll() {
+		if(size==0) {
+			throw new NoSuchElementException();
+		}
+		final TreeNode<T> node = elements[head];
+		elements[head] = null;
+		head = (head + 1) & (elements.length - 1);
+		size--;
+		return node;
+	}
+
+	public boolean isEmpty() {
+		return size==0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/** drops all nodes but keeps the allocated array */
+	public void clear() {
+		while(size>0) {
+			poll();
+		}
+		head = 0;
+	}
+
+	private void grow() {
+		// unwrap the ring into the beginning of a twice larger array
+		final TreeNode<T>[] grown = TreeNode.<T>newArray(2 * elements.length);
+		final int tail = elements.length - head;
+		System.arraycopy(elements, head, grown, 0, tail);
+		System.arraycopy(elements, 0, grown, tail, head);
+		Arrays.fill(elements, null);
+		elements = grown;
+		head = 0;
+	}
+}
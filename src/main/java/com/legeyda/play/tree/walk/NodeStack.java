@@ -0,0 +1,65 @@
+package com.legeyda.play.tree.walk;
+
+import com.legeyda.play.tree.TreeNode;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Unsynchronized array-backed stack of tree nodes.
+ * The array only grows and is kept between uses, so a stack reused across walks stops allocating
+ * once it has reached the depth of the deepest tree.
+ */
+public final class NodeStack<T> {
+
+	private static final int DEFAULT_CAPACITY = 64;
+
+	private TreeNode<T>[] elements;
+	private int size = 0;
+
+	public NodeStack() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public NodeStack(int capacity) {
+		this.elements = TreeNode.newArray(Math.max(1, capacity));
+	}
+
+	public void push(TreeNode<T> node) {
+		if(size==elements.length) {
+			elements = Arrays.copyOf(elements, 2 * elements.length);
+		}
+		elements[size++] = node;
+	}
+
+	public TreeNode<T> pop() {
+		if(size==0) {
+			throw new NoSuchElementException();
+		}
+		final TreeNode<T> node = elements[--size];
+		// do not keep walked trees reachable from a reused stack
+		elements[size] = null;
+		return node;
+	}
+
+	public TreeNode<T> peek() {
+		if(size==0) {
+			throw new NoSuchElementException();
+		}
+		return elements[size - 1];
+	}
+
+	public boolean isEmpty() {
+		return size==0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/** drops all nodes but keeps the allocated array */
+	public void clear() {
+		Arrays.fill(elements, 0, size, null);
+		size = 0;
+	}
+}
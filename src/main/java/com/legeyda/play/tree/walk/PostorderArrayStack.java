@@ -0,0 +1,70 @@
+package com.legeyda.play.tree.walk;
+
+import com.legeyda.play.tree.TreeNode;
+
+import java.util.function.Consumer;
+
+/**
+ * Same walk as {@link PostorderIterative}, but on a {@link NodeStack} kept between walks,
+ * so repeated walks do not allocate. An instance must not be used by several threads at once.
+ */
+public class PostorderArrayStack<T> implements TreeWalker<T> {
+	private final NodeStack<T> stack = new NodeStack<>();
+
+	@Override
+	public void walk(TreeNode<T> node, Consumer<TreeNode<T>> listener) {
+		TreeNode<T> last = null;
+		try {
+			while(true) {
+				if(node!=null) {
+					stack.push(node);
+					node = node.left;
+				} else if(!stack.isEmpty()) {
+					node = stack.peek();
+					if(node.right==null || node.right==last) {
+						listener.accept(node);
+						stack.pop();
+						last = node;
+						node = null;
+					} else {
+						node = node.right;
+					}
+				} else {
+					break;
+				}
+			}
+		} finally {
+			stack.clear();
+		}
+	}
+
+	/** in postorder the subtree is visited before its root, so only termination matters */
+	@Override
+	public void visit(TreeNode<T> node, TreeVisitor<T> visitor) {
+		TreeNode<T> last = null;
+		try {
+			while(true) {
+				if(node!=null) {
+					stack.push(node);
+					node = node.left;
+				} else if(!stack.isEmpty()) {
+					node = stack.peek();
+					if(node.right==null || node.right==last) {
+						if(visitor.visit(node)==VisitResult.TERMINATE) {
+							break;
+						}
+						stack.pop();
+						last = node;
+						node = null;
+					} else {
+						node = node.right;
+					}
+				} else {
+					break;
+				}
+			}
+		} finally {
+			stack.clear();
+		}
+	}
+}
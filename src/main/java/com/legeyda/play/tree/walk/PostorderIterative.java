@@ -30,4 +30,31 @@ public class PostorderIterative<T> implements TreeWalker<T> {
 			}
 		}
 	}
+
+	/** in postorder the subtree is visited before its root, so only termination matters */
+	@Override
+	public void visit(TreeNode<T> node, TreeVisitor<T> visitor) {
+		final Stack<TreeNode<T>> stack = new Stack<>();
+		TreeNode<T> last = null;
+		while(true) {
+			if(node!=null) {
+				stack.push(node);
+				node = node.left;
+			} else if(!stack.isEmpty()) {
+				node = stack.peek();
+				if(node.right==null || node.right==last) {
+					if(visitor.visit(node)==VisitResult.TERMINATE) {
+						break;
+					}
+					stack.pop();
+					last = node;
+					node=null;
+				} else {
+					node = node.right;
+				}
+			} else {
+				break;
+			}
+		}
+	}
 }
@@ -14,4 +14,19 @@ public class PostorderRecursive<T> implements TreeWalker<T> {
 			listener.accept(node);
 		}
 	}
+
+	@Override
+	public void visit(TreeNode<T> node, TreeVisitor<T> visitor) {
+		visitSubtree(node, visitor);
+	}
+
+	/** @return false if the walk is terminated */
+	private boolean visitSubtree(TreeNode<T> node, TreeVisitor<T> visitor) {
+		if(node!=null) {
+			return visitSubtree(node.left, visitor)
+					&& visitSubtree(node.right, visitor)
+					&& visitor.visit(node)!=VisitResult.TERMINATE;
+		}
+		return true;
+	}
 }
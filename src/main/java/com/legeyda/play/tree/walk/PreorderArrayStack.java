@@ -0,0 +1,62 @@
+package com.legeyda.play.tree.walk;
+
+import com.legeyda.play.tree.TreeNode;
+
+import java.util.function.Consumer;
+
+/**
+ * Same walk as {@link PreorderNonRecursive}, but on a {@link NodeStack} kept between walks
+ * and without pushing absent children. An instance must not be used by several threads at once.
+ */
+public class PreorderArrayStack<T> implements TreeWalker<T> {
+	private final NodeStack<T> stack = new NodeStack<>();
+
+	@Override
+	public void walk(TreeNode<T> node, Consumer<TreeNode<T>> listener) {
+		if(node==null) {
+			return;
+		}
+		try {
+			stack.push(node);
+			while(!stack.isEmpty()) {
+				node = stack.pop();
+				listener.accept(node);
+				if(node.right!=null) {
+					stack.push(node.right);
+				}
+				if(node.left!=null) {
+					stack.push(node.left);
+				}
+			}
+		} finally {
+			stack.clear();
+		}
+	}
+
+	@Override
+	public void visit(TreeNode<T> node, TreeVisitor<T> visitor) {
+		if(node==null) {
+			return;
+		}
+		try {
+			stack.push(node);
+			while(!stack.isEmpty()) {
+				node = stack.pop();
+				final VisitResult result = visitor.visit(node);
+				if(result==VisitResult.TERMINATE) {
+					return;
+				}
+				if(result==VisitResult.CONTINUE) {
+					if(node.right!=null) {
+						stack.push(node.right);
+					}
+					if(node.left!=null) {
+						stack.push(node.left);
+					}
+				}
+			}
+		} finally {
+			stack.clear();
+		}
+	}
+}
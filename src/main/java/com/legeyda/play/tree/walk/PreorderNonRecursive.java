@@ -19,4 +19,23 @@ public class PreorderNonRecursive<T> implements TreeWalker<T> {
 			}
 		}
 	}
+
+	@Override
+	public void visit(TreeNode<T> node, TreeVisitor<T> visitor) {
+		final Stack<TreeNode<T>> stack = new Stack<>();
+		stack.push(node);
+		while(!stack.isEmpty()) {
+			node = stack.pop();
+			if (null != node) {
+				final VisitResult result = visitor.visit(node);
+				if(result==VisitResult.TERMINATE) {
+					return;
+				}
+				if(result==VisitResult.CONTINUE) {
+					stack.push(node.right);
+					stack.push(node.left);
+				}
+			}
+		}
+	}
 }
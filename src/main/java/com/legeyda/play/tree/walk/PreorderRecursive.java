@@ -14,4 +14,21 @@ public class PreorderRecursive<T> implements TreeWalker<T> {
 		walk(root.left, listener);
 		walk(root.right, listener);
 	}
+
+	@Override
+	public void visit(TreeNode<T> root, TreeVisitor<T> visitor) {
+		visitSubtree(root, visitor);
+	}
+
+	/** @return false if the walk is terminated */
+	private boolean visitSubtree(TreeNode<T> root, TreeVisitor<T> visitor) {
+		if(null==root) {
+			return true;
+		}
+		final VisitResult result = visitor.visit(root);
+		if(result!=VisitResult.CONTINUE) {
+			return result!=VisitResult.TERMINATE;
+		}
+		return visitSubtree(root.left, visitor) && visitSubtree(root.right, visitor);
+	}
 }
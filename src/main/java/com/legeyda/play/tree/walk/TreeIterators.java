@@ -0,0 +1,193 @@
+package com.legeyda.play.tree.walk;
+
+import com.legeyda.play.tree.TreeNode;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazy pull-based counterparts of the walkers: a node is reached only when it is asked for,
+ * so the caller can stop at any point, and streams support short-circuiting operations
+ * like findFirst, anyMatch or limit. Each next() takes amortized O(1) time,
+ * depth-first iterators keep O(height) nodes, breadth-first keeps O(width).
+ *
+ * The tree must not be changed while iterated.
+ */
+public final class TreeIterators {
+
+	private TreeIterators() {
+	}
+
+	public static <T> Iterator<TreeNode<T>> preorder(TreeNode<T> root) {
+		return new PreorderIterator<>(root);
+	}
+
+	public static <T> Iterator<TreeNode<T>> inorder(TreeNode<T> root) {
+		return new InorderIterator<>(root);
+	}
+
+	public static <T> Iterator<TreeNode<T>> postorder(TreeNode<T> root) {
+		return new PostorderIterator<>(root);
+	}
+
+	public static <T> Iterator<TreeNode<T>> breadthFirst(TreeNode<T> root) {
+		return new BreadthFirstIterator<>(root);
+	}
+
+	public static <T> Stream<TreeNode<T>> preorderStream(TreeNode<T> root) {
+		return stream(preorder(root));
+	}
+
+	public static <T> Stream<TreeNode<T>> inorderStream(TreeNode<T> root) {
+		return stream(inorder(root));
+	}
+
+	public static <T> Stream<TreeNode<T>> postorderStream(TreeNode<T> root) {
+		return stream(postorder(root));
+	}
+
+	public static <T> Stream<TreeNode<T>> breadthFirstStream(TreeNode<T> root) {
+		return stream(breadthFirst(root));
+	}
+
+	/** the size of a tree is unknown without walking it, so the spliterator splits off batches of its prefix */
+	public static <T> Spliterator<TreeNode<T>> spliterator(Iterator<TreeNode<T>> iterator) {
+		return Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+	}
+
+	private static <T> Stream<TreeNode<T>> stream(Iterator<TreeNode<T>> iterator) {
+		return StreamSupport.stream(spliterator(iterator), false);
+	}
+
+
+	private static final class PreorderIterator<T> implements Iterator<TreeNode<T>> {
+		private final NodeStack<T> stack = new NodeStack<>();
+
+		PreorderIterator(TreeNode<T> root) {
+			if(root!=null) {
+				stack.push(root);
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return !stack.isEmpty();
+		}
+
+		@Override
+		public TreeNode<T> next() {
+			if(stack.isEmpty()) {
+				throw new NoSuchElementException();
+			}
+			final TreeNode<T> node = stack.pop();
+			if(node.right!=null) {
+				stack.push(node.right);
+			}
+			if(node.left!=null) {
+				stack.push(node.left);
+			}
+			return node;
+		}
+	}
+
+	private static final class InorderIterator<T> implements Iterator<TreeNode<T>> {
+		private final NodeStack<T> stack = new NodeStack<>();
+
+		InorderIterator(TreeNode<T> root) {
+			pushLeft(root);
+		}
+
+		private void pushLeft(TreeNode<T> node) {
+			for(; node!=null; node = node.left) {
+				stack.push(node);
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return !stack.isEmpty();
+		}
+
+		@Override
+		public TreeNode<T> next() {
+			if(stack.isEmpty()) {
+				throw new NoSuchElementException();
+			}
+			final TreeNode<T> node = stack.pop();
+			pushLeft(node.right);
+			return node;
+		}
+	}
+
+	private static final class PostorderIterator<T> implements Iterator<TreeNode<T>> {
+		/** path from the root to the next node */
+		private final NodeStack<T> stack = new NodeStack<>();
+
+		PostorderIterator(TreeNode<T> root) {
+			pushFirstLeaf(root);
+		}
+
+		/** descends to the first node of the subtree in postorder, preferring left children */
+		private void pushFirstLeaf(TreeNode<T> node) {
+			while(node!=null) {
+				stack.push(node);
+				node = node.left!=null ? node.left : node.right;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return !stack.isEmpty();
+		}
+
+		@Override
+		public TreeNode<T> next() {
+			if(stack.isEmpty()) {
+				throw new NoSuchElementException();
+			}
+			final TreeNode<T> node = stack.pop();
+			if(!stack.isEmpty()) {
+				final TreeNode<T> parent = stack.peek();
+				// after the left subtree comes the right one, after the right one the parent itself
+				if(parent.left==node) {
+					pushFirstLeaf(parent.right);
+				}
+			}
+			return node;
+		}
+	}
+
+	private static final class BreadthFirstIterator<T> implements Iterator<TreeNode<T>> {
+		private final NodeQueue<T> queue = new NodeQueue<>();
+
+		BreadthFirstIterator(TreeNode<T> root) {
+			if(root!=null) {
+				queue.offer(root);
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return !queue.isEmpty();
+		}
+
+		@Override
+		public TreeNode<T> next() {
+			if(queue.isEmpty()) {
+				throw new NoSuchElementException();
+			}
+			final TreeNode<T> node = queue.poll();
+			if(null!=node.left) {
+				queue.offer(node.left);
+			}
+			if(null!=node.right) {
+				queue.offer(node.right);
+			}
+			return node;
+		}
+	}
+}
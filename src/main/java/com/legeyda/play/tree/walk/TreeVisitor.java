@@ -0,0 +1,8 @@
+package com.legeyda.play.tree.walk;
+
+import com.legeyda.play.tree.TreeNode;
+
+/** Listener of {@link TreeWalker#visit(TreeNode, TreeVisitor)} that steers the walk */
+public interface TreeVisitor<T> {
+	VisitResult visit(TreeNode<T> node);
+}
@@ -6,4 +6,17 @@ import java.util.function.Consumer;
 
 public interface TreeWalker<T> {
 	void walk(TreeNode<T> root, Consumer<TreeNode<T>> listener);
+
+	/**
+	 * Walks the tree in the same order as {@link #walk(TreeNode, Consumer)}, but lets the visitor
+	 * skip subtrees and stop the walk, see {@link VisitResult}.
+	 * Skipped nodes and nodes after termination are not touched, except by the Morris walkers, which have no stack
+	 * and pass over a skipped subtree without visiting it.
+	 * <p>
+	 * The default implementation delegates to {@link #walk(TreeNode, Consumer)} and ignores the decisions,
+	 * treating every result as {@link VisitResult#CONTINUE}; walkers that support pruning override it.
+	 */
+	default void visit(TreeNode<T> root, TreeVisitor<T> visitor) {
+		walk(root, visitor::visit);
+	}
 }
@@ -0,0 +1,14 @@
+package com.legeyda.play.tree.walk;
+
+/** Decision of a {@link TreeVisitor} about how the walk goes on after a node */
+public enum VisitResult {
+	/** go on as usual */
+	CONTINUE,
+	/**
+	 * do not visit the rest of this node's subtree: both children in preorder and breadth-first order,
+	 * the right subtree in inorder; in postorder the subtree has already been visited, so it is the same as CONTINUE
+	 */
+	SKIP_SUBTREE,
+	/** stop the walk, no more nodes are visited */
+	TERMINATE
+}
@@ -5,6 +5,8 @@ import com.legeyda.play.tree.walk.BreadFirstNonRecursive;
 import com.legeyda.play.tree.walk.PreorderNonRecursive;
 import com.legeyda.play.tree.walk.InorderIterative;
 import com.legeyda.play.tree.walk.InorderIterative2;
+import com.legeyda.play.tree.walk.MorrisInorder;
+import com.legeyda.play.tree.walk.MorrisPreorder;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -50,4 +52,18 @@ public class TreeWalkTest {
 		new InorderIterative2<Integer>().walk(sampleTree, treeNode -> trace.add(treeNode.value));
 		Assertions.assertIterableEquals(Arrays.asList(2, 5, 7, 10, 12, 15, 17), trace);
 	}
+
+	@Test
+	public void testMorrisPreorder() {
+		final ArrayList<Integer> trace = new ArrayList<>(7);
+		new MorrisPreorder<Integer>().walk(sampleTree, treeNode -> trace.add(treeNode.value));
+		Assertions.assertIterableEquals(Arrays.asList(10, 5, 2, 7, 15, 12, 17), trace);
+	}
+
+	@Test
+	public void testMorrisInorder() {
+		final ArrayList<Integer> trace = new ArrayList<>(7);
+		new MorrisInorder<Integer>().walk(sampleTree, treeNode -> trace.add(treeNode.value));
+		Assertions.assertIterableEquals(Arrays.asList(2, 5, 7, 10, 12, 15, 17), trace);
+	}
 }
@@ -0,0 +1,248 @@
+package com.legeyda.play.tree;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AvlTreeMapTest {
+
+	@Test
+	void simpleTest() {
+		final NavigableMap<String, Integer> testee = new AvlTreeMap<>();
+		assertThat(testee).isEmpty();
+
+		assertThat(testee.put("b", 2)).isNull();
+		assertThat(testee.put("a", 1)).isNull();
+		assertThat(testee.put("c", 3)).isNull();
+		assertThat(testee.put("b", 20)).isEqualTo(2);
+		assertThat(testee).hasSize(3);
+		assertThat(testee.keySet()).containsExactly("a", "b", "c");
+		assertThat(testee.values()).containsExactly(1, 20, 3);
+		assertThat(testee.get("b")).isEqualTo(20);
+		assertThat(testee.get("d")).isNull();
+		assertThat(testee.toString()).isEqualTo("{a=1, b=20, c=3}");
+
+		assertThat(testee.remove("a")).isEqualTo(1);
+		assertThat(testee.remove("a")).isNull();
+		assertThat(testee.containsKey("a")).isFalse();
+		assertThat(testee).hasSize(2);
+	}
+
+	@Test
+	void randomizedTest() {
+		// все изменяющие операции против TreeMap
+		final AvlTreeMap<Integer, Integer> testee = new AvlTreeMap<>();
+		final TreeMap<Integer, Integer> model = new TreeMap<>();
+		final Random random = new Random();
+		for(int i=0; i<20000; i++) {
+			final Integer key = random.nextInt(300);
+			final Integer value = random.nextInt(5)==0 ? null : random.nextInt(10);
+			switch(random.nextInt(8)) {
+				case 0:
+					assertThat(testee.put(key, value)).isEqualTo(model.put(key, value));
+					break;
+				case 1:
+					assertThat(testee.remove(key)).isEqualTo(model.remove(key));
+					break;
+				case 2:
+					assertThat(testee.putIfAbsent(key, value)).isEqualTo(model.putIfAbsent(key, value));
+					break;
+				case 3:
+					assertThat(testee.compute(key, (k, v) -> v==null ? value : value==null ? null : v + value))
+							.isEqualTo(model.compute(key, (k, v) -> v==null ? value : value==null ? null : v + value));
+					break;
+				case 4:
+					assertThat(testee.computeIfAbsent(key, k -> value)).isEqualTo(model.computeIfAbsent(key, k -> value));
+					break;
+				case 5:
+					assertThat(testee.computeIfPresent(key, (k, v) -> value)).isEqualTo(model.computeIfPresent(key, (k, v) -> value));
+					break;
+				case 6:
+					if(value!=null) {
+						assertThat(testee.merge(key, value, (a, b) -> a + b>12 ? null : a + b))
+								.isEqualTo(model.merge(key, value, (a, b) -> a + b>12 ? null : a + b));
+					}
+					break;
+				default:
+					assertThat(testee.get(key)).isEqualTo(model.get(key));
+					assertThat(testee.containsKey(key)).isEqualTo(model.containsKey(key));
+			}
+			assertThat(testee.size()).isEqualTo(model.size());
+		}
+		assertThat(testee).isEqualTo(model);
+		assertThat(model).isEqualTo(testee);
+		assertThat(testee.hashCode()).isEqualTo(model.hashCode());
+	}
+
+	@Test
+	void navigationTest() {
+		final AvlTreeMap<Integer, String> testee = new AvlTreeMap<>();
+		final TreeMap<Integer, String> model = new TreeMap<>();
+		for(int key=0; key<100; key+=3) {
+			testee.put(key, "v" + key);
+			model.put(key, "v" + key);
+		}
+		for(int key=-2; key<102; key++) {
+			assertThat(testee.lowerEntry(key)).isEqualTo(model.lowerEntry(key));
+			assertThat(testee.floorKey(key)).isEqualTo(model.floorKey(key));
+			assertThat(testee.ceilingEntry(key)).isEqualTo(model.ceilingEntry(key));
+			assertThat(testee.higherKey(key)).isEqualTo(model.higherKey(key));
+		}
+		assertThat(testee.firstEntry()).isEqualTo(model.firstEntry());
+		assertThat(testee.lastKey()).isEqualTo(model.lastKey());
+		assertThat(testee.pollFirstEntry()).isEqualTo(model.pollFirstEntry());
+		assertThat(testee.pollLastEntry()).isEqualTo(model.pollLastEntry());
+		assertThat(testee).isEqualTo(model);
+	}
+
+	@Test
+	void subMapTest() {
+		final AvlTreeMap<Integer, Integer> testee = new AvlTreeMap<>();
+		final TreeMap<Integer, Integer> model = new TreeMap<>();
+		for(int key=0; key<100; key+=2) {
+			testee.put(key, -key);
+			model.put(key, -key);
+		}
+		checkView(testee.subMap(10, true, 50, false), model.subMap(10, true, 50, false));
+		checkView(testee.headMap(31, true), model.headMap(31, true));
+		checkView(testee.tailMap(90, false), model.tailMap(90, false));
+		checkView(testee.descendingMap(), model.descendingMap());
+		checkView(testee.descendingMap().subMap(60, true, 20, true), model.descendingMap().subMap(60, true, 20, true));
+		checkView(testee.subMap(10, true, 50, false).headMap(30, false).descendingMap(), model.subMap(10, true, 50, false).headMap(30, false).descendingMap());
+
+		Assertions.assertThrows(IllegalArgumentException.class, () -> testee.subMap(10, 20).put(30, 0));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> testee.subMap(10, 20).subMap(0, 15));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> testee.subMap(20, 10));
+
+		testee.subMap(10, 50).clear();
+		model.subMap(10, 50).clear();
+		assertThat(testee).isEqualTo(model);
+		assertThat(testee.descendingKeySet()).containsExactlyElementsOf(model.descendingKeySet());
+	}
+
+	@Test
+	void comparatorTest() {
+		final Comparator<Integer> reverse = Comparator.reverseOrder();
+		final AvlTreeMap<Integer, Integer> testee = new AvlTreeMap<>(reverse);
+		final TreeMap<Integer, Integer> model = new TreeMap<>(reverse);
+		for(int key=0; key<100; key+=2) {
+			testee.put(key, -key);
+			model.put(key, -key);
+		}
+		Assertions.assertSame(reverse, testee.comparator());
+		checkView(testee, model);
+		checkView(testee.subMap(50, true, 10, false), model.subMap(50, true, 10, false));
+		checkView(testee.headMap(31, true), model.headMap(31, true));
+		checkView(testee.descendingMap().tailMap(60, false), model.descendingMap().tailMap(60, false));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> testee.subMap(10, 20));
+
+		final Iterator<Integer> iterator = testee.keySet().iterator();
+		while(iterator.hasNext()) {
+			if(iterator.next()%4==0) {
+				iterator.remove();
+			}
+		}
+		model.keySet().removeIf(key -> key%4==0);
+		assertThat(testee).isEqualTo(model);
+		assertThat(testee.keySet()).containsExactlyElementsOf(model.keySet());
+	}
+
+	private static void checkView(NavigableMap<Integer, Integer> testee, NavigableMap<Integer, Integer> model) {
+		assertThat(testee.size()).isEqualTo(model.size());
+		assertThat(testee.keySet()).containsExactlyElementsOf(model.keySet());
+		assertThat(testee.values()).containsExactlyElementsOf(model.values());
+		assertThat(testee.entrySet()).containsExactlyElementsOf(model.entrySet());
+		assertThat(testee.descendingKeySet()).containsExactlyElementsOf(model.descendingKeySet());
+		assertThat(testee.firstEntry()).isEqualTo(model.firstEntry());
+		assertThat(testee.lastKey()).isEqualTo(model.lastKey());
+		for(int key=-1; key<101; key++) {
+			assertThat(testee.get(key)).isEqualTo(model.get(key));
+			assertThat(testee.lowerKey(key)).isEqualTo(model.lowerKey(key));
+			assertThat(testee.floorEntry(key)).isEqualTo(model.floorEntry(key));
+			assertThat(testee.ceilingKey(key)).isEqualTo(model.ceilingKey(key));
+			assertThat(testee.higherEntry(key)).isEqualTo(model.higherEntry(key));
+		}
+	}
+
+	@Test
+	void entrySetTest() {
+		final AvlTreeMap<Integer, Integer> testee = new AvlTreeMap<>();
+		for(int key=0; key<1000; key++) {
+			testee.put(key, key);
+		}
+		// setValue пишет прямо в дерево, remove итератора не ломает обход
+		final Iterator<Map.Entry<Integer, Integer>> iterator = testee.entrySet().iterator();
+		while(iterator.hasNext()) {
+			final Map.Entry<Integer, Integer> entry = iterator.next();
+			if(entry.getKey()%3==0) {
+				iterator.remove();
+			} else {
+				entry.setValue(-entry.getKey());
+			}
+		}
+		final List<Integer> keys = new ArrayList<>();
+		for(int key=0; key<1000; key++) {
+			if(key%3!=0) {
+				keys.add(key);
+				assertThat(testee.get(key)).isEqualTo(-key);
+			}
+		}
+		assertThat(testee.keySet()).containsExactlyElementsOf(keys);
+		assertThat(testee.entrySet().contains(new AbstractMap.SimpleEntry<>(1, -1))).isTrue();
+		assertThat(testee.entrySet().remove(new AbstractMap.SimpleEntry<>(2, 2))).isFalse();
+		assertThat(testee.entrySet().remove(new AbstractMap.SimpleEntry<>(2, -2))).isTrue();
+		assertThat(testee.containsKey(2)).isFalse();
+	}
+
+	@Test
+	void reentrantTest() {
+		final AvlTreeMap<Integer, Integer> testee = new AvlTreeMap<>();
+		for(int key=0; key<100; key+=2) {
+			testee.put(key, key);
+		}
+		// функция, которая сама меняет значения, затирает общий путь: вставка должна найти место заново
+		assertThat(testee.computeIfAbsent(51, key -> {
+			testee.put(10, 11);
+			testee.merge(90, 1, Integer::sum);
+			return 5;
+		})).isEqualTo(5);
+		assertThat(testee.get(51)).isEqualTo(5);
+		assertThat(testee.get(10)).isEqualTo(11);
+		assertThat(testee.get(90)).isEqualTo(91);
+		assertThat(testee.keySet()).containsExactlyElementsOf(new TreeMap<>(testee).keySet());
+
+		// структурное изменение внутри функции
+		Assertions.assertThrows(ConcurrentModificationException.class, () -> testee.compute(53, (key, value) -> {
+			testee.remove(52);
+			return 1;
+		}));
+	}
+
+	@Test
+	void counterTest() {
+		final AvlTreeMap<String, Long> testee = new AvlTreeMap<>();
+		final Random random = new Random();
+		final long[] expected = new long[26];
+		for(int i=0; i<10000; i++) {
+			final int letter = random.nextInt(26);
+			expected[letter]++;
+			testee.merge(String.valueOf((char) ('a' + letter)), 1L, Long::sum);
+		}
+		for(int letter=0; letter<26; letter++) {
+			assertThat(testee.getOrDefault(String.valueOf((char) ('a' + letter)), 0L)).isEqualTo(expected[letter]);
+		}
+	}
+
+}
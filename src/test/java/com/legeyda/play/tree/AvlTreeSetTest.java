@@ -1,11 +1,29 @@
 package com.legeyda.play.tree;
 
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
 import java.util.Random;
 import java.util.Set;
+import java.util.Spliterator;
 import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -69,6 +87,311 @@ public class AvlTreeSetTest {
 		}
 	}
 
+	@Test
+	void orderStatisticTest() {
+		final AvlTreeSet<Integer> testee = new AvlTreeSet<>();
+		final TreeSet<Integer> model = new TreeSet<>();
+		final Random random = new Random();
+		for(int i=0; i<2000; i++) {
+			final Integer value = random.nextInt(1000);
+			testee.add(value);
+			model.add(value);
+			assertThat(testee.size()).isEqualTo(model.size());
+		}
+
+		final List<Integer> sorted = new ArrayList<>(model);
+		for(int k=0; k<sorted.size(); k++) {
+			assertThat(testee.select(k)).isEqualTo(sorted.get(k));
+		}
+		for(int value=-1; value<=1001; value++) {
+			assertThat(testee.rank(value)).isEqualTo(model.headSet(value).size());
+		}
+		for(int i=0; i<100; i++) {
+			final int lo = random.nextInt(1000), hi = lo + random.nextInt(200);
+			assertThat(testee.countRange(lo, hi)).isEqualTo(model.subSet(lo, hi).size());
+		}
+		assertThat(testee.countRange(500, 100)).isEqualTo(0);
+	}
+
+	@Test
+	void removeTest() {
+		final AvlTreeSet<Integer> testee = new AvlTreeSet<>();
+		final Set<Integer> model = new TreeSet<>();
+		final Random random = new Random();
+		for(int i=0; i<10000; i++) {
+			final Integer value = random.nextInt(200);
+			if(random.nextBoolean()) {
+				assertThat(testee.add(value)).isEqualTo(model.add(value));
+			} else {
+				assertThat(testee.remove(value)).isEqualTo(model.remove(value));
+			}
+			assertThat(testee.size()).isEqualTo(model.size());
+		}
+		assertThat(testee).containsExactlyElementsOf(model);
+	}
+
+	@Test
+	void sequentialTest() {
+		final AvlTreeSet<Integer> testee = new AvlTreeSet<>();
+		for(int i=0; i<100000; i++) {
+			assertThat(testee.add(i)).isTrue();
+		}
+		for(int i=0; i<100000; i+=2) {
+			assertThat(testee.remove(i)).isTrue();
+		}
+		assertThat(testee.size()).isEqualTo(50000);
+		for(int i=0; i<100000; i++) {
+			assertThat(testee.contains(i)).isEqualTo(i%2==1);
+		}
+		assertThat(testee.remove(-1)).isFalse();
+	}
+
+	@Test
+	void fromSortedTest() {
+		assertThat(AvlTreeSet.fromSorted(new Integer[] {})).isEmpty();
+		assertThat(AvlTreeSet.fromSorted(new Integer[] {1, 2, 2, 3, 5, 5, 5, 8}))
+				.hasSize(5).containsExactly(1, 2, 3, 5, 8);
+		assertThat(AvlTreeSet.fromSorted(Arrays.asList(1, 1, 4, 9).iterator()))
+				.hasSize(3).containsExactly(1, 4, 9);
+		Assertions.assertThrows(IllegalArgumentException.class, () -> AvlTreeSet.fromSorted(new Integer[] {1, 3, 2}));
+
+		final TreeSet<Integer> model = new TreeSet<>();
+		final Random random = new Random();
+		for(int i=0; i<1000; i++) {
+			model.add(random.nextInt(10000));
+		}
+		final AvlTreeSet<Integer> testee = AvlTreeSet.fromSorted(model.spliterator());
+		assertThat(testee).hasSize(model.size()).containsExactlyElementsOf(model);
+		for(Integer value : model.headSet(5000)) {
+			testee.remove(value);
+		}
+		assertThat(testee).containsExactlyElementsOf(model.tailSet(5000));
+	}
+
+	@Test
+	void fromSortedComparatorTest() {
+		final Comparator<Integer> reverse = Comparator.reverseOrder();
+		final AvlTreeSet<Integer> descending = AvlTreeSet.fromSorted(reverse, new Integer[] {9, 4, 4, 1});
+		assertThat(descending).containsExactly(9, 4, 1);
+		Assertions.assertSame(reverse, descending.comparator());
+		assertThat(AvlTreeSet.fromSorted(reverse, Arrays.asList(3, 3, 2).iterator())).containsExactly(3, 2);
+		Assertions.assertThrows(IllegalArgumentException.class, () -> AvlTreeSet.fromSorted(reverse, new Integer[] {1, 2}));
+
+		final TreeSet<Integer> model = new TreeSet<>(reverse);
+		final Random random = new Random();
+		for(int i=0; i<1000; i++) {
+			model.add(random.nextInt(10000));
+		}
+		assertThat(AvlTreeSet.fromSorted(reverse, model.spliterator())).containsExactlyElementsOf(model);
+		// порядок сплитератора не совпадает с заданным, поэтому элементы проверяются по одному
+		Assertions.assertThrows(IllegalArgumentException.class, () -> AvlTreeSet.fromSorted(model.spliterator()));
+
+		final AvlTreeSet<byte[]> bytes = AvlTreeSet.fromSorted(AvlTreeSet.BYTES_LEXICOGRAPHIC,
+				new byte[][] {{1}, {1, 0}, {(byte) 0x80}});
+		assertThat(bytes).hasSize(3);
+		assertThat(bytes.contains(new byte[] {1, 0})).isTrue();
+		final AvlTreeSet<String> strings = AvlTreeSet.fromSorted(new String[] {"a", "b", "b", "c"});
+		assertThat(strings).containsExactly("a", "b", "c");
+		assertThat(AvlTreeSet.fromSorted(Arrays.asList("x", "y").iterator())).containsExactly("x", "y");
+	}
+
+	@Test
+	void addAllSortedTest() {
+		final Random random = new Random();
+		for(int round=0; round<20; round++) {
+			final AvlTreeSet<Integer> testee = new AvlTreeSet<>();
+			final TreeSet<Integer> model = new TreeSet<>();
+			for(int i=random.nextInt(500); i>0; i--) {
+				final Integer value = random.nextInt(2000);
+				testee.add(value);
+				model.add(value);
+			}
+			final TreeSet<Integer> addition = new TreeSet<>();
+			for(int i=random.nextInt(500); i>0; i--) {
+				addition.add(random.nextInt(2000));
+			}
+			assertThat(testee.addAll(addition)).isEqualTo(model.addAll(addition));
+			assertThat(testee).hasSize(model.size()).containsExactlyElementsOf(model);
+			for(int value=0; value<2000; value+=3) {
+				assertThat(testee.add(value)).isEqualTo(model.add(value));
+			}
+			assertThat(testee.headSet(1000)).hasSize(model.headSet(1000).size());
+		}
+
+		// слияние без новых элементов не перестраивает дерево под живым итератором
+		final AvlTreeSet<Integer> testee = new AvlTreeSet<>();
+		for(int i=0; i<64; i++) {
+			testee.add(i);
+		}
+		final Iterator<Integer> iterator = testee.iterator();
+		assertThat(testee.addAll(new TreeSet<>(testee))).isFalse();
+		final List<Integer> iterated = new ArrayList<>();
+		iterator.forEachRemaining(iterated::add);
+		assertThat(iterated).containsExactlyElementsOf(testee);
+	}
+
+	@Test
+	void setOperationsTest() {
+		final Random random = new Random();
+		for(int round=0; round<30; round++) {
+			// крупные раунды проходят через ForkJoinPool
+			final int bound = round%10==0 ? 100000 : 2000;
+			final TreeSet<Integer> first = new TreeSet<>(), second = new TreeSet<>();
+			for(int i=random.nextInt(bound); i>0; i--) {
+				first.add(random.nextInt(bound));
+			}
+			for(int i=random.nextInt(bound); i>0; i--) {
+				second.add(random.nextInt(bound));
+			}
+			final AvlTreeSet<Integer> other = AvlTreeSet.fromSorted(second.iterator());
+
+			final AvlTreeSet<Integer> union = AvlTreeSet.fromSorted(first.iterator());
+			final TreeSet<Integer> unionModel = new TreeSet<>(first);
+			assertThat(union.addAll(other)).isEqualTo(unionModel.addAll(second));
+			assertThat(union).hasSize(unionModel.size()).containsExactlyElementsOf(unionModel);
+
+			final AvlTreeSet<Integer> intersection = AvlTreeSet.fromSorted(first.iterator());
+			final TreeSet<Integer> intersectionModel = new TreeSet<>(first);
+			assertThat(intersection.retainAll(other)).isEqualTo(intersectionModel.retainAll(second));
+			assertThat(intersection).hasSize(intersectionModel.size()).containsExactlyElementsOf(intersectionModel);
+
+			final AvlTreeSet<Integer> difference = AvlTreeSet.fromSorted(first.iterator());
+			final TreeSet<Integer> differenceModel = new TreeSet<>(first);
+			assertThat(difference.removeAll(other)).isEqualTo(differenceModel.removeAll(second));
+			assertThat(difference).hasSize(differenceModel.size()).containsExactlyElementsOf(differenceModel);
+
+			// аргумент не должен измениться, а результат должен остаться рабочим деревом
+			assertThat(other).hasSize(second.size()).containsExactlyElementsOf(second);
+			for(int i=0; i<100; i++) {
+				final Integer value = random.nextInt(bound);
+				assertThat(union.add(value)).isEqualTo(unionModel.add(value));
+				assertThat(difference.remove(value)).isEqualTo(differenceModel.remove(value));
+			}
+			assertThat(union.headSet(bound / 2)).hasSize(unionModel.headSet(bound / 2).size());
+			assertThat(difference).containsExactlyElementsOf(differenceModel);
+		}
+
+		// операции, не меняющие состав, всё равно перестраивают дерево, и живой итератор должен это заметить
+		final AvlTreeSet<Integer> testee = AvlTreeSet.fromSorted(new Integer[] {1, 2, 3, 4, 5, 6, 7, 8});
+		final AvlTreeSet<Integer> subset = AvlTreeSet.fromSorted(new Integer[] {2, 4});
+		final AvlTreeSet<Integer> disjoint = AvlTreeSet.fromSorted(new Integer[] {100});
+		final List<Runnable> noOps = Arrays.asList(() -> testee.addAll(subset), () -> testee.removeAll(disjoint));
+		for(Runnable noOp : noOps) {
+			final Iterator<Integer> iterator = testee.iterator();
+			iterator.next();
+			noOp.run();
+			Assertions.assertThrows(ConcurrentModificationException.class, iterator::next);
+			assertThat(testee).containsExactly(1, 2, 3, 4, 5, 6, 7, 8);
+		}
+	}
+
+	@Test
+	void spliteratorTest() {
+		final AvlTreeSet<Integer> testee = new AvlTreeSet<>();
+		for(int i=0; i<10000; i++) {
+			testee.add(i);
+		}
+
+		final Spliterator<Integer> spliterator = testee.spliterator();
+		assertThat(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED
+				| Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.ORDERED)).isTrue();
+		assertThat(spliterator.getComparator()).isNull();
+		assertThat(spliterator.tryAdvance(value -> assertThat(value).isEqualTo(0))).isTrue();
+		final Spliterator<Integer> prefix = spliterator.trySplit();
+		assertThat(prefix.estimateSize() + spliterator.estimateSize()).isEqualTo(9999L);
+		final List<Integer> trace = new ArrayList<>();
+		prefix.forEachRemaining(trace::add);
+		spliterator.forEachRemaining(trace::add);
+		assertThat(trace).hasSize(9999).isSorted();
+		assertThat(trace.get(0)).isEqualTo(1);
+
+		assertThat(testee.parallelStream().mapToLong(Integer::longValue).sum()).isEqualTo(9999L * 10000 / 2);
+		assertThat(testee.subSet(100, 200).parallelStream().collect(Collectors.toList()))
+				.containsExactlyElementsOf(new TreeSet<>(testee).subSet(100, 200));
+		assertThat(testee.descendingSet().headSet(9990).stream().collect(Collectors.toList()))
+				.containsExactly(9999, 9998, 9997, 9996, 9995, 9994, 9993, 9992, 9991);
+	}
+
+	@Test
+	void navigableTest() {
+		final AvlTreeSet<Integer> testee = new AvlTreeSet<>();
+		final TreeSet<Integer> model = new TreeSet<>();
+		final Random random = new Random();
+		for(int i=0; i<300; i++) {
+			final Integer value = random.nextInt(1000);
+			testee.add(value);
+			model.add(value);
+		}
+
+		assertNavigableEquals(model, testee);
+		assertNavigableEquals(model.descendingSet(), testee.descendingSet());
+		for(int i=0; i<50; i++) {
+			final int lo = random.nextInt(1000), hi = lo + 2 + random.nextInt(300);
+			final boolean loInclusive = random.nextBoolean(), hiInclusive = random.nextBoolean();
+			assertNavigableEquals(model.headSet(hi, hiInclusive), testee.headSet(hi, hiInclusive));
+			assertNavigableEquals(model.tailSet(lo, loInclusive), testee.tailSet(lo, loInclusive));
+			assertNavigableEquals(
+					model.subSet(lo, loInclusive, hi, hiInclusive),
+					testee.subSet(lo, loInclusive, hi, hiInclusive));
+			assertNavigableEquals(
+					model.subSet(lo, loInclusive, hi, hiInclusive).descendingSet().headSet((lo + hi) / 2, true),
+					testee.subSet(lo, loInclusive, hi, hiInclusive).descendingSet().headSet((lo + hi) / 2, true));
+		}
+
+		assertThat(testee.pollFirst()).isEqualTo(model.pollFirst());
+		assertThat(testee.pollLast()).isEqualTo(model.pollLast());
+		assertThat(testee.headSet(500, false).pollLast()).isEqualTo(model.headSet(500, false).pollLast());
+		assertNavigableEquals(model, testee);
+	}
+
+	@Test
+	void viewTest() {
+		final AvlTreeSet<Integer> testee = new AvlTreeSet<>();
+		for(int i=0; i<100; i++) {
+			testee.add(i);
+		}
+		final NavigableSet<Integer> view = testee.subSet(10, true, 20, false);
+		assertThat(view).hasSize(10);
+
+		testee.add(-1);
+		testee.remove(15);
+		assertThat(view).hasSize(9).doesNotContain(15);
+		assertThat(view.add(15)).isTrue();
+		assertThat(testee).contains(15);
+		Assertions.assertThrows(IllegalArgumentException.class, () -> view.add(20));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> view.subSet(5, 15));
+
+		for(Iterator<Integer> iterator = view.iterator(); iterator.hasNext(); ) {
+			if(iterator.next()%2==0) {
+				iterator.remove();
+			}
+		}
+		assertThat(view).containsExactly(11, 13, 15, 17, 19);
+		assertThat(testee).hasSize(96);
+
+		final Iterator<Integer> iterator = testee.iterator();
+		iterator.next();
+		testee.add(1000);
+		Assertions.assertThrows(ConcurrentModificationException.class, iterator::next);
+	}
+
+	private static void assertNavigableEquals(NavigableSet<Integer> expected, NavigableSet<Integer> actual) {
+		assertThat(actual).hasSize(expected.size()).containsExactlyElementsOf(expected);
+		assertThat(actual.isEmpty()).isEqualTo(expected.isEmpty());
+		assertThat(actual.descendingSet()).containsExactlyElementsOf(expected.descendingSet());
+		if(!expected.isEmpty()) {
+			assertThat(actual.first()).isEqualTo(expected.first());
+			assertThat(actual.last()).isEqualTo(expected.last());
+		}
+		for(int value=-1; value<=1001; value+=7) {
+			assertThat(actual.lower(value)).isEqualTo(expected.lower(value));
+			assertThat(actual.floor(value)).isEqualTo(expected.floor(value));
+			assertThat(actual.ceiling(value)).isEqualTo(expected.ceiling(value));
+			assertThat(actual.higher(value)).isEqualTo(expected.higher(value));
+			assertThat(actual.contains(value)).isEqualTo(expected.contains(value));
+		}
+	}
+
 
 	@Test
 	void printTest() {
@@ -94,4 +417,327 @@ public class AvlTreeSetTest {
 "    61");
 	}
 
+	@Test
+	void printLevelsTest() throws IOException {
+		final AvlTreeSet<Integer> testee = new AvlTreeSet<>();
+		testee.addAll(Arrays.asList(100, 50, 150, 175, 75, 60, 61));
+
+		final StringBuilder builder = new StringBuilder();
+		testee.print(builder, 3);
+
+		assertThat(builder.toString()).isEqualTo(
+"     100\n" +
+"  --------\n" +
+"  60   150\n" +
+"------ -----\n" +
+"50  75   175");
+	}
+
+	@Test
+	void printAroundTest() throws IOException {
+		final AvlTreeSet<Integer> testee = new AvlTreeSet<>();
+		testee.addAll(Arrays.asList(100, 50, 150, 175, 75, 60, 61));
+
+		final StringBuilder builder = new StringBuilder();
+		testee.printAround(75, 1, Integer.MAX_VALUE, builder);
+		assertThat(builder.toString()).isEqualTo(
+"  60\n" +
+"--------\n" +
+"50    75\n" +
+"    ----\n" +
+"    61");
+
+		// отсутствующее значение: окрестность места, где оно было бы
+		builder.setLength(0);
+		testee.printAround(70, 1, 2, builder);
+		assertThat(builder.toString()).isEqualTo(
+"  75\n" +
+"----\n" +
+"61");
+
+		builder.setLength(0);
+		testee.printAround(75, 10, 2, builder);
+		assertThat(builder.toString()).isEqualTo(
+" 100\n" +
+"------\n" +
+"60 150");
+	}
+
+	@Test
+	void comparatorTest() {
+		final AvlTreeSet<Integer> testee = new AvlTreeSet<>(Comparator.reverseOrder());
+		final TreeSet<Integer> model = new TreeSet<>(Comparator.reverseOrder());
+		final Random random = new Random();
+		for(int i=0; i<10000; i++) {
+			final Integer value = random.nextInt(500);
+			if(random.nextInt(3)==0) {
+				assertThat(testee.remove(value)).isEqualTo(model.remove(value));
+			} else {
+				assertThat(testee.add(value)).isEqualTo(model.add(value));
+			}
+		}
+		assertThat(testee).containsExactlyElementsOf(model);
+		assertThat(testee.comparator()).isEqualTo(model.comparator());
+		for(int value=-1; value<=501; value++) {
+			assertThat(testee.ceiling(value)).isEqualTo(model.ceiling(value));
+			assertThat(testee.lower(value)).isEqualTo(model.lower(value));
+		}
+		assertThat(testee.subSet(400, true, 100, false)).containsExactlyElementsOf(model.subSet(400, true, 100, false));
+		assertThat(testee.descendingSet()).containsExactlyElementsOf(model.descendingSet());
+		Assertions.assertThrows(IllegalArgumentException.class, () -> testee.subSet(100, 400));
+	}
+
+	@Test
+	void keyExtractorTest() {
+		// порядок по полю без обёрток, элементы с равным ключом считаются одинаковыми
+		final AvlTreeSet<int[]> testee = new AvlTreeSet<>(Comparator.comparingInt(pair -> pair[1]));
+		assertThat(testee.add(new int[] {1, 30})).isTrue();
+		assertThat(testee.add(new int[] {2, 10})).isTrue();
+		assertThat(testee.add(new int[] {3, 20})).isTrue();
+		assertThat(testee.add(new int[] {4, 20})).isFalse();
+		assertThat(testee.stream().map(pair -> pair[0]).collect(Collectors.toList())).containsExactly(2, 3, 1);
+		assertThat(testee.contains(new int[] {0, 30})).isTrue();
+	}
+
+	@Test
+	void fastPathTest() {
+		final Random random = new Random();
+		final AvlTreeSet<String> strings = AvlTreeSet.ofStrings();
+		final AvlTreeSet<Integer> integers = AvlTreeSet.ofIntegers();
+		final AvlTreeSet<Long> longs = AvlTreeSet.ofLongs();
+		final TreeSet<String> stringModel = new TreeSet<>();
+		final TreeSet<Integer> integerModel = new TreeSet<>();
+		final TreeSet<Long> longModel = new TreeSet<>();
+		for(int i=0; i<5000; i++) {
+			final int value = random.nextInt(2000) - 1000;
+			assertThat(strings.add(Integer.toString(value))).isEqualTo(stringModel.add(Integer.toString(value)));
+			assertThat(integers.add(value)).isEqualTo(integerModel.add(value));
+			assertThat(longs.add((long) value << 32)).isEqualTo(longModel.add((long) value << 32));
+		}
+		assertThat(strings).containsExactlyElementsOf(stringModel);
+		assertThat(integers).containsExactlyElementsOf(integerModel);
+		assertThat(longs).containsExactlyElementsOf(longModel);
+		assertThat(strings.comparator()).isNull();
+
+		// естественный порядок совпадает, поэтому объединение идёт через split/join
+		final AvlTreeSet<Integer> natural = new AvlTreeSet<>();
+		natural.addAll(Arrays.asList(5000, 6000));
+		natural.addAll(integers);
+		assertThat(natural).hasSize(integerModel.size() + 2);
+	}
+
+	@Test
+	void byteArraysTest() {
+		final AvlTreeSet<byte[]> testee = AvlTreeSet.ofByteArrays();
+		testee.add(new byte[] {1, 2});
+		testee.add(new byte[] {(byte) 0xff});
+		testee.add(new byte[] {1});
+		testee.add(new byte[] {});
+		testee.add(new byte[] {1, (byte) 0x80});
+		assertThat(testee.add(new byte[] {1, 2})).isFalse();
+		assertThat(testee.stream().map(Arrays::toString).collect(Collectors.toList()))
+				.containsExactly("[]", "[1]", "[1, 2]", "[1, -128]", "[-1]");
+		assertThat(testee.contains(new byte[] {1, (byte) 0x80})).isTrue();
+		assertThat(testee.comparator()).isEqualTo(AvlTreeSet.BYTES_LEXICOGRAPHIC);
+	}
+
+	@Test
+	void differentOrderTest() {
+		// split/join между деревьями с разным порядком невозможен, остаётся поэлементное объединение
+		final AvlTreeSet<Integer> ascending = new AvlTreeSet<>();
+		final AvlTreeSet<Integer> descending = new AvlTreeSet<>(Comparator.reverseOrder());
+		ascending.addAll(Arrays.asList(1, 2, 3, 4));
+		descending.addAll(Arrays.asList(3, 4, 5, 6));
+		assertThat(ascending.addAll(descending)).isTrue();
+		assertThat(ascending).containsExactly(1, 2, 3, 4, 5, 6);
+		assertThat(descending.removeAll(ascending)).isTrue();
+		assertThat(descending).isEmpty();
+		descending.addAll(Arrays.asList(7, 5, 3));
+		assertThat(descending.retainAll(ascending)).isTrue();
+		assertThat(descending).containsExactly(5, 3);
+	}
+
+	@Test
+	void snapshotTest() throws IOException {
+		final AvlTreeSet<Long> testee = AvlTreeSet.ofLongs();
+		final Random random = new Random();
+		for(int i=0; i<100000; i++) {
+			testee.add(random.nextLong() % 1000000);
+		}
+		for(ElementCodec<Long> codec : Arrays.asList(ElementCodec.LONG, ElementCodec.LONG_DELTA)) {
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			testee.writeTo(Channels.newChannel(bytes), codec);
+
+			final AvlTreeSet<Long> loaded = AvlTreeSet.ofLongs();
+			loaded.add(42L);
+			loaded.readFrom(Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())), codec);
+			assertThat(loaded).hasSize(testee.size()).containsExactlyElementsOf(testee);
+			// загруженное дерево остаётся рабочим
+			assertThat(loaded.add(2000000L)).isTrue();
+			assertThat(loaded.remove(testee.first())).isTrue();
+		}
+
+		final AvlTreeSet<String> strings = new AvlTreeSet<>(Comparator.reverseOrder());
+		strings.addAll(Arrays.asList("b", "a", "c", "ы"));
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		strings.writeTo(Channels.newChannel(bytes), ElementCodec.STRING);
+		final AvlTreeSet<String> loaded = new AvlTreeSet<>(Comparator.reverseOrder());
+		loaded.readFrom(Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())), ElementCodec.STRING);
+		assertThat(loaded).containsExactly("ы", "c", "b", "a");
+	}
+
+	@Test
+	void corruptedSnapshotTest() throws IOException {
+		final AvlTreeSet<Integer> testee = new AvlTreeSet<>();
+		testee.addAll(Arrays.asList(1, 2, 3));
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		testee.writeTo(Channels.newChannel(bytes), ElementCodec.INTEGER);
+		final byte[] snapshot = bytes.toByteArray();
+
+		// обрезанный снимок
+		final AvlTreeSet<Integer> target = new AvlTreeSet<>();
+		target.add(100);
+		Assertions.assertThrows(EOFException.class, () -> target.readFrom(
+				Channels.newChannel(new ByteArrayInputStream(Arrays.copyOf(snapshot, snapshot.length - 1))), ElementCodec.INTEGER));
+		assertThat(target).containsExactly(100);
+
+		// нарушенный порядок: элементы 1, 2, 3 записаны в последних 12 байтах
+		final byte[] unordered = snapshot.clone();
+		unordered[unordered.length - 1] = 2;
+		Assertions.assertThrows(IOException.class, () -> target.readFrom(
+				Channels.newChannel(new ByteArrayInputStream(unordered)), ElementCodec.INTEGER));
+
+		final byte[] foreign = snapshot.clone();
+		foreign[0] = 0;
+		Assertions.assertThrows(IOException.class, () -> target.readFrom(
+				Channels.newChannel(new ByteArrayInputStream(foreign)), ElementCodec.INTEGER));
+		assertThat(target).containsExactly(100);
+	}
+
+	@Test
+	void statisticsTest() throws Exception {
+		final AvlTreeSet<Integer> testee = new AvlTreeSet<>();
+		testee.add(10);
+		assertThat(testee.statistics().getAdds()).isEqualTo(0);
+		assertThat(testee.statistics().getSize()).isEqualTo(1);
+
+		testee.clear();
+		testee.enableStatistics();
+		testee.add(1);
+		testee.add(2);
+		testee.add(3); // малый поворот
+		testee.add(2); // повтор, найден в корне
+		Assertions.assertTrue(testee.contains(3));
+		testee.iterator();
+
+		final TreeStatistics statistics = testee.statistics();
+		assertThat(statistics.getAdds()).isEqualTo(3);
+		assertThat(statistics.getDuplicates()).isEqualTo(1);
+		assertThat(statistics.getSingleRotations()).isEqualTo(1);
+		assertThat(statistics.getDoubleRotations()).isEqualTo(0);
+		// спуски: add(2) - 1 нода, add(3) - 2, повтор add(2) - 1, contains(3) - 2
+		assertThat(statistics.getDescents()).isEqualTo(4);
+		assertThat(statistics.getMaxDescentDepth()).isEqualTo(2);
+		assertThat(statistics.getAverageDescentDepth()).isEqualTo(1.5);
+		assertThat(statistics.getIterators()).isEqualTo(1);
+		assertThat(statistics.getHeight()).isEqualTo(2);
+		assertThat(statistics.getSize()).isEqualTo(3);
+
+		final AvlTreeSet<Integer> zigzag = new AvlTreeSet<>();
+		zigzag.enableStatistics();
+		zigzag.addAll(Arrays.asList(3, 1, 2));
+		Assertions.assertTrue(zigzag.remove(3));
+		assertThat(zigzag.statistics().getDoubleRotations()).isEqualTo(1);
+		assertThat(zigzag.statistics().getSingleRotations()).isEqualTo(0);
+		assertThat(zigzag.statistics().getRemoves()).isEqualTo(1);
+
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		final ObjectName name = new ObjectName("com.legeyda.play.tree:type=AvlTreeSet,name=statisticsTest");
+		server.registerMBean(testee.statisticsBean(), name);
+		try {
+			testee.add(4);
+			assertThat(server.getAttribute(name, "Adds")).isEqualTo(4L);
+			assertThat(server.getAttribute(name, "Size")).isEqualTo(4);
+		} finally {
+			server.unregisterMBean(name);
+		}
+
+		testee.disableStatistics();
+		assertThat(testee.statistics().getAdds()).isEqualTo(0);
+	}
+
+	@Test
+	void fingerSearchTest() {
+		final AvlTreeSet<Integer> testee = new AvlTreeSet<>();
+		testee.enableFingerSearch();
+		testee.enableStatistics();
+		final int count = 1 << 14;
+		for(int i=0; i<count; i++) {
+			Assertions.assertTrue(testee.add(i));
+			Assertions.assertTrue(testee.contains(i));
+		}
+		// возрастающие ключи вставляются и находятся за несколько сравнений, а не за высоту дерева
+		assertThat(testee.statistics().getAverageDescentDepth()).isLessThan(3);
+		assertThat(testee.statistics().getHeight()).isLessThanOrEqualTo(15);
+		assertThat(testee.statistics().getSize()).isEqualTo(count);
+		for(int i=0; i<count; i++) {
+			assertThat(testee.select(i)).isEqualTo(i);
+		}
+
+		// кластеры случайных ключей вперемешку с удалениями
+		final Random random = new Random(42);
+		final TreeSet<Integer> expected = new TreeSet<>(testee);
+		for(int i=0; i<100000; i++) {
+			final int value = random.nextInt(10) * 100000 + random.nextInt(1000);
+			final int operation = random.nextInt(10);
+			if(operation<6) {
+				Assertions.assertEquals(expected.add(value), testee.add(value));
+			} else if(operation<9) {
+				Assertions.assertEquals(expected.contains(value), testee.contains(value));
+			} else {
+				Assertions.assertEquals(expected.remove(value), testee.remove(value));
+			}
+		}
+		assertThat(testee).containsExactlyElementsOf(expected);
+		assertThat(testee.statistics().getHeight()).isLessThanOrEqualTo(20);
+		int rank = 0;
+		for(Integer value : expected) {
+			assertThat(testee.select(rank++)).isEqualTo(value);
+		}
+
+		testee.disableFingerSearch();
+		for(Integer value : expected) {
+			Assertions.assertTrue(testee.contains(value));
+		}
+	}
+
+	@Test
+	void fingerAfterBulkOperationTest() {
+		final List<Integer> evens = new ArrayList<>();
+		for(int i=0; i<100; i+=2) {
+			evens.add(i);
+		}
+		final List<Runnable> bulkOperations = new ArrayList<>();
+		final AvlTreeSet<Integer> testee = new AvlTreeSet<>();
+		bulkOperations.add(() -> Assertions.assertFalse(testee.addAll(new TreeSet<>(evens))));
+		bulkOperations.add(() -> Assertions.assertFalse(testee.addAll(AvlTreeSet.fromSorted(new Integer[] {0, 50}))));
+		bulkOperations.add(() -> Assertions.assertFalse(testee.removeAll(AvlTreeSet.fromSorted(new Integer[] {1, 51}))));
+		bulkOperations.add(() -> Assertions.assertFalse(testee.retainAll(AvlTreeSet.fromSorted(evens.toArray(new Integer[0])))));
+		testee.enableFingerSearch();
+		for(Runnable bulkOperation : bulkOperations) {
+			testee.clear();
+			testee.addAll(evens);
+			Assertions.assertTrue(testee.contains(98));
+			bulkOperation.run();
+			for(Integer value : evens) {
+				Assertions.assertTrue(testee.contains(value));
+			}
+			Assertions.assertTrue(testee.add(1));
+			Assertions.assertTrue(testee.add(99));
+			Assertions.assertTrue(testee.add(51));
+			assertThat(testee.size()).isEqualTo(53);
+			assertThat(testee.select(26)).isEqualTo(50);
+		}
+	}
+
 }
@@ -0,0 +1,86 @@
+package com.legeyda.play.tree;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BTreeSetTest {
+
+	@Test
+	void randomizedTest() {
+		// маленькие ноды, чтобы чаще срабатывали разделение, заимствование и слияние
+		for(int capacity : new int[] {3, 4, 5, 16, 64}) {
+			final BTreeSet<Integer> testee = new BTreeSet<>(capacity);
+			final TreeSet<Integer> model = new TreeSet<>();
+			final Random random = new Random();
+			for(int i=0; i<20000; i++) {
+				final Integer value = random.nextInt(1000);
+				if(random.nextInt(3)>0) {
+					assertThat(testee.add(value)).isEqualTo(model.add(value));
+				} else {
+					assertThat(testee.remove(value)).isEqualTo(model.remove(value));
+				}
+				assertThat(testee.size()).isEqualTo(model.size());
+			}
+			assertThat(testee).containsExactlyElementsOf(model);
+			for(int value=0; value<1000; value++) {
+				assertThat(testee.contains(value)).isEqualTo(model.contains(value));
+			}
+		}
+	}
+
+	@Test
+	void sequentialTest() {
+		final BTreeSet<Integer> testee = new BTreeSet<>(4);
+		final TreeSet<Integer> model = new TreeSet<>();
+		for(int i=0; i<10000; i++) {
+			testee.add(i);
+			model.add(i);
+		}
+		assertThat(testee).hasSize(10000).containsExactlyElementsOf(model);
+		for(int i=0; i<10000; i+=2) {
+			testee.remove(i);
+			model.remove(i);
+		}
+		assertThat(testee).hasSize(5000).containsExactlyElementsOf(model);
+		for(int i=9999; i>=0; i--) {
+			assertThat(testee.remove(i)).isEqualTo(model.remove(i));
+		}
+		assertThat(testee).isEmpty();
+	}
+
+	@Test
+	void iteratorRemoveTest() {
+		final BTreeSet<Integer> testee = new BTreeSet<>(4);
+		final TreeSet<Integer> model = new TreeSet<>();
+		for(int i=0; i<1000; i++) {
+			testee.add(i);
+			model.add(i);
+		}
+		final Iterator<Integer> iterator = testee.iterator();
+		while(iterator.hasNext()) {
+			final Integer value = iterator.next();
+			if(value%3!=0) {
+				iterator.remove();
+				model.remove(value);
+			}
+		}
+		assertThat(testee).hasSize(model.size()).containsExactlyElementsOf(model);
+
+		final Iterator<Integer> another = testee.iterator();
+		another.next();
+		another.remove();
+		Assertions.assertThrows(IllegalStateException.class, another::remove);
+	}
+
+	@Test
+	void capacityTest() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new BTreeSet<Integer>(2));
+	}
+
+}
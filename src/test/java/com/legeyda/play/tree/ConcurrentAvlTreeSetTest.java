@@ -0,0 +1,132 @@
+package com.legeyda.play.tree;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConcurrentAvlTreeSetTest {
+
+	@Test
+	void randomizedTest() {
+		final Set<Integer> testee = new ConcurrentAvlTreeSet<>();
+		final Set<Integer> model = new TreeSet<>();
+		final Random random = new Random();
+		for(int i=0; i<20000; i++) {
+			final Integer value = random.nextInt(300);
+			if(random.nextInt(3)>0) {
+				assertThat(testee.add(value)).isEqualTo(model.add(value));
+			} else {
+				assertThat(testee.remove(value)).isEqualTo(model.remove(value));
+			}
+			final Integer probe = random.nextInt(300);
+			assertThat(testee.contains(probe)).isEqualTo(model.contains(probe));
+		}
+		assertThat(testee).hasSize(model.size()).containsExactlyElementsOf(model);
+	}
+
+	@Test
+	void concurrentTest() throws Exception {
+		final ConcurrentAvlTreeSet<Integer> testee = new ConcurrentAvlTreeSet<>();
+		final int threads = 8, perThread = 20000;
+		// чётные элементы присутствуют всё время, читатели обязаны их находить
+		for(int i=0; i<threads*perThread; i+=2) {
+			testee.add(i);
+		}
+
+		final ExecutorService executor = Executors.newFixedThreadPool(threads * 2);
+		try {
+			final List<Future<Boolean>> results = new ArrayList<>();
+			for(int t=0; t<threads; t++) {
+				final int from = t * perThread;
+				results.add(executor.submit(() -> {
+					for(int round=0; round<3; round++) {
+						for(int i=from+1; i<from+perThread; i+=2) {
+							testee.add(i);
+						}
+						for(int i=from+1; i<from+perThread; i+=4) {
+							testee.remove(i);
+						}
+					}
+					return true;
+				}));
+				results.add(executor.submit((Callable<Boolean>) () -> {
+					final Random random = new Random();
+					for(int i=0; i<100000; i++) {
+						if(!testee.contains(2 * random.nextInt(threads * perThread / 2))) {
+							return false;
+						}
+					}
+					return true;
+				}));
+			}
+			for(Future<Boolean> result : results) {
+				assertThat(result.get()).isTrue();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		final TreeSet<Integer> model = new TreeSet<>();
+		for(int i=0; i<threads*perThread; i++) {
+			if(i%2==0 || i%4==3) {
+				model.add(i);
+			}
+		}
+		assertThat(testee).hasSize(model.size()).containsExactlyElementsOf(model);
+	}
+
+	@Test
+	void overlappingKeysTest() throws Exception {
+		final ConcurrentAvlTreeSet<Integer> testee = new ConcurrentAvlTreeSet<>();
+		final int threads = 8, keys = 2000;
+		// успешные add минус успешные remove по каждому ключу: после остановки это 1 для присутствующих и 0 для прочих
+		final AtomicIntegerArray balance = new AtomicIntegerArray(keys);
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			final List<Future<Boolean>> results = new ArrayList<>();
+			for(int t=0; t<threads; t++) {
+				results.add(executor.submit(() -> {
+					final Random random = new Random();
+					for(int i=0; i<200000; i++) {
+						final int key = random.nextInt(keys);
+						if(random.nextBoolean()) {
+							if(testee.add(key)) {
+								balance.incrementAndGet(key);
+							}
+						} else if(testee.remove(key)) {
+							balance.decrementAndGet(key);
+						}
+					}
+					return true;
+				}));
+			}
+			for(Future<Boolean> result : results) {
+				assertThat(result.get()).isTrue();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		final TreeSet<Integer> model = new TreeSet<>();
+		for(int key=0; key<keys; key++) {
+			assertThat(balance.get(key)).isEqualTo(testee.contains(key) ? 1 : 0);
+			if(balance.get(key)==1) {
+				model.add(key);
+			}
+		}
+		assertThat(testee.size()).isEqualTo(model.size());
+		assertThat(testee).containsExactlyElementsOf(model);
+	}
+
+}
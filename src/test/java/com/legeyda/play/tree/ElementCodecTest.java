@@ -0,0 +1,91 @@
+package com.legeyda.play.tree;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ElementCodecTest {
+
+	@Test
+	public void varLongTest() throws IOException {
+		final long[] values = {0, 1, -1, 63, -64, 64, 127, 128, 300, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE};
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		// маленький буфер, чтобы числа попадали на границу буфера
+		final ChannelOutput output = new ChannelOutput(Channels.newChannel(bytes), 11);
+		for(long value : values) {
+			output.writeVarLong(value);
+			output.writeSignedVarLong(value);
+		}
+		output.flush();
+
+		final ChannelInput input = new ChannelInput(Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())), 8);
+		for(long value : values) {
+			Assertions.assertEquals(value, input.readVarLong());
+			Assertions.assertEquals(value, input.readSignedVarLong());
+		}
+		Assertions.assertThrows(EOFException.class, input::readByte);
+	}
+
+	@Test
+	public void varLongLengthTest() throws IOException {
+		assertThat(encode(ElementCodec.LONG_DELTA, Arrays.asList(1L, 2L, 3L, 1000L)).length).isEqualTo(1 + 1 + 1 + 2);
+		assertThat(encode(ElementCodec.LONG, Arrays.asList(1L, 2L, 3L, 1000L)).length).isEqualTo(4 * Long.BYTES);
+	}
+
+	@Test
+	public void roundTripTest() throws IOException {
+		check(ElementCodec.INTEGER, Arrays.asList(Integer.MIN_VALUE, -5, 0, 7, Integer.MAX_VALUE));
+		check(ElementCodec.INTEGER_DELTA, Arrays.asList(Integer.MIN_VALUE, -5, 0, 7, Integer.MAX_VALUE));
+		check(ElementCodec.LONG, Arrays.asList(Long.MIN_VALUE, -5L, 0L, 7L, Long.MAX_VALUE));
+		check(ElementCodec.LONG_DELTA, Arrays.asList(Long.MIN_VALUE, -5L, 0L, 7L, Long.MAX_VALUE));
+		// разность в обратном порядке отрицательна
+		check(ElementCodec.LONG_DELTA, Arrays.asList(Long.MAX_VALUE, 100L, -100L, Long.MIN_VALUE));
+		check(ElementCodec.STRING, Arrays.asList("", "a", "привет", String.join("", Collections.nCopies(100, "long "))));
+	}
+
+	@Test
+	public void bytesTest() throws IOException {
+		final List<byte[]> values = Arrays.asList(new byte[0], new byte[] {1, 2, 3}, new byte[100000]);
+		final ChannelInput input = new ChannelInput(Channels.newChannel(new ByteArrayInputStream(encode(ElementCodec.BYTES, values))), 64);
+		byte[] previous = null;
+		for(byte[] value : values) {
+			previous = ElementCodec.BYTES.read(previous, input);
+			Assertions.assertArrayEquals(value, previous);
+		}
+	}
+
+	private static <T> void check(ElementCodec<T> codec, List<T> values) throws IOException {
+		final ChannelInput input = new ChannelInput(Channels.newChannel(new ByteArrayInputStream(encode(codec, values))), 16);
+		final List<T> result = new ArrayList<>();
+		T previous = null;
+		for(int i=0; i<values.size(); i++) {
+			previous = codec.read(previous, input);
+			result.add(previous);
+		}
+		assertThat(result).containsExactlyElementsOf(values);
+	}
+
+	private static <T> byte[] encode(ElementCodec<T> codec, List<T> values) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final ChannelOutput output = new ChannelOutput(Channels.newChannel(bytes), 16);
+		T previous = null;
+		for(T value : values) {
+			codec.write(value, previous, output);
+			previous = value;
+		}
+		output.flush();
+		return bytes.toByteArray();
+	}
+
+}
@@ -0,0 +1,53 @@
+package com.legeyda.play.tree;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IntAvlTreeSetTest {
+
+	@Test
+	void simpleTest() {
+		final IntAvlTreeSet testee = new IntAvlTreeSet(0);
+		assertThat(testee.isEmpty()).isTrue();
+		assertThat(testee.add(100)).isTrue();
+		assertThat(testee.add(100)).isFalse();
+		assertThat(testee.add(-50)).isTrue();
+		assertThat(testee.add(Integer.MAX_VALUE)).isTrue();
+		assertThat(testee.size()).isEqualTo(3);
+		assertThat(testee.toArray()).containsExactly(-50, 100, Integer.MAX_VALUE);
+		assertThat(testee.remove(100)).isTrue();
+		assertThat(testee.remove(100)).isFalse();
+		assertThat(testee.contains(100)).isFalse();
+		assertThat(testee.toArray()).containsExactly(-50, Integer.MAX_VALUE);
+	}
+
+	@Test
+	void randomizedTest() {
+		final IntAvlTreeSet testee = new IntAvlTreeSet();
+		final TreeSet<Integer> model = new TreeSet<>();
+		final Random random = new Random();
+		for(int i=0; i<20000; i++) {
+			final int value = random.nextInt(500);
+			if(random.nextInt(3)>0) {
+				assertThat(testee.add(value)).isEqualTo(model.add(value));
+			} else {
+				assertThat(testee.remove(value)).isEqualTo(model.remove(value));
+			}
+			assertThat(testee.size()).isEqualTo(model.size());
+		}
+		for(int value=0; value<500; value++) {
+			assertThat(testee.contains(value)).isEqualTo(model.contains(value));
+		}
+		final PrimitiveIterator.OfInt iterator = testee.iterator();
+		for(Integer expected : model) {
+			assertThat(iterator.nextInt()).isEqualTo(expected);
+		}
+		assertThat(iterator.hasNext()).isFalse();
+	}
+
+}
@@ -0,0 +1,53 @@
+package com.legeyda.play.tree;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LongAvlTreeSetTest {
+
+	@Test
+	void simpleTest() {
+		final LongAvlTreeSet testee = new LongAvlTreeSet(0);
+		assertThat(testee.isEmpty()).isTrue();
+		assertThat(testee.add(100L)).isTrue();
+		assertThat(testee.add(100L)).isFalse();
+		assertThat(testee.add(-50L)).isTrue();
+		assertThat(testee.add(Long.MAX_VALUE)).isTrue();
+		assertThat(testee.size()).isEqualTo(3);
+		assertThat(testee.toArray()).containsExactly(-50L, 100L, Long.MAX_VALUE);
+		assertThat(testee.remove(100L)).isTrue();
+		assertThat(testee.remove(100L)).isFalse();
+		assertThat(testee.contains(100L)).isFalse();
+		assertThat(testee.toArray()).containsExactly(-50L, Long.MAX_VALUE);
+	}
+
+	@Test
+	void randomizedTest() {
+		final LongAvlTreeSet testee = new LongAvlTreeSet();
+		final TreeSet<Long> model = new TreeSet<>();
+		final Random random = new Random();
+		for(int i=0; i<20000; i++) {
+			final long value = random.nextInt(500);
+			if(random.nextInt(3)>0) {
+				assertThat(testee.add(value)).isEqualTo(model.add(value));
+			} else {
+				assertThat(testee.remove(value)).isEqualTo(model.remove(value));
+			}
+			assertThat(testee.size()).isEqualTo(model.size());
+		}
+		for(long value=0; value<500; value++) {
+			assertThat(testee.contains(value)).isEqualTo(model.contains(value));
+		}
+		final PrimitiveIterator.OfLong iterator = testee.iterator();
+		for(Long expected : model) {
+			assertThat(iterator.nextLong()).isEqualTo(expected);
+		}
+		assertThat(iterator.hasNext()).isFalse();
+	}
+
+}
@@ -0,0 +1,87 @@
+package com.legeyda.play.tree;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MappedAvlTreeSetTest {
+
+	@Test
+	void reopenTest() throws IOException {
+		final Path file = Files.createTempFile("avl", ".bin");
+		Files.delete(file);
+		try {
+			final TreeSet<Long> model = new TreeSet<>();
+			final Random random = new Random();
+			// маленькие сегменты, чтобы дерево заняло несколько отображений
+			try(final MappedAvlTreeSet<Long> testee = new MappedAvlTreeSet<>(file, KeyCodec.LONG, 1000)) {
+				for(int i=0; i<5000; i++) {
+					final long value = random.nextInt(10000) - 5000;
+					assertThat(testee.add(value)).isEqualTo(model.add(value));
+				}
+				assertThat(testee).hasSize(model.size()).containsExactlyElementsOf(model);
+			}
+
+			try(final MappedAvlTreeSet<Long> testee = new MappedAvlTreeSet<>(file, KeyCodec.LONG)) {
+				assertThat(testee).hasSize(model.size()).containsExactlyElementsOf(model);
+				for(long value=-5000; value<5000; value++) {
+					assertThat(testee.contains(value)).isEqualTo(model.contains(value));
+				}
+				assertThat(testee.add(100000L)).isTrue();
+			}
+
+			try(final MappedAvlTreeSet<Long> testee = new MappedAvlTreeSet<>(file, KeyCodec.LONG)) {
+				assertThat(testee.size()).isEqualTo(model.size() + 1);
+				assertThat(testee.contains(100000L)).isTrue();
+			}
+
+			Assertions.assertThrows(IOException.class, () -> new MappedAvlTreeSet<>(file, KeyCodec.INTEGER));
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	void corruptedHeaderTest() throws IOException {
+		final Path file = Files.createTempFile("avl", ".bin");
+		Files.delete(file);
+		try {
+			try(final MappedAvlTreeSet<Long> testee = new MappedAvlTreeSet<>(file, KeyCodec.LONG, 1000)) {
+				for(long value=0; value<200; value++) {
+					testee.add(value);
+				}
+			}
+			final byte[] original = Files.readAllBytes(file);
+			// количество записей в сегменте, корень, размер, количество записей; смещения - как в заголовке
+			for(int offset : new int[] {8, 12, 16, 20}) {
+				for(int value : new int[] {0, -1, Integer.MAX_VALUE}) {
+					final byte[] corrupted = original.clone();
+					ByteBuffer.wrap(corrupted).putInt(offset, value);
+					Files.write(file, corrupted);
+					Assertions.assertThrows(IOException.class, () -> new MappedAvlTreeSet<>(file, KeyCodec.LONG),
+							"offset " + offset + ", value " + value);
+				}
+			}
+
+			Files.write(file, Arrays.copyOf(original, original.length - 1000));
+			Assertions.assertThrows(IOException.class, () -> new MappedAvlTreeSet<>(file, KeyCodec.LONG));
+
+			Files.write(file, original);
+			try(final MappedAvlTreeSet<Long> testee = new MappedAvlTreeSet<>(file, KeyCodec.LONG)) {
+				assertThat(testee.size()).isEqualTo(200);
+			}
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+}
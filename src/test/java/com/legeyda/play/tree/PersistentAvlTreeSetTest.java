@@ -0,0 +1,66 @@
+package com.legeyda.play.tree;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PersistentAvlTreeSetTest {
+
+	@Test
+	void randomizedTest() {
+		final PersistentAvlTreeSet<Integer> testee = new PersistentAvlTreeSet<>();
+		final TreeSet<Integer> model = new TreeSet<>();
+		final Random random = new Random();
+		for(int i=0; i<20000; i++) {
+			final Integer value = random.nextInt(500);
+			if(random.nextInt(3)>0) {
+				assertThat(testee.add(value)).isEqualTo(model.add(value));
+			} else {
+				assertThat(testee.remove(value)).isEqualTo(model.remove(value));
+			}
+			assertThat(testee.size()).isEqualTo(model.size());
+		}
+		assertThat(testee).containsExactlyElementsOf(model);
+		for(int value=0; value<500; value++) {
+			assertThat(testee.contains(value)).isEqualTo(model.contains(value));
+		}
+	}
+
+	@Test
+	void snapshotTest() {
+		final PersistentAvlTreeSet<Integer> testee = new PersistentAvlTreeSet<>();
+		final List<PersistentAvlTreeSet<Integer>> snapshots = new ArrayList<>();
+		final List<TreeSet<Integer>> models = new ArrayList<>();
+		final TreeSet<Integer> model = new TreeSet<>();
+		final Random random = new Random();
+		for(int i=0; i<5000; i++) {
+			final Integer value = random.nextInt(1000);
+			if(random.nextBoolean()) {
+				testee.add(value);
+				model.add(value);
+			} else {
+				testee.remove(value);
+				model.remove(value);
+			}
+			if(i%500==0) {
+				snapshots.add(testee.snapshot());
+				models.add(new TreeSet<>(model));
+			}
+		}
+		for(int i=0; i<snapshots.size(); i++) {
+			assertThat(snapshots.get(i)).hasSize(models.get(i).size()).containsExactlyElementsOf(models.get(i));
+		}
+
+		// снимок можно менять независимо от исходного множества
+		final PersistentAvlTreeSet<Integer> snapshot = testee.snapshot();
+		snapshot.clear();
+		assertThat(snapshot).isEmpty();
+		assertThat(testee).containsExactlyElementsOf(model);
+	}
+
+}
@@ -0,0 +1,153 @@
+package com.legeyda.play.tree;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TreeMetricsAnalyzerTest {
+
+	private final TreeNode<Integer> sampleTree = new TreeNode<>(
+			10,
+			new TreeNode<>(
+					5,
+					new TreeNode<>(2, null, null),
+					new TreeNode<>(7, null, new TreeNode<>(8, null, null))),
+			new TreeNode<>(
+					15, null, null));
+
+	@Test
+	public void test() {
+		final TreeMetrics metrics = TreeMetricsAnalyzer.analyze(sampleTree);
+		assertThat(metrics.size()).isEqualTo(6L);
+		assertThat(metrics.leaves()).isEqualTo(3L);
+		assertThat(metrics.minDepth()).isEqualTo(2);
+		assertThat(metrics.maxDepth()).isEqualTo(4);
+		assertThat(metrics.width(1)).isEqualTo(1L);
+		assertThat(metrics.width(2)).isEqualTo(2L);
+		assertThat(metrics.width(3)).isEqualTo(2L);
+		assertThat(metrics.width(4)).isEqualTo(1L);
+		assertThat(metrics.width(5)).isEqualTo(0L);
+		// 8 - 7 - 5 - 10 - 15
+		assertThat(metrics.diameter()).isEqualTo(4);
+		// у 5 высоты поддеревьев 1 и 2, у 10 - 3 и 1
+		assertThat(metrics.isBalanced()).isFalse();
+		assertThat(metrics.minDepth()).isEqualTo(new FindMinHeight<Integer>().findMinHeight(sampleTree));
+
+		assertThat(TreeMetricsAnalyzer.analyze(null)).isEqualTo(TreeMetrics.EMPTY);
+	}
+
+	@Test
+	public void randomTreeTest() {
+		final Random random = new Random();
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			for(int i=0; i<200; i++) {
+				final TreeNode<Integer> root = randomTree(random, 1 + random.nextInt(300));
+				final TreeMetrics expected = naive(root);
+				assertThat(TreeMetricsAnalyzer.analyze(root)).isEqualTo(expected);
+				assertThat(TreeMetricsAnalyzer.analyze(root, pool, random.nextInt(6))).isEqualTo(expected);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void balancedTest() {
+		assertThat(TreeMetricsAnalyzer.analyze(complete(1023)).isBalanced()).isTrue();
+		assertThat(TreeMetricsAnalyzer.analyze(complete(1000)).isBalanced()).isTrue();
+	}
+
+	@Test
+	public void incrementalTest() {
+		final TreeNode<Integer> root = randomTree(new Random(), 10000);
+		final TreeMetricsAnalyzer<Integer> analyzer = new TreeMetricsAnalyzer<>(root);
+		long previousSize = 0;
+		while(!analyzer.advance(100)) {
+			final TreeMetrics partial = analyzer.current();
+			assertThat(partial.size()).isEqualTo(previousSize + 100);
+			previousSize = partial.size();
+		}
+		assertThat(analyzer.isDone()).isTrue();
+		assertThat(analyzer.current()).isEqualTo(naive(root));
+	}
+
+	@Test
+	public void degenerateTest() {
+		TreeNode<Integer> root = null;
+		for(int i=0; i<1000000; i++) {
+			root = new TreeNode<>(i, null, root);
+		}
+		final TreeMetrics metrics = TreeMetricsAnalyzer.analyze(root);
+		assertThat(metrics.size()).isEqualTo(1000000L);
+		assertThat(metrics.maxDepth()).isEqualTo(1000000);
+		assertThat(metrics.diameter()).isEqualTo(999999);
+		assertThat(metrics.maxWidth()).isEqualTo(1L);
+		Assertions.assertFalse(metrics.isBalanced());
+	}
+
+	/** рекурсивный подсчёт по определению, для проверки */
+	private static TreeMetrics naive(TreeNode<Integer> node) {
+		if(node==null) {
+			return TreeMetrics.EMPTY;
+		}
+		final TreeMetrics left = naive(node.left);
+		final TreeMetrics right = naive(node.right);
+		final List<Long> widths = new ArrayList<>();
+		widths.add(1L);
+		for(int depth=1; depth<=Math.max(left.maxDepth(), right.maxDepth()); depth++) {
+			widths.add(left.width(depth) + right.width(depth));
+		}
+		final int minDepth;
+		if(node.left==null && node.right==null) {
+			minDepth = 1;
+		} else if(node.left==null || node.right==null) {
+			minDepth = 1 + (node.left==null ? right : left).minDepth();
+		} else {
+			minDepth = 1 + Math.min(left.minDepth(), right.minDepth());
+		}
+		return new TreeMetrics(
+				1 + left.size() + right.size(),
+				node.left==null && node.right==null ? 1 : left.leaves() + right.leaves(),
+				minDepth,
+				1 + Math.max(left.maxDepth(), right.maxDepth()),
+				widths.stream().mapToLong(Long::longValue).toArray(),
+				Math.max(left.maxDepth() + right.maxDepth(), Math.max(left.diameter(), right.diameter())),
+				left.isBalanced() && right.isBalanced() && Math.abs(left.maxDepth() - right.maxDepth())<=1);
+	}
+
+	private static TreeNode<Integer> complete(int size) {
+		final TreeNode<Integer>[] nodes = new TreeNode[size];
+		for(int i=size-1; i>=0; i--) {
+			nodes[i] = new TreeNode<>(i, 2*i+1<size ? nodes[2*i+1] : null, 2*i+2<size ? nodes[2*i+2] : null);
+		}
+		return nodes[0];
+	}
+
+	/** случайная форма, значения - номера нод в порядке создания */
+	private static TreeNode<Integer> randomTree(Random random, int size) {
+		final List<TreeNode<Integer>> nodes = new ArrayList<>();
+		nodes.add(new TreeNode<>(0, null, null));
+		while(nodes.size()<size) {
+			final TreeNode<Integer> parent = nodes.get(random.nextInt(nodes.size()));
+			final TreeNode<Integer> child = new TreeNode<>(nodes.size(), null, null);
+			if(random.nextBoolean()) {
+				if(parent.left==null) {
+					parent.left = child;
+					nodes.add(child);
+				}
+			} else if(parent.right==null) {
+				parent.right = child;
+				nodes.add(child);
+			}
+		}
+		return nodes.get(0);
+	}
+
+}
@@ -0,0 +1,92 @@
+package com.legeyda.play.tree;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TreeRendererTest {
+
+	private final TreeNode<Integer> sampleTree = new TreeNode<>(
+			10,
+			new TreeNode<>(
+					5,
+					new TreeNode<>(2, null, null),
+					new TreeNode<>(7, null, new TreeNode<>(8, null, null))),
+			new TreeNode<>(
+					15, null, null));
+
+	@Test
+	public void test() throws IOException {
+		assertThat(render(sampleTree, Integer.MAX_VALUE)).isEqualTo(
+"    10\n" +
+" -------\n" +
+" 5    15\n" +
+"---\n" +
+"2 7\n" +
+"  --\n" +
+"   8");
+	}
+
+	@Test
+	public void levelsTest() throws IOException {
+		assertThat(render(sampleTree, 2)).isEqualTo(
+" 10\n" +
+"-----\n" +
+"5  15");
+		assertThat(render(sampleTree, 1)).isEqualTo("10");
+		assertThat(render(sampleTree, 0)).isEmpty();
+		assertThat(render(null, Integer.MAX_VALUE)).isEmpty();
+	}
+
+	@Test
+	public void wideLabelTest() throws IOException {
+		// надпись шире поддерева потомка не должна сдвигать соседние поддеревья
+		final TreeNode<Integer> root = new TreeNode<>(
+				5,
+				new TreeNode<>(-1000, null, new TreeNode<>(1, null, null)),
+				new TreeNode<>(542, null, null));
+		assertThat(render(root, Integer.MAX_VALUE)).isEqualTo(
+"     5\n" +
+"---------\n" +
+"-1000 542\n" +
+"----\n" +
+"   1");
+	}
+
+	@Test
+	public void writerTest() throws IOException {
+		final StringWriter writer = new StringWriter();
+		TreeRenderer.<Integer>forTreeNodes().render(sampleTree, Integer.MAX_VALUE, writer);
+		assertThat(writer.toString()).isEqualTo(render(sampleTree, Integer.MAX_VALUE));
+	}
+
+	@Test
+	public void degenerateTest() throws IOException {
+		// цепочка нод печатается без рекурсии, каждая следующая нода на символ правее
+		TreeNode<Integer> root = null;
+		for(int i=1000; i>0; i--) {
+			root = new TreeNode<>(i % 10, null, root);
+		}
+		final String[] lines = render(root, Integer.MAX_VALUE).split("\n");
+		Assertions.assertEquals(2 * 1000 - 1, lines.length);
+		Assertions.assertEquals(1000, lines[lines.length - 1].length());
+	}
+
+	@Test
+	public void emptyLabelTest() {
+		final TreeRenderer<TreeNode<String>> renderer = TreeRenderer.forTreeNodes();
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> renderer.render(new TreeNode<>("", null, null), 1, new StringBuilder()));
+	}
+
+	private static String render(TreeNode<Integer> root, int maxLevels) throws IOException {
+		final StringBuilder result = new StringBuilder();
+		TreeRenderer.<Integer>forTreeNodes().render(root, maxLevels, result);
+		return result.toString();
+	}
+
+}
@@ -0,0 +1,112 @@
+package com.legeyda.play.tree.walk;
+
+import com.legeyda.play.tree.TreeNode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+
+public class ForkJoinWalkerTest extends WalkTest {
+
+	@Test
+	public void test() {
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			// split depth 1 mixes forked nodes with sequentially walked subtrees
+			for(int splitDepth=0; splitDepth<4; splitDepth++) {
+				Assertions.assertIterableEquals(Arrays.asList(10, 5, 2, 7, 15, 12, 17),
+						trace(new ForkJoinWalker<>(ForkJoinWalker.Order.PREORDER, pool, splitDepth), sampleTree));
+				Assertions.assertIterableEquals(Arrays.asList(2, 5, 7, 10, 12, 15, 17),
+						trace(new ForkJoinWalker<>(ForkJoinWalker.Order.INORDER, pool, splitDepth), sampleTree));
+				Assertions.assertIterableEquals(Arrays.asList(2, 7, 5, 12, 17, 15, 10),
+						trace(new ForkJoinWalker<>(ForkJoinWalker.Order.POSTORDER, pool, splitDepth), sampleTree));
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void randomTreeTest() {
+		final TreeNode<Integer> root = randomTree(100000);
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			Assertions.assertIterableEquals(trace(new PreorderRecursive<>(), root),
+					trace(new ForkJoinWalker<>(ForkJoinWalker.Order.PREORDER, pool, 6), root));
+			Assertions.assertIterableEquals(trace(new InorderArrayStack<>(), root),
+					trace(new ForkJoinWalker<>(ForkJoinWalker.Order.INORDER, pool, 6), root));
+			Assertions.assertIterableEquals(trace(new PostorderArrayStack<>(), root),
+					trace(new ForkJoinWalker<>(ForkJoinWalker.Order.POSTORDER, pool, 6), root));
+
+			final ConcurrentLinkedQueue<Integer> unordered = new ConcurrentLinkedQueue<>();
+			new ForkJoinWalker<Integer>(ForkJoinWalker.Order.UNORDERED, pool, 6).walk(root, node -> unordered.add(node.value));
+			final List<Integer> sorted = new ArrayList<>(unordered);
+			Collections.sort(sorted);
+			Assertions.assertIterableEquals(trace(new InorderArrayStack<>(), root), sorted);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void mapperTest() {
+		final List<String> trace = new ArrayList<>();
+		new ForkJoinWalker<Integer>(ForkJoinWalker.Order.INORDER).walk(sampleTree, node -> "#" + node.value, trace::add);
+		Assertions.assertIterableEquals(Arrays.asList("#2", "#5", "#7", "#10", "#12", "#15", "#17"), trace);
+	}
+
+	@Test
+	public void listenerFailureTest() {
+		Assertions.assertThrows(IllegalStateException.class, () ->
+				new ForkJoinWalker<Integer>(ForkJoinWalker.Order.UNORDERED).walk(sampleTree, node -> {
+					if(node.value==12) {
+						throw new IllegalStateException();
+					}
+				}));
+	}
+
+	private static List<Integer> trace(TreeWalker<Integer> walker, TreeNode<Integer> root) {
+		final List<Integer> trace = new ArrayList<>();
+		walker.walk(root, node -> trace.add(node.value));
+		if(walker instanceof ForkJoinWalker) {
+			// ordered plain walk is sequential, the parallel path with buffered chunks is the one with a mapper
+			final List<Integer> mapped = new ArrayList<>();
+			((ForkJoinWalker<Integer>) walker).walk(root, node -> node.value, mapped::add);
+			Assertions.assertIterableEquals(trace, mapped);
+		}
+		return trace;
+	}
+
+	/** unbalanced search tree of random values */
+	private static TreeNode<Integer> randomTree(int size) {
+		final Random random = new Random();
+		final TreeNode<Integer> root = new TreeNode<>(random.nextInt(), null, null);
+		for(int i=1; i<size; i++) {
+			final int value = random.nextInt();
+			TreeNode<Integer> node = root;
+			while(true) {
+				if(value<node.value) {
+					if(node.left==null) {
+						node.left = new TreeNode<>(value, null, null);
+						break;
+					}
+					node = node.left;
+				} else {
+					if(node.right==null) {
+						node.right = new TreeNode<>(value, null, null);
+						break;
+					}
+					node = node.right;
+				}
+			}
+		}
+		return root;
+	}
+
+}
@@ -0,0 +1,47 @@
+package com.legeyda.play.tree.walk;
+
+import com.legeyda.play.tree.TreeNode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class InorderArrayStackTest extends WalkTest {
+
+	@Test
+	public void test() {
+		final InorderArrayStack<Integer> walker = new InorderArrayStack<>();
+		for(int i=0; i<2; i++) {
+			// the second walk reuses the buffer left from the first one
+			final ArrayList<Integer> trace = new ArrayList<>(7);
+			walker.walk(sampleTree, treeNode -> trace.add(treeNode.value));
+			Assertions.assertIterableEquals(Arrays.asList(2, 5, 7, 10, 12, 15, 17), trace);
+		}
+	}
+
+	@Test
+	public void degenerateTest() {
+		TreeNode<Integer> root = null;
+		for(int i=0; i<100000; i++) {
+			root = new TreeNode<>(i, root, null);
+		}
+		final int[] count = {0};
+		new InorderArrayStack<Integer>().walk(root, treeNode -> count[0]++);
+		Assertions.assertEquals(100000, count[0]);
+	}
+
+	@Test
+	public void listenerFailureTest() {
+		final InorderArrayStack<Integer> walker = new InorderArrayStack<>();
+		Assertions.assertThrows(IllegalStateException.class, () -> walker.walk(sampleTree, treeNode -> {
+			if(treeNode.value==7) {
+				throw new IllegalStateException();
+			}
+		}));
+		final ArrayList<Integer> trace = new ArrayList<>(7);
+		walker.walk(sampleTree, treeNode -> trace.add(treeNode.value));
+		Assertions.assertIterableEquals(Arrays.asList(2, 5, 7, 10, 12, 15, 17), trace);
+	}
+
+}
@@ -0,0 +1,76 @@
+package com.legeyda.play.tree.walk;
+
+import com.legeyda.play.tree.TreeNode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+public class LevelWalkerTest extends WalkTest {
+
+	@Test
+	public void test() {
+		final List<List<Integer>> levels = levels(new LevelWalker<>(), sampleTree);
+		Assertions.assertIterableEquals(Arrays.asList(
+				Arrays.asList(10),
+				Arrays.asList(5, 15),
+				Arrays.asList(2, 7, 12, 17)), levels);
+
+		final ArrayList<Integer> trace = new ArrayList<>(7);
+		new LevelWalker<Integer>().walk(sampleTree, treeNode -> trace.add(treeNode.value));
+		Assertions.assertIterableEquals(Arrays.asList(10, 5, 15, 2, 7, 12, 17), trace);
+	}
+
+	@Test
+	public void stopTest() {
+		final LevelWalker<Integer> walker = new LevelWalker<>();
+		final List<Integer> depths = new ArrayList<>();
+		walker.walkLevels(sampleTree, (depth, nodes) -> {
+			depths.add(depth);
+			return depth<1;
+		});
+		Assertions.assertIterableEquals(Arrays.asList(0, 1), depths);
+		// the walker is reusable after a stopped walk
+		Assertions.assertEquals(3, levels(walker, sampleTree).size());
+	}
+
+	@Test
+	public void parallelTest() {
+		// complete tree with a ragged last level, wide enough to build levels in parallel
+		final Random random = new Random();
+		final int size = 200000 + random.nextInt(1000);
+		final TreeNode<Integer>[] nodes = new TreeNode[size];
+		for(int i=size-1; i>=0; i--) {
+			nodes[i] = new TreeNode<>(i, 2*i+1<size ? nodes[2*i+1] : null, 2*i+2<size ? nodes[2*i+2] : null);
+		}
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			final LevelWalker<Integer> parallel = new LevelWalker<>(pool, 0);
+			Assertions.assertIterableEquals(levels(new LevelWalker<>(), nodes[0]), levels(parallel, nodes[0]));
+			final int[] sum = {0};
+			parallel.walkLevels(nodes[0], (depth, level) -> {
+				sum[0] += level.parallelStream().mapToInt(node -> 1).sum();
+				return true;
+			});
+			Assertions.assertEquals(size, sum[0]);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private static List<List<Integer>> levels(LevelWalker<Integer> walker, TreeNode<Integer> root) {
+		final List<List<Integer>> result = new ArrayList<>();
+		walker.walkLevels(root, (depth, nodes) -> {
+			Assertions.assertEquals(result.size(), depth);
+			result.add(nodes.stream().map(node -> node.value).collect(Collectors.toList()));
+			return true;
+		});
+		return result;
+	}
+
+}
@@ -0,0 +1,52 @@
+package com.legeyda.play.tree.walk;
+
+import com.legeyda.play.tree.TreeNode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MorrisPreorderTest extends WalkTest {
+
+	@Test
+	public void degenerateTest() {
+		// left-leaning chain is the worst case for threading: every node gets a thread
+		TreeNode<Integer> root = null;
+		for(int i=0; i<1000000; i++) {
+			root = new TreeNode<>(i, root, null);
+		}
+		final int[] count = {0};
+		new MorrisPreorder<Integer>().walk(root, treeNode -> count[0]++);
+		Assertions.assertEquals(1000000, count[0]);
+		for(TreeNode<Integer> node = root; node!=null; node = node.left) {
+			Assertions.assertNull(node.right);
+		}
+	}
+
+	@Test
+	public void listenerFailureTest() {
+		final List<TreeNode<Integer>> links = links(sampleTree);
+		final List<Integer> trace = new ArrayList<>();
+		Assertions.assertThrows(IllegalStateException.class, () -> new MorrisPreorder<Integer>().walk(sampleTree, treeNode -> {
+			trace.add(treeNode.value);
+			if(treeNode.value==5) {
+				throw new IllegalStateException();
+			}
+		}));
+		Assertions.assertEquals(Integer.valueOf(5), trace.get(trace.size() - 1));
+		Assertions.assertIterableEquals(links, links(sampleTree));
+	}
+
+	/** node, left and right of every node, to check that the tree is restored */
+	private static List<TreeNode<Integer>> links(TreeNode<Integer> root) {
+		final List<TreeNode<Integer>> result = new ArrayList<>();
+		new PreorderRecursive<Integer>().walk(root, treeNode -> {
+			result.add(treeNode);
+			result.add(treeNode.left);
+			result.add(treeNode.right);
+		});
+		return result;
+	}
+
+}
@@ -0,0 +1,34 @@
+package com.legeyda.play.tree.walk;
+
+import com.legeyda.play.tree.TreeNode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+public class NodeQueueTest {
+
+	@Test
+	public void test() {
+		// small initial capacity, so that the ring wraps around and grows many times
+		final NodeQueue<Integer> testee = new NodeQueue<>(1);
+		final ArrayDeque<TreeNode<Integer>> model = new ArrayDeque<>();
+		final Random random = new Random();
+		for(int i=0; i<100000; i++) {
+			if(model.isEmpty() || random.nextInt(3)>0) {
+				final TreeNode<Integer> node = new TreeNode<>(i, null, null);
+				testee.offer(node);
+				model.offer(node);
+			} else {
+				Assertions.assertSame(model.poll(), testee.poll());
+			}
+			Assertions.assertEquals(model.size(), testee.size());
+		}
+		testee.clear();
+		Assertions.assertTrue(testee.isEmpty());
+		Assertions.assertThrows(NoSuchElementException.class, testee::poll);
+	}
+
+}
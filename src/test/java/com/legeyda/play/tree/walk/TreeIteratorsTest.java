@@ -0,0 +1,93 @@
+package com.legeyda.play.tree.walk;
+
+import com.legeyda.play.tree.TreeNode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+public class TreeIteratorsTest extends WalkTest {
+
+	@Test
+	public void test() {
+		Assertions.assertIterableEquals(Arrays.asList(10, 5, 2, 7, 15, 12, 17), values(TreeIterators.preorder(sampleTree)));
+		Assertions.assertIterableEquals(Arrays.asList(2, 5, 7, 10, 12, 15, 17), values(TreeIterators.inorder(sampleTree)));
+		Assertions.assertIterableEquals(Arrays.asList(2, 7, 5, 12, 17, 15, 10), values(TreeIterators.postorder(sampleTree)));
+		Assertions.assertIterableEquals(Arrays.asList(10, 5, 15, 2, 7, 12, 17), values(TreeIterators.breadthFirst(sampleTree)));
+	}
+
+	@Test
+	public void emptyTest() {
+		final Iterator<TreeNode<Integer>> iterator = TreeIterators.postorder(null);
+		Assertions.assertFalse(iterator.hasNext());
+		Assertions.assertThrows(NoSuchElementException.class, iterator::next);
+	}
+
+	@Test
+	public void randomTreeTest() {
+		// trees with one-child nodes on both sides are the tricky case for postorder
+		final Random random = new Random();
+		for(int i=0; i<100; i++) {
+			final TreeNode<Integer> root = randomTree(random, random.nextInt(200));
+			Assertions.assertIterableEquals(trace(new PreorderRecursive<>(), root), values(TreeIterators.preorder(root)));
+			Assertions.assertIterableEquals(trace(new InorderIterative<>(), root), values(TreeIterators.inorder(root)));
+			Assertions.assertIterableEquals(trace(new PostorderRecursive<>(), root), values(TreeIterators.postorder(root)));
+			Assertions.assertIterableEquals(trace(new BreadFirstNonRecursive<>(), root), values(TreeIterators.breadthFirst(root)));
+		}
+	}
+
+	@Test
+	public void shortCircuitTest() {
+		TreeNode<Integer> root = null;
+		for(int i=1000000; i>0; i--) {
+			root = new TreeNode<>(i, null, root);
+		}
+		Assertions.assertEquals(Arrays.asList(1, 2, 3),
+				TreeIterators.preorderStream(root).limit(3).map(node -> node.value).collect(Collectors.toList()));
+		Assertions.assertTrue(TreeIterators.inorderStream(root).anyMatch(node -> node.value==500));
+		Assertions.assertEquals(Integer.valueOf(42),
+				TreeIterators.breadthFirstStream(root).filter(node -> node.value>41).findFirst().get().value);
+	}
+
+	private static List<Integer> values(Iterator<TreeNode<Integer>> iterator) {
+		final List<Integer> result = new ArrayList<>();
+		iterator.forEachRemaining(node -> result.add(node.value));
+		return result;
+	}
+
+	private static List<Integer> trace(TreeWalker<Integer> walker, TreeNode<Integer> root) {
+		final List<Integer> trace = new ArrayList<>();
+		walker.walk(root, node -> trace.add(node.value));
+		return trace;
+	}
+
+	/** random shape, values are numbers of nodes in creation order */
+	private static TreeNode<Integer> randomTree(Random random, int size) {
+		if(size==0) {
+			return null;
+		}
+		final List<TreeNode<Integer>> nodes = new ArrayList<>();
+		nodes.add(new TreeNode<>(0, null, null));
+		while(nodes.size()<size) {
+			final TreeNode<Integer> parent = nodes.get(random.nextInt(nodes.size()));
+			final TreeNode<Integer> child = new TreeNode<>(nodes.size(), null, null);
+			if(random.nextBoolean()) {
+				if(parent.left==null) {
+					parent.left = child;
+					nodes.add(child);
+				}
+			} else if(parent.right==null) {
+				parent.right = child;
+				nodes.add(child);
+			}
+		}
+		return nodes.get(0);
+	}
+
+}
@@ -0,0 +1,164 @@
+package com.legeyda.play.tree.walk;
+
+import com.legeyda.play.tree.TreeNode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+public class TreeVisitorTest extends WalkTest {
+
+	private static final List<Supplier<TreeWalker<Integer>>> PREORDER = Arrays.asList(
+			PreorderRecursive::new,
+			PreorderNonRecursive::new,
+			PreorderArrayStack::new,
+			MorrisPreorder::new,
+			() -> new ForkJoinWalker<>(ForkJoinWalker.Order.PREORDER));
+
+	private static final List<Supplier<TreeWalker<Integer>>> INORDER = Arrays.asList(
+			InorderIterative::new,
+			InorderIterative2::new,
+			InorderArrayStack::new,
+			MorrisInorder::new,
+			() -> new ForkJoinWalker<>(ForkJoinWalker.Order.INORDER));
+
+	private static final List<Supplier<TreeWalker<Integer>>> POSTORDER = Arrays.asList(
+			PostorderRecursive::new,
+			PostorderIterative::new,
+			PostorderArrayStack::new,
+			() -> new ForkJoinWalker<>(ForkJoinWalker.Order.POSTORDER));
+
+	private static final List<Supplier<TreeWalker<Integer>>> BREADTH_FIRST = Arrays.asList(
+			BreadFirstNonRecursive::new,
+			BreadFirstRingBuffer::new,
+			LevelWalker::new);
+
+	@Test
+	public void skipTest() {
+		check(PREORDER, sampleTree, 5, VisitResult.SKIP_SUBTREE, Arrays.asList(10, 5, 15, 12, 17));
+		check(INORDER, sampleTree, 5, VisitResult.SKIP_SUBTREE, Arrays.asList(2, 5, 10, 12, 15, 17));
+		check(INORDER, sampleTree, 10, VisitResult.SKIP_SUBTREE, Arrays.asList(2, 5, 7, 10));
+		check(POSTORDER, sampleTree, 5, VisitResult.SKIP_SUBTREE, Arrays.asList(2, 7, 5, 12, 17, 15, 10));
+		check(BREADTH_FIRST, sampleTree, 5, VisitResult.SKIP_SUBTREE, Arrays.asList(10, 5, 15, 12, 17));
+	}
+
+	@Test
+	public void terminateTest() {
+		check(PREORDER, sampleTree, 15, VisitResult.TERMINATE, Arrays.asList(10, 5, 2, 7, 15));
+		check(INORDER, sampleTree, 10, VisitResult.TERMINATE, Arrays.asList(2, 5, 7, 10));
+		check(POSTORDER, sampleTree, 12, VisitResult.TERMINATE, Arrays.asList(2, 7, 5, 12));
+		check(BREADTH_FIRST, sampleTree, 2, VisitResult.TERMINATE, Arrays.asList(10, 5, 15, 2));
+	}
+
+	@Test
+	public void randomTreeTest() {
+		// every walker of an order must agree with the first one on any tree and any decisions
+		final Random random = new Random();
+		for(int i=0; i<200; i++) {
+			final TreeNode<Integer> root = randomTree(random, 1 + random.nextInt(100));
+			final int skipDivisor = 2 + random.nextInt(5);
+			final int terminateAt = random.nextInt(120);
+			for(List<Supplier<TreeWalker<Integer>>> walkers : Arrays.asList(PREORDER, INORDER, POSTORDER, BREADTH_FIRST)) {
+				final List<Integer> expected = trace(walkers.get(0).get(), root, skipDivisor, terminateAt);
+				final List<TreeNode<Integer>> links = links(root);
+				for(Supplier<TreeWalker<Integer>> walker : walkers) {
+					Assertions.assertIterableEquals(expected, trace(walker.get(), root, skipDivisor, terminateAt));
+					Assertions.assertIterableEquals(links, links(root));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void defaultVisitTest() {
+		// a walker written before visit existed implements only walk and ignores the decisions
+		final TreeWalker<Integer> walker = (root, listener) -> new PreorderRecursive<Integer>().walk(root, listener);
+		final List<Integer> trace = new ArrayList<>();
+		walker.visit(sampleTree, node -> {
+			trace.add(node.value);
+			return node.value==5 ? VisitResult.TERMINATE : VisitResult.SKIP_SUBTREE;
+		});
+		Assertions.assertIterableEquals(Arrays.asList(10, 5, 2, 7, 15, 12, 17), trace);
+	}
+
+	@Test
+	public void unorderedTest() {
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			final TreeNode<Integer> root = randomTree(new Random(), 10000);
+			final List<Integer> expected = trace(new PreorderRecursive<>(), root, 3, -1);
+			final List<Integer> actual = new ArrayList<>();
+			new ForkJoinWalker<Integer>(ForkJoinWalker.Order.UNORDERED, pool, 4).visit(root, node -> {
+				synchronized(actual) {
+					actual.add(node.value);
+				}
+				return node.value%3==0 ? VisitResult.SKIP_SUBTREE : VisitResult.CONTINUE;
+			});
+			actual.sort(null);
+			expected.sort(null);
+			Assertions.assertIterableEquals(expected, actual);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private static void check(List<Supplier<TreeWalker<Integer>>> walkers, TreeNode<Integer> root, int value, VisitResult result, List<Integer> expected) {
+		for(Supplier<TreeWalker<Integer>> walker : walkers) {
+			final List<Integer> trace = new ArrayList<>();
+			walker.get().visit(root, node -> {
+				trace.add(node.value);
+				return node.value==value ? result : VisitResult.CONTINUE;
+			});
+			Assertions.assertIterableEquals(expected, trace);
+		}
+	}
+
+	private static List<Integer> trace(TreeWalker<Integer> walker, TreeNode<Integer> root, int skipDivisor, int terminateAt) {
+		final List<Integer> trace = new ArrayList<>();
+		walker.visit(root, node -> {
+			trace.add(node.value);
+			if(node.value==terminateAt) {
+				return VisitResult.TERMINATE;
+			}
+			return node.value%skipDivisor==0 ? VisitResult.SKIP_SUBTREE : VisitResult.CONTINUE;
+		});
+		return trace;
+	}
+
+	/** node, left and right of every node, to check that the Morris walkers restore the tree */
+	private static List<TreeNode<Integer>> links(TreeNode<Integer> root) {
+		final List<TreeNode<Integer>> result = new ArrayList<>();
+		new PreorderRecursive<Integer>().walk(root, node -> {
+			result.add(node);
+			result.add(node.left);
+			result.add(node.right);
+		});
+		return result;
+	}
+
+	/** random shape, values are numbers of nodes in creation order */
+	private static TreeNode<Integer> randomTree(Random random, int size) {
+		final List<TreeNode<Integer>> nodes = new ArrayList<>();
+		nodes.add(new TreeNode<>(0, null, null));
+		while(nodes.size()<size) {
+			final TreeNode<Integer> parent = nodes.get(random.nextInt(nodes.size()));
+			final TreeNode<Integer> child = new TreeNode<>(nodes.size(), null, null);
+			if(random.nextBoolean()) {
+				if(parent.left==null) {
+					parent.left = child;
+					nodes.add(child);
+				}
+			} else if(parent.right==null) {
+				parent.right = child;
+				nodes.add(child);
+			}
+		}
+		return nodes.get(0);
+	}
+
+}